@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.build;
+
+import org.iban4j.CountryCode;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates org.iban4j.BbanValidators, a straight-line bban validator per
+ * country of the built in registry. Runs during the generate-sources phase
+ * of the Maven build.
+ * <p/>
+ * Usage: BbanValidatorGenerator &lt;output source directory&gt;
+ */
+public final class BbanValidatorGenerator {
+
+    private static final int BBAN_INDEX = 4;
+
+    private final StringBuilder out = new StringBuilder();
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: BbanValidatorGenerator <output directory>");
+        }
+        final File file = new File(args[0], "org/iban4j/BbanValidators.java");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Can't create " + file.getParentFile());
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(new BbanValidatorGenerator().generate(BbanRegistry.defaults()));
+        } finally {
+            writer.close();
+        }
+    }
+
+    String generate(final BbanRegistry registry) {
+        line("/*");
+        line(" * Generated by " + getClass().getName() + " from the built in");
+        line(" * bban structures, do not edit.");
+        line(" */");
+        line("package org.iban4j;");
+        line("");
+        line("/**");
+        line(" * Validators of the built in bban structures, one straight-line method");
+        line(" * per country with the iban length and the character type of every");
+        line(" * position written in as constants. Loaded by name, builds which don't");
+        line(" * generate it fall back to the structures.");
+        line(" */");
+        line("final class BbanValidators implements GeneratedBbanValidator {");
+        line("");
+        line("    BbanValidators() {");
+        line("    }");
+        line("");
+        line("    public boolean accepts(final int ordinal, final CharSequence iban) {");
+        line("        return isValidBban(ordinal, iban);");
+        line("    }");
+        line("");
+        line("    /**");
+        line("     * Checks the iban length and the bban characters against the built in");
+        line("     * structure of the country. Only ascii characters are accepted.");
+        line("     *");
+        line("     * @param ordinal CountryCode ordinal");
+        line("     * @param iban CharSequence");
+        line("     * @return true if the bban matches, false if it doesn't or the country");
+        line("     *         has no built in structure.");
+        line("     */");
+        line("    static boolean isValidBban(final int ordinal, final CharSequence iban) {");
+        line("        switch (ordinal) {");
+        for (final CountryCode countryCode : CountryCode.values()) {
+            if (registry.forCountry(countryCode) != null) {
+                line("            case " + countryCode.ordinal() + ": // " + countryCode.getAlpha2());
+                line("                return isValid" + countryCode.getAlpha2() + "(iban);");
+            }
+        }
+        line("            default:");
+        line("                return false;");
+        line("        }");
+        line("    }");
+
+        for (final CountryCode countryCode : CountryCode.values()) {
+            final BbanStructure structure = registry.forCountry(countryCode);
+            if (structure != null) {
+                generateValidator(countryCode, structure);
+            }
+        }
+
+        line("");
+        line("    private static boolean n(final char ch) {");
+        line("        return ch >= '0' && ch <= '9';");
+        line("    }");
+        line("");
+        line("    private static boolean a(final char ch) {");
+        line("        return ch >= 'A' && ch <= 'Z';");
+        line("    }");
+        line("");
+        line("    private static boolean c(final char ch) {");
+        line("        return ch >= '0' && ch <= '9' || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z';");
+        line("    }");
+        line("}");
+        return out.toString();
+    }
+
+    private void generateValidator(final CountryCode countryCode, final BbanStructure structure) {
+        line("");
+        line("    private static boolean isValid" + countryCode.getAlpha2() +
+                "(final CharSequence iban) {");
+        line("        return iban.length() == " + (BBAN_INDEX + structure.getBbanLength()));
+        int offset = BBAN_INDEX;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            final String characterType = entry.getCharacterType().name();
+            line("                // " + entry.getEntryType() + " " + entry.getLength() + "!" +
+                    characterType + " at " + offset);
+            for (int i = offset; i < offset + entry.getLength(); i++) {
+                line("                && " + characterType + "(iban.charAt(" + i + "))");
+            }
+            offset += entry.getLength();
+        }
+        out.setLength(out.length() - 1);
+        line(";");
+        line("    }");
+    }
+
+    private void line(final String line) {
+        out.append(line).append('\n');
+    }
+}
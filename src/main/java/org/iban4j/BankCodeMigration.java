@@ -0,0 +1,423 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites the bank code of ibans in place, driven by a table of old and new
+ * bank codes.
+ * <p/>
+ * The iban check digit is not recalculated from the whole iban. The old and
+ * new bank code differ by a precomputed amount modulo 97, weighted by the
+ * position of the bank code, which is added to the remainder the old check
+ * digit stands for. National check digits covering the bank code are
+ * recalculated and their change is added the same way.
+ * <p/>
+ * Ibans are expected to be valid, they are only checked for length and
+ * bank code. An iban with a wrong check digit keeps being wrong by the same
+ * amount. Instances are immutable and can be shared between threads.
+ */
+public final class BankCodeMigration {
+
+    /**
+     * Outcome of the migration of one iban.
+     */
+    public enum Result {
+
+        /**
+         * The bank code and the check digits were rewritten.
+         */
+        MIGRATED,
+
+        /**
+         * The iban was left unchanged, its country or bank code is not
+         * in the table or it doesn't have the country's length.
+         */
+        NOT_MAPPED,
+
+        /**
+         * The iban was left unchanged, with the new bank code no national
+         * check digits exist for its account number.
+         */
+        NO_NATIONAL_CHECK_DIGIT
+    }
+
+    private static final int MOD = 97;
+    private static final int BBAN_INDEX = 4;
+    // expanded digits of the rearranged iban tail: two country code letters and "00"
+    private static final int TAIL_DIGITS = 6;
+    private static final int[] POWERS_OF_TEN = new int[2 * 34 + TAIL_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10 % MOD;
+        }
+    }
+
+    // indexed by country code ordinal
+    private final CountryMapping[] mappings;
+
+    private BankCodeMigration(final CountryMapping[] mappings) {
+        this.mappings = mappings;
+    }
+
+    /**
+     * Migrates the iban in a buffer.
+     *
+     * @param buffer buffer holding the iban
+     * @param offset index of the iban's first character
+     * @param length length of the iban
+     * @return the outcome, the iban is only changed if it was MIGRATED.
+     */
+    public Result migrate(final char[] buffer, final int offset, final int length) {
+        if (length < BBAN_INDEX) {
+            return Result.NOT_MAPPED;
+        }
+        final CountryCode countryCode = CountryCode.getByAlpha2Code(buffer[offset], buffer[offset + 1]);
+        final CountryMapping mapping = countryCode == null ? null : mappings[countryCode.ordinal()];
+        if (mapping == null || length != mapping.ibanLength) {
+            return Result.NOT_MAPPED;
+        }
+        final int entry = mapping.find(buffer, offset + mapping.bankIndex);
+        final int tens = buffer[offset + 2] - '0';
+        final int ones = buffer[offset + 3] - '0';
+        if (entry < 0 || tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return Result.NOT_MAPPED;
+        }
+        // remainder of the rearranged iban with check digit "00"
+        int remainder = (98 - tens * 10 - ones + MOD) % MOD;
+
+        final NationalCheckDigits.Rule[] rules = mapping.rules;
+        if (rules != null) {
+            remainder = (remainder + MOD - checkDigitsRemainder(buffer, offset, length, rules)) % MOD;
+        }
+        System.arraycopy(mapping.newCodes[entry], 0, buffer, offset + mapping.bankIndex, mapping.bankLength);
+        if (rules != null && !NationalCheckDigits.calculate(countryCode, buffer, offset, length)) {
+            System.arraycopy(mapping.oldCodes[entry], 0, buffer, offset + mapping.bankIndex, mapping.bankLength);
+            return Result.NO_NATIONAL_CHECK_DIGIT;
+        }
+
+        if (mapping.sameDigits[entry]) {
+            final int weight = mapping.constantWeight >= 0 ? mapping.constantWeight : POWERS_OF_TEN[
+                    expandedDigits(buffer, offset + mapping.bankIndex + mapping.bankLength, offset + length)];
+            remainder = (remainder + mapping.deltas[entry] * weight) % MOD;
+            if (rules != null) {
+                remainder = (remainder + checkDigitsRemainder(buffer, offset, length, rules)) % MOD;
+            }
+        } else {
+            // the bank codes expand to different numbers of digits, which
+            // shifts everything in front of them
+            remainder = remainder(buffer, offset + BBAN_INDEX, offset + length, 0);
+            remainder = remainder(buffer, offset, offset + 2, remainder) * 100 % MOD;
+        }
+        final int checkDigit = 98 - remainder;
+        buffer[offset + 2] = (char) ('0' + checkDigit / 10);
+        buffer[offset + 3] = (char) ('0' + checkDigit % 10);
+        return Result.MIGRATED;
+    }
+
+    /**
+     * Migrates many ibans, the slices of one buffer. Iban i runs from
+     * {@code offsets[i]} to {@code offsets[i + 1]}.
+     *
+     * @param buffer buffer holding the ibans
+     * @param offsets count + 1 offsets into the buffer
+     * @param count number of ibans
+     * @param results receives the outcome of each iban, may be null
+     * @return number of migrated ibans
+     */
+    public int migrate(final char[] buffer, final int[] offsets, final int count, final Result[] results) {
+        int migrated = 0;
+        for (int i = 0; i < count; i++) {
+            final Result result = migrate(buffer, offsets[i], offsets[i + 1] - offsets[i]);
+            if (result == Result.MIGRATED) {
+                migrated++;
+            }
+            if (results != null) {
+                results[i] = result;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Migrates an iban string.
+     *
+     * @param iban String
+     * @return the migrated iban, the iban itself if it is not migrated.
+     */
+    public String migrate(final String iban) {
+        Assert.notNull(iban, "iban can't be null");
+        final char[] buffer = iban.toCharArray();
+        return migrate(buffer, 0, buffer.length) == Result.MIGRATED ? new String(buffer) : iban;
+    }
+
+    /**
+     * Remainder contributed by the national check digits to the rearranged iban.
+     */
+    private static int checkDigitsRemainder(final char[] buffer, final int offset, final int length,
+                                            final NationalCheckDigits.Rule[] rules) {
+        int total = 0;
+        for (final NationalCheckDigits.Rule rule : rules) {
+            final int from = offset + rule.getCheckIndex();
+            final int to = from + rule.getCheckLength();
+            total += remainder(buffer, from, to, 0) *
+                    POWERS_OF_TEN[expandedDigits(buffer, to, offset + length)];
+        }
+        return total % MOD;
+    }
+
+    /**
+     * Number of digits of [from, to) in the rearranged iban, followed by the
+     * country code and check digit.
+     */
+    private static int expandedDigits(final char[] buffer, final int from, final int to) {
+        int digits = TAIL_DIGITS;
+        for (int i = from; i < to; i++) {
+            digits += buffer[i] <= '9' ? 1 : 2;
+        }
+        return digits;
+    }
+
+    private static int remainder(final char[] buffer, final int from, final int to, final int initial) {
+        int remainder = initial;
+        for (int i = from; i < to; i++) {
+            final int value = Character.digit(buffer[i], Character.MAX_RADIX);
+            remainder = (remainder * (value < 10 ? 10 : 100) + value) % MOD;
+        }
+        return remainder;
+    }
+
+    /**
+     * The bank codes of one country, in an open addressing table keyed by
+     * the old bank code.
+     */
+    private static final class CountryMapping {
+
+        final int ibanLength;
+        final int bankIndex;
+        final int bankLength;
+        // 10^digits after the bank code modulo 97, -1 if the digits depend on the iban
+        final int constantWeight;
+        final NationalCheckDigits.Rule[] rules;
+        final char[][] oldCodes;
+        final char[][] newCodes;
+        // (new - old) modulo 97 of the bank code digits
+        final int[] deltas;
+        final boolean[] sameDigits;
+        // entry index + 1 by hash slot, 0 for free slots
+        final int[] slots;
+
+        CountryMapping(final CountryCode countryCode, final BbanStructure structure,
+                       final List<String[]> codes) {
+            ibanLength = BBAN_INDEX + structure.getBbanLength();
+            bankIndex = BBAN_INDEX + structure.getEntryOffset(BbanEntryType.bank_code);
+            bankLength = structure.getEntryLength(BbanEntryType.bank_code);
+
+            int digits = TAIL_DIGITS;
+            int bbanIndex = BBAN_INDEX;
+            boolean constant = true;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                if (bbanIndex >= bankIndex + bankLength) {
+                    switch (entry.getCharacterType()) {
+                        case n:
+                            digits += entry.getLength();
+                            break;
+                        case a:
+                            digits += 2 * entry.getLength();
+                            break;
+                        default:
+                            constant = false;
+                    }
+                }
+                bbanIndex += entry.getLength();
+            }
+            constantWeight = constant ? POWERS_OF_TEN[digits] : -1;
+            rules = BbanRegistry.defaults().forCountry(countryCode) == structure
+                    ? NationalCheckDigits.getRules(countryCode) : null;
+
+            final int size = codes.size();
+            oldCodes = new char[size][];
+            newCodes = new char[size][];
+            deltas = new int[size];
+            sameDigits = new boolean[size];
+            int capacity = 2;
+            while (capacity < 2 * size) {
+                capacity <<= 1;
+            }
+            slots = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                oldCodes[i] = codes.get(i)[0].toCharArray();
+                newCodes[i] = codes.get(i)[1].toCharArray();
+                deltas[i] = (remainder(newCodes[i], 0, bankLength, 0) + MOD -
+                        remainder(oldCodes[i], 0, bankLength, 0)) % MOD;
+                sameDigits[i] = expandedDigits(oldCodes[i], 0, bankLength) ==
+                        expandedDigits(newCodes[i], 0, bankLength);
+                int slot = hash(oldCodes[i], 0, bankLength) & (capacity - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        int find(final char[] buffer, final int from) {
+            final int mask = slots.length - 1;
+            int slot = hash(buffer, from, bankLength) & mask;
+            int entry;
+            while ((entry = slots[slot]) != 0) {
+                if (matches(oldCodes[entry - 1], buffer, from)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private boolean matches(final char[] code, final char[] buffer, final int from) {
+            for (int i = 0; i < code.length; i++) {
+                if (code[i] != buffer[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(final char[] buffer, final int from, final int length) {
+            int hash = 0;
+            for (int i = from; i < from + length; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Builder of bank code migrations.
+     */
+    public static final class Builder {
+
+        private final List<List<String[]>> codes = new ArrayList<List<String[]>>();
+        private final BbanStructure[] structures = new BbanStructure[CountryCode.values().length];
+
+        public Builder() {
+            for (int i = 0; i < structures.length; i++) {
+                codes.add(null);
+            }
+        }
+
+        /**
+         * Maps an old bank code of a country to a new one.
+         *
+         * @param countryCode CountryCode
+         * @param oldBankCode String
+         * @param newBankCode String
+         * @return builder Builder
+         * @throws UnsupportedCountryException if the country doesn't support ibans.
+         * @throws IllegalArgumentException if the country has no bank codes, a bank
+         *         code doesn't match its structure or the old one is already mapped.
+         */
+        public Builder map(final CountryCode countryCode, final String oldBankCode,
+                           final String newBankCode) {
+            Assert.notNull(countryCode, "countryCode can't be null");
+            Assert.notNull(oldBankCode, "oldBankCode can't be null");
+            Assert.notNull(newBankCode, "newBankCode can't be null");
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure == null) {
+                throw new UnsupportedCountryException(countryCode.getAlpha2(),
+                        "Country code is not supported.");
+            }
+            if (structure.getEntryOffset(BbanEntryType.bank_code) < 0) {
+                throw new IllegalArgumentException(countryCode.getAlpha2() + " has no bank codes.");
+            }
+            validateBankCode(structure, oldBankCode);
+            validateBankCode(structure, newBankCode);
+
+            final int ordinal = countryCode.ordinal();
+            if (structures[ordinal] == null) {
+                structures[ordinal] = structure;
+                codes.set(ordinal, new ArrayList<String[]>());
+            }
+            for (final String[] mapped : codes.get(ordinal)) {
+                if (mapped[0].equals(oldBankCode)) {
+                    throw new IllegalArgumentException("Bank code [" + oldBankCode +
+                            "] is already mapped to [" + mapped[1] + "].");
+                }
+            }
+            codes.get(ordinal).add(new String[] {oldBankCode, newBankCode});
+            return this;
+        }
+
+        /**
+         * Builds the migration.
+         *
+         * @return migration
+         */
+        public BankCodeMigration build() {
+            final CountryMapping[] mappings = new CountryMapping[structures.length];
+            final CountryCode[] countryCodes = CountryCode.values();
+            for (int i = 0; i < structures.length; i++) {
+                if (structures[i] != null) {
+                    mappings[i] = new CountryMapping(countryCodes[i], structures[i], codes.get(i));
+                }
+            }
+            return new BankCodeMigration(mappings);
+        }
+
+        private static void validateBankCode(final BbanStructure structure, final String bankCode) {
+            final int length = structure.getEntryLength(BbanEntryType.bank_code);
+            int index = 0;
+            int entryStart = 0;
+            final int bankOffset = structure.getEntryOffset(BbanEntryType.bank_code);
+            boolean valid = bankCode.length() == length;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                for (int i = entryStart; valid && i < entryStart + entry.getLength(); i++) {
+                    if (i >= bankOffset && i < bankOffset + length) {
+                        valid = isValidCharacter(entry.getCharacterType(), bankCode.charAt(index++));
+                    }
+                }
+                entryStart += entry.getLength();
+            }
+            if (!valid) {
+                throw new IllegalArgumentException("Bank code [" + bankCode +
+                        "] doesn't match the bank code structure.");
+            }
+        }
+
+        private static boolean isValidCharacter(final BbanStructureEntry.EntryCharacterType type,
+                                                final char ch) {
+            final boolean digit = ch >= '0' && ch <= '9';
+            final boolean letter = ch >= 'A' && ch <= 'Z';
+            switch (type) {
+                case n:
+                    return digit;
+                case a:
+                    return letter;
+                default:
+                    return digit || letter;
+            }
+        }
+    }
+}
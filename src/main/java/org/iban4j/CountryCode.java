@@ -25,751 +25,505 @@ import java.util.Map;
  */
 public enum CountryCode {
 
-    AD("Andorra", "AND"),
+    AD, // Andorra
 
-    AE("United Arab Emirates", "ARE"),
+    AE, // United Arab Emirates
 
-    AF("Afghanistan", "AFG"),
+    AF, // Afghanistan
 
-    AG("Antigua and Barbuda", "ATG"),
+    AG, // Antigua and Barbuda
 
-    AI("Anguilla", "AIA"),
+    AI, // Anguilla
 
-    AL("Albania", "ALB"),
+    AL, // Albania
 
-    AM("Armenia", "ARM"),
+    AM, // Armenia
 
-    AO("Angola", "AGO"),
+    AO, // Angola
 
-    AQ("Antarctica", "ATA"),
+    AQ, // Antarctica
 
-    AR("Argentina", "ARG"),
+    AR, // Argentina
 
-    AS("American Samoa", "ASM"),
+    AS, // American Samoa
 
-    AT("Austria", "AUT"),
+    AT, // Austria
 
-    AU("Australia", "AUS"),
+    AU, // Australia
 
-    AW("Aruba", "ABW"),
+    AW, // Aruba
 
-    AX("\u212Bland Islands", "ALA"),
+    AX, // \u212Bland Islands
 
-    AZ("Azerbaijan", "AZE"),
+    AZ, // Azerbaijan
 
-    BA("Bosnia and Herzegovina", "BIH"),
+    BA, // Bosnia and Herzegovina
 
-    BB("Barbados", "BRB"),
+    BB, // Barbados
 
-    BD("Bangladesh", "BGD"),
+    BD, // Bangladesh
 
-    BE("Belgium", "BEL"),
+    BE, // Belgium
 
+    BF, // Burkina Faso
 
-    BF("Burkina Faso", "BFA"),
+    BG, // Bulgaria
 
+    BH, // Bahrain
 
-    BG("Bulgaria", "BGR"),
+    BI, // Burundi
 
+    BJ, // Benin
 
-    BH("Bahrain", "BHR"),
+    BL, // Saint Barth\u00E9lemy
 
+    BM, // Bermuda
 
-    BI("Burundi", "BDI"),
+    BN, // Brunei Darussalam
 
+    BO, // Plurinational State of Bolivia
 
-    BJ("Benin", "BEN"),
+    BQ, // Bonaire, Sint Eustatius and Saba
 
+    BR, // Brazil
 
-    BL("Saint Barth\u00E9lemy", "BLM"),
+    BS, // Bahamas
 
+    BT, // Bhutan
 
-    BM("Bermuda", "BMU"),
+    BV, // Bouvet Island
 
+    BW, // Botswana
 
-    BN("Brunei Darussalam", "BRN"),
+    BY, // Belarus
 
+    BZ, // Belize
 
-    BO("Plurinational State of Bolivia", "BOL"),
+    CA, // Canada
 
+    CC, // Cocos Islands
 
-    BQ("Bonaire, Sint Eustatius and Saba", "BES"),
+    CD, // The Democratic Republic of the Congo
 
+    CF, // Central African Republic
 
-    BR("Brazil", "BRA"),
+    CG, // Congo
 
+    CH, // Switzerland
 
-    BS("Bahamas", "BHS"),
+    CI, // C\u00F4te d'Ivoire
 
+    CK, // Cook Islands
 
-    BT("Bhutan", "BTN"),
+    CL, // Chile
 
-    BV("Bouvet Island", "BVT"),
+    CM, // Cameroon
 
+    CN, // China
 
-    BW("Botswana", "BWA"),
+    CO, // Colombia
 
+    CR, // Costa Rica
 
-    BY("Belarus", "BLR"),
+    CU, // Cuba
 
+    CV, // Cape Verde
 
-    BZ("Belize", "BLZ"),
+    CW, // Cura\u00E7ao
 
+    CX, // Christmas Island
 
-    CA("Canada", "CAN"),
+    CY, // Cyprus
 
+    CZ, // Czech Republic
 
-    CC("Cocos Islands", "CCK"),
+    DE, // Germany
 
+    DJ, // Djibouti
 
-    CD("The Democratic Republic of the Congo", "COD"),
+    DK, // Denmark
 
+    DM, // Dominica
 
-    CF("Central African Republic", "CAF"),
+    DO, // Dominican Republic
 
+    DZ, // Algeria
 
-    CG("Congo", "COG"),
+    EC, // Ecuador
 
+    EE, // Estonia
 
-    CH("Switzerland", "CHE"),
+    EG, // Egypt
 
+    EH, // Western Sahara
 
-    CI("C\u00F4te d'Ivoire", "CIV"),
+    ER, // Eritrea
 
+    ES, // Spain
 
-    CK("Cook Islands", "COK"),
+    ET, // Ethiopia
 
+    FI, // Finland
 
-    CL("Chile", "CHL"),
+    FJ, // Fiji
 
+    FK, // Falkland Islands
 
-    CM("Cameroon", "CMR"),
+    FM, // Federated States of Micronesia
 
+    FO, // Faroe Islands
 
-    CN("China", "CHN"),
+    FR, // France
 
+    GA, // Gabon
 
-    CO("Colombia", "COL"),
+    GB, // United Kingdom
 
+    GD, // Grenada
 
-    CR("Costa Rica", "CRI"),
+    GE, // Georgia
 
+    GF, // French Guiana
 
-    CU("Cuba", "CUB"),
+    GG, // Guemsey
 
+    GH, // Ghana
 
-    CV("Cape Verde", "CPV"),
+    GI, // Gibraltar
 
+    GL, // Greenland
 
-    CW("Cura\u00E7ao", "CUW"),
+    GM, // Gambia
 
+    GN, // Guinea
 
-    CX("Christmas Island", "CXR"),
+    GP, // Guadeloupe
 
+    GQ, // Equatorial Guinea
 
-    CY("Cyprus", "CYP"),
+    GR, // Greece
 
+    GS, // South Georgia and the South Sandwich Islands
 
-    CZ("Czech Republic", "CZE"),
+    GT, // Guatemala
 
+    GU, // Guam
 
-    DE("Germany", "DEU"),
+    GW, // Guinea-Bissau
 
+    GY, // Guyana
 
-    DJ("Djibouti", "DJI"),
+    HK, // Hong Kong
 
+    HM, // Heard Island and McDonald Islands
 
-    DK("Denmark", "DNK"),
+    HN, // Honduras
 
+    HR, // Croatia
 
-    DM("Dominica", "DMA"),
+    HT, // Haiti
 
+    HU, // Hungary
 
-    DO("Dominican Republic", "DOM"),
+    ID, // Indonesia
 
+    IE, // Ireland
 
-    DZ("Algeria", "DZA"),
+    IL, // Israel
 
+    IM, // Isle of Man
 
-    EC("Ecuador", "ECU"),
+    IN, // India
 
+    IO, // British Indian Ocean Territory
 
-    EE("Estonia", "EST"),
+    IQ, // Iraq
 
+    IR, // Islamic Republic of Iran
 
-    EG("Egypt", "EGY"),
+    IS, // Iceland
 
+    IT, // Italy
 
-    EH("Western Sahara", "ESH"),
+    JE, // Jersey
 
+    JM, // Jamaica
 
-    ER("Eritrea", "ERI"),
+    JO, // Jordan
 
+    JP, // Japan
 
-    ES("Spain", "ESP"),
+    KE, // Kenya
 
+    KG, // Kyrgyzstan
 
-    ET("Ethiopia", "ETH"),
+    KH, // Cambodia
 
-    FI("Finland", "FIN"),
+    KI, // Kiribati
 
+    KM, // Comoros
 
-    FJ("Fiji", "FJI"),
+    KN, // Saint Kitts and Nevis
 
+    KP, // Democratic People's Republic of Korea
 
-    FK("Falkland Islands", "FLK"),
+    KR, // Republic of Korea
 
+    KW, // Kuwait
 
-    FM("Federated States of Micronesia", "FSM"),
+    KY, // Cayman Islands
 
+    KZ, // Kazakhstan
 
-    FO("Faroe Islands", "FRO"),
+    LA, // Lao People's Democratic Republic
 
+    LB, // Lebanon
 
-    FR("France", "FRA"),
+    LC, // Saint Lucia
 
+    LI, // Liechtenstein
 
-    GA("Gabon", "GAB"),
+    LK, // Sri Lanka
 
+    LR, // Liberia
 
-    GB("United Kingdom", "GBR"),
+    LS, // Lesotho
 
+    LT, // Lithuania
 
-    GD("Grenada", "GRD"),
+    LU, // Luxembourg
 
+    LV, // Latvia
 
-    GE("Georgia", "GEO"),
+    LY, // Libya
 
+    MA, // Morocco
 
-    GF("French Guiana", "GUF"),
+    MC, // Monaco
 
+    MD, // Republic of Moldova
 
-    GG("Guemsey", "GGY"),
+    ME, // Montenegro
 
+    MF, // Saint Martin
 
-    GH("Ghana", "GHA"),
+    MG, // Madagascar
 
+    MH, // Marshall Islands
 
-    GI("Gibraltar", "GIB"),
+    MK, // The former Yugoslav Republic of Macedonia
 
+    ML, // Mali
 
-    GL("Greenland", "GRL"),
+    MM, // Myanmar
 
+    MN, // Mongolia
 
-    GM("Gambia", "GMB"),
+    MO, // Macao
 
+    MP, // Northern Mariana Islands
 
-    GN("Guinea", "GIN"),
+    MQ, // Martinique
 
+    MR, // Mauritania
 
-    GP("Guadeloupe", "GLP"),
+    MS, // Montserrat
 
+    MT, // Malta
 
-    GQ("Equatorial Guinea", "GNQ"),
+    MU, // Mauritius
 
+    MV, // Maldives
 
-    GR("Greece", "GRC"),
+    MW, // Malawi
 
+    MX, // Mexico
 
-    GS("South Georgia and the South Sandwich Islands", "SGS"),
+    MY, // Malaysia
 
+    MZ, // Mozambique
 
-    GT("Guatemala", "GTM"),
+    NA, // Namibia
 
+    NC, // New Caledonia
 
-    GU("Guam", "GUM"),
+    NE, // Niger
 
+    NF, // Norfolk Island
 
-    GW("Guinea-Bissau", "GNB"),
+    NG, // Nigeria
 
+    NI, // Nicaragua
 
-    GY("Guyana", "GUY"),
+    NL, // Netherlands
 
+    NO, // Norway
 
-    HK("Hong Kong", "HKG"),
+    NP, // Nepal
 
+    NR, // Nauru
 
-    HM("Heard Island and McDonald Islands", "HMD"),
+    NU, // Niue
 
+    NZ, // New Zealand
 
-    HN("Honduras", "HND"),
+    OM, // Oman
 
+    PA, // Panama
 
-    HR("Croatia", "HRV"),
+    PE, // Peru
 
+    PF, // French Polynesia
 
-    HT("Haiti", "HTI"),
+    PG, // Papua New Guinea
 
+    PH, // Philippines
 
-    HU("Hungary", "HUN"),
+    PK, // Pakistan
 
+    PL, // Poland
 
-    ID("Indonesia", "IDN"),
+    PM, // Saint Pierre and Miquelon
 
+    PN, // Pitcairn
 
-    IE("Ireland", "IRL"),
+    PR, // Puerto Rico
 
+    PS, // Occupied Palestinian Territory
 
-    IL("Israel", "ISR"),
+    PT, // Portugal
 
+    PW, // Palau
 
-    IM("Isle of Man", "IMN"),
+    PY, // Paraguay
 
+    QA, // Qatar
 
-    IN("India", "IND"),
+    RE, // R\u00E9union
 
+    RO, // Romania
 
-    IO("British Indian Ocean Territory", "IOT"),
+    RS, // Serbia
 
+    RU, // Russian Federation
 
-    IQ("Iraq", "IRQ"),
+    RW, // Rwanda
 
+    SA, // Saudi Arabia
 
-    IR("Islamic Republic of Iran", "IRN"),
+    SB, // Solomon Islands
 
+    SC, // Seychelles
 
-    IS("Iceland", "ISL"),
+    SD, // Sudan
 
+    SE, // Sweden
 
-    IT("Italy", "ITA"),
+    SG, // Singapore
 
+    SH, // Saint Helena, Ascension and Tristan da Cunha
 
-    JE("Jersey", "JEY"),
+    SI, // Slovenia
 
+    SJ, // Svalbard and Jan Mayen
 
-    JM("Jamaica", "JAM"),
+    SK, // Slovakia
 
+    SL, // Sierra Leone
 
-    JO("Jordan", "JOR"),
+    SM, // San Marino
 
+    SN, // Senegal
 
-    JP("Japan", "JPN"),
+    SO, // Somalia
 
+    SR, // Suriname
 
-    KE("Kenya", "KEN"),
+    SS, // South Sudan
 
+    ST, // Sao Tome and Principe
 
-    KG("Kyrgyzstan", "KGZ"),
+    SV, // El Salvador
 
+    SX, // Sint Maarten
 
-    KH("Cambodia", "KHM"),
+    SY, // Syrian Arab Republic
 
+    SZ, // Swaziland
 
-    KI("Kiribati", "KIR"),
+    TC, // Turks and Caicos Islands
 
+    TD, // Chad
 
-    KM("Comoros", "COM"),
+    TF, // French Southern Territories
 
+    TG, // Togo
 
-    KN("Saint Kitts and Nevis", "KNA"),
+    TH, // Thailand
 
+    TJ, // Tajikistan
 
-    KP("Democratic People's Republic of Korea", "PRK"),
+    TK, // Tokelau
 
+    TL, // Timor-Leste
 
-    KR("Republic of Korea", "KOR"),
+    TM, // Turkmenistan
 
+    TN, // Tunisia
 
-    KW("Kuwait", "KWT"),
+    TO, // Tonga
 
+    TR, // Turkey
 
-    KY("Cayman Islands", "CYM"),
+    TT, // Trinidad and Tobago
 
+    TV, // Tuvalu
 
-    KZ("Kazakhstan", "KAZ"),
+    TW, // Taiwan, Province of China
 
+    TZ, // United Republic of Tanzania
 
-    LA("Lao People's Democratic Republic", "LAO"),
+    UA, // Ukraine
 
+    UG, // Uganda
 
-    LB("Lebanon", "LBN"),
+    UM, // United States Minor Outlying Islands
 
+    US, // United States
 
-    LC("Saint Lucia", "LCA"),
+    UY, // Uruguay
 
+    UZ, // Uzbekistan
 
-    LI("Liechtenstein", "LIE"),
+    VA, // Holy See
 
+    VC, // Saint Vincent and the Grenadines
 
-    LK("Sri Lanka", "LKA"),
+    VE, // Bolivarian Republic of Venezuela
 
+    VG, // British Virgin Islands
 
-    LR("Liberia", "LBR"),
+    VI, // Virgin Islands, U.S.
 
+    VN, // Viet Nam
 
-    LS("Lesotho", "LSO"),
+    VU, // Vanuatu
 
+    WF, // Wallis and Futuna
 
-    LT("Lithuania", "LTU"),
+    WS, // Samoa
 
+    XK, // Kosovo
 
-    LU("Luxembourg", "LUX"),
+    YE, // Yemen
 
+    YT, // Mayotte
 
-    LV("Latvia", "LVA"),
+    ZA, // South Africa
 
+    ZM, // Zambia
 
-    LY("Libya", "LBY"),
-
-
-    MA("Morocco", "MAR"),
-
-
-    MC("Monaco", "MCO"),
-
-
-    MD("Republic of Moldova", "MDA"),
-
-
-    ME("Montenegro", "MNE"),
-
-
-    MF("Saint Martin", "MAF"),
-
-
-    MG("Madagascar", "MDG"),
-
-
-    MH("Marshall Islands", "MHL"),
-
-
-    MK("The former Yugoslav Republic of Macedonia", "MKD"),
-
-
-    ML("Mali", "MLI"),
-
-    MM("Myanmar", "MMR"),
-
-
-    MN("Mongolia", "MNG"),
-
-
-    MO("Macao", "MAC"),
-
-
-    MP("Northern Mariana Islands", "MNP"),
-
-
-    MQ("Martinique", "MTQ"),
-
-
-    MR("Mauritania", "MRT"),
-
-
-    MS("Montserrat", "MSR"),
-
-
-    MT("Malta", "MLT"),
-
-    MU("Mauritius", "MUS"),
-
-
-    MV("Maldives", "MDV"),
-
-
-    MW("Malawi", "MWI"),
-
-
-    MX("Mexico", "MEX"),
-
-
-    MY("Malaysia", "MYS"),
-
-
-    MZ("Mozambique", "MOZ"),
-
-
-    NA("Namibia", "NAM"),
-
-
-    NC("New Caledonia", "NCL"),
-
-
-    NE("Niger", "NER"),
-
-
-    NF("Norfolk Island", "NFK"),
-
-
-    NG("Nigeria", "NGA"),
-
-
-    NI("Nicaragua", "NIC"),
-
-
-    NL("Netherlands", "NLD"),
-
-
-    NO("Norway", "NOR"),
-
-
-    NP("Nepal", "NPL"),
-
-
-    NR("Nauru", "NRU"),
-
-
-    NU("Niue", "NIU"),
-
-
-    NZ("New Zealand", "NZL"),
-
-
-    OM("Oman", "OMN"),
-
-
-    PA("Panama", "PAN"),
-
-
-    PE("Peru", "PER"),
-
-
-    PF("French Polynesia", "PYF"),
-
-
-    PG("Papua New Guinea", "PNG"),
-
-
-    PH("Philippines", "PHL"),
-
-
-    PK("Pakistan", "PAK"),
-
-
-    PL("Poland", "POL"),
-
-
-    PM("Saint Pierre and Miquelon", "SPM"),
-
-
-    PN("Pitcairn", "PCN"),
-
-
-    PR("Puerto Rico", "PRI"),
-
-
-    PS("Occupied Palestinian Territory", "PSE"),
-
-
-    PT("Portugal", "PRT"),
-
-
-    PW("Palau", "PLW"),
-
-
-    PY("Paraguay", "PRY"),
-
-
-    QA("Qatar", "QAT"),
-
-
-    RE("R\u00E9union", "REU"),
-
-
-    RO("Romania", "ROU"),
-
-
-    RS("Serbia", "SRB"),
-
-
-    RU("Russian Federation", "RUS"),
-
-
-    RW("Rwanda", "RWA"),
-
-
-    SA("Saudi Arabia", "SAU"),
-
-
-    SB("Solomon Islands", "SLB"),
-
-
-    SC("Seychelles", "SYC"),
-
-
-    SD("Sudan", "SDN"),
-
-
-    SE("Sweden", "SWE"),
-
-    SG("Singapore", "SGP"),
-
-
-    SH("Saint Helena, Ascension and Tristan da Cunha", "SHN"),
-
-
-    SI("Slovenia", "SVN"),
-
-
-    SJ("Svalbard and Jan Mayen", "SJM"),
-
-
-    SK("Slovakia", "SVK"),
-
-
-    SL("Sierra Leone", "SLE"),
-
-
-    SM("San Marino", "SMR"),
-
-
-    SN("Senegal", "SEN"),
-
-
-    SO("Somalia", "SOM"),
-
-
-    SR("Suriname", "SUR"),
-
-
-    SS("South Sudan", "SSD"),
-
-
-    ST("Sao Tome and Principe", "STP"),
-
-
-    SV("El Salvador", "SLV"),
-
-
-    SX("Sint Maarten", "SXM"),
-
-
-    SY("Syrian Arab Republic", "SYR"),
-
-
-    SZ("Swaziland", "SWZ"),
-
-
-    TC("Turks and Caicos Islands", "TCA"),
-
-
-    TD("Chad", "TCD"),
-
-
-    TF("French Southern Territories", "ATF"),
-
-
-    TG("Togo", "TGO"),
-
-
-    TH("Thailand", "THA"),
-
-
-    TJ("Tajikistan", "TJK"),
-
-
-    TK("Tokelau", "TKL"),
-
-
-    TL("Timor-Leste", "TLS"),
-
-
-    TM("Turkmenistan", "TKM"),
-
-
-    TN("Tunisia", "TUN"),
-
-
-    TO("Tonga", "TON"),
-
-
-    TR("Turkey", "TUR"),
-
-
-    TT("Trinidad and Tobago", "TTO"),
-
-
-    TV("Tuvalu", "TUV"),
-
-
-    TW("Taiwan, Province of China", "TWN"),
-
-
-    TZ("United Republic of Tanzania", "TZA"),
-
-
-    UA("Ukraine", "UKR"),
-
-
-    UG("Uganda", "UGA"),
-
-
-    UM("United States Minor Outlying Islands", "UMI"),
-
-
-    US("United States", "USA"),
-
-
-    UY("Uruguay", "URY"),
-
-
-    UZ("Uzbekistan", "UZB"),
-
-
-    VA("Holy See", "VAT"),
-
-
-    VC("Saint Vincent and the Grenadines", "VCT"),
-
-
-    VE("Bolivarian Republic of Venezuela", "VEN"),
-
-
-    VG("British Virgin Islands", "VGB"),
-
-
-    VI("Virgin Islands, U.S.", "VIR"),
-
-
-    VN("Viet Nam", "VNM"),
-
-
-    VU("Vanuatu", "VUT"),
-
-    WF("Wallis and Futuna", "WLF"),
-
-    WS("Samoa", "WSM"),
-
-    XK("Kosovo", "UNK"),
-
-    YE("Yemen", "YEM"),
-
-    YT("Mayotte", "MYT"),
-
-    ZA("South Africa", "ZAF"),
-
-    ZM("Zambia", "ZMB"),
-
-    ZW("Zimbabwe", "ZWE");
-
-
-    /**
-     * Country alpha3 code map, maps alpha3 codes to country codes
-     * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3">ISO 3166-3 alpha-3</a> code.
-     */
-    private static final Map<String, CountryCode> alpha3Map = new HashMap<String, CountryCode>();
-
-    static {
-        for (final CountryCode cc : values()) {
-            alpha3Map.put(cc.getAlpha3(), cc);
-        }
-    }
-
-    /**
-     * Country name
-     */
-    private final String name;
-
-    /**
-     * Country alpha3 code
-     * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3">ISO 3166-3 alpha-3</a> code.
-     */
-    private final String alpha3;
-
-    private CountryCode(final String name, final String alpha3) {
-        this.name = name;
-        this.alpha3 = alpha3;
-    }
+    ZW; // Zimbabwe
 
 
     /**
@@ -778,7 +532,7 @@ public enum CountryCode {
      * @return The country name.
      */
     public String getName() {
-        return name;
+        return Names.NAMES[ordinal()];
     }
 
 
@@ -798,7 +552,7 @@ public enum CountryCode {
      * @return The <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3">ISO 3166-1 alpha-3</a> code.
      */
     public String getAlpha3() {
-        return alpha3;
+        return Names.ALPHA3_CODES[ordinal()];
     }
 
     /**
@@ -835,11 +589,10 @@ public enum CountryCode {
      * @return A CountryCode instance, or null if not found.
      */
     private static CountryCode getByAlpha2Code(final String code) {
-        try {
-            return Enum.valueOf(CountryCode.class, code);
-        } catch (IllegalArgumentException e) {
+        if (code.length() != 2) {
             return null;
         }
+        return getByAlpha2Code(code.charAt(0), code.charAt(1));
     }
 
     /**
@@ -850,6 +603,331 @@ public enum CountryCode {
      * @return A CountryCode instance, or null if not found.
      */
     private static CountryCode getByAlpha3Code(final String code) {
-        return alpha3Map.get(code);
+        return Names.ALPHA3_MAP.get(code);
+    }
+
+    /**
+     * Get a CountryCode that corresponds to the given upper case ISO 3166-1
+     * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-2">alpha-2</a> code
+     * characters, without creating a String.
+     *
+     * @param first the first character of the code.
+     * @param second the second character of the code.
+     * @return A CountryCode instance, or null if not found.
+     */
+    static CountryCode getByAlpha2Code(final char first, final char second) {
+        if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+            return null;
+        }
+        return Alpha2Table.COUNTRY_CODES[(first - 'A') * 26 + second - 'A'];
+    }
+
+    /**
+     * Country codes indexed by their alpha-2 letters.
+     */
+    private static final class Alpha2Table {
+
+        private static final CountryCode[] COUNTRY_CODES = new CountryCode[26 * 26];
+
+        static {
+            for (final CountryCode cc : values()) {
+                final String alpha2 = cc.getAlpha2();
+                COUNTRY_CODES[(alpha2.charAt(0) - 'A') * 26 + alpha2.charAt(1) - 'A'] = cc;
+            }
+        }
+    }
+
+    /**
+     * Country names and alpha-3 codes in declaration order, loaded on first
+     * use so that iban validation doesn't pay for them.
+     */
+    private static final class Names {
+
+        private static final String[] NAMES = {
+                "Andorra",
+                "United Arab Emirates",
+                "Afghanistan",
+                "Antigua and Barbuda",
+                "Anguilla",
+                "Albania",
+                "Armenia",
+                "Angola",
+                "Antarctica",
+                "Argentina",
+                "American Samoa",
+                "Austria",
+                "Australia",
+                "Aruba",
+                "\u212Bland Islands",
+                "Azerbaijan",
+                "Bosnia and Herzegovina",
+                "Barbados",
+                "Bangladesh",
+                "Belgium",
+                "Burkina Faso",
+                "Bulgaria",
+                "Bahrain",
+                "Burundi",
+                "Benin",
+                "Saint Barth\u00E9lemy",
+                "Bermuda",
+                "Brunei Darussalam",
+                "Plurinational State of Bolivia",
+                "Bonaire, Sint Eustatius and Saba",
+                "Brazil",
+                "Bahamas",
+                "Bhutan",
+                "Bouvet Island",
+                "Botswana",
+                "Belarus",
+                "Belize",
+                "Canada",
+                "Cocos Islands",
+                "The Democratic Republic of the Congo",
+                "Central African Republic",
+                "Congo",
+                "Switzerland",
+                "C\u00F4te d'Ivoire",
+                "Cook Islands",
+                "Chile",
+                "Cameroon",
+                "China",
+                "Colombia",
+                "Costa Rica",
+                "Cuba",
+                "Cape Verde",
+                "Cura\u00E7ao",
+                "Christmas Island",
+                "Cyprus",
+                "Czech Republic",
+                "Germany",
+                "Djibouti",
+                "Denmark",
+                "Dominica",
+                "Dominican Republic",
+                "Algeria",
+                "Ecuador",
+                "Estonia",
+                "Egypt",
+                "Western Sahara",
+                "Eritrea",
+                "Spain",
+                "Ethiopia",
+                "Finland",
+                "Fiji",
+                "Falkland Islands",
+                "Federated States of Micronesia",
+                "Faroe Islands",
+                "France",
+                "Gabon",
+                "United Kingdom",
+                "Grenada",
+                "Georgia",
+                "French Guiana",
+                "Guemsey",
+                "Ghana",
+                "Gibraltar",
+                "Greenland",
+                "Gambia",
+                "Guinea",
+                "Guadeloupe",
+                "Equatorial Guinea",
+                "Greece",
+                "South Georgia and the South Sandwich Islands",
+                "Guatemala",
+                "Guam",
+                "Guinea-Bissau",
+                "Guyana",
+                "Hong Kong",
+                "Heard Island and McDonald Islands",
+                "Honduras",
+                "Croatia",
+                "Haiti",
+                "Hungary",
+                "Indonesia",
+                "Ireland",
+                "Israel",
+                "Isle of Man",
+                "India",
+                "British Indian Ocean Territory",
+                "Iraq",
+                "Islamic Republic of Iran",
+                "Iceland",
+                "Italy",
+                "Jersey",
+                "Jamaica",
+                "Jordan",
+                "Japan",
+                "Kenya",
+                "Kyrgyzstan",
+                "Cambodia",
+                "Kiribati",
+                "Comoros",
+                "Saint Kitts and Nevis",
+                "Democratic People's Republic of Korea",
+                "Republic of Korea",
+                "Kuwait",
+                "Cayman Islands",
+                "Kazakhstan",
+                "Lao People's Democratic Republic",
+                "Lebanon",
+                "Saint Lucia",
+                "Liechtenstein",
+                "Sri Lanka",
+                "Liberia",
+                "Lesotho",
+                "Lithuania",
+                "Luxembourg",
+                "Latvia",
+                "Libya",
+                "Morocco",
+                "Monaco",
+                "Republic of Moldova",
+                "Montenegro",
+                "Saint Martin",
+                "Madagascar",
+                "Marshall Islands",
+                "The former Yugoslav Republic of Macedonia",
+                "Mali",
+                "Myanmar",
+                "Mongolia",
+                "Macao",
+                "Northern Mariana Islands",
+                "Martinique",
+                "Mauritania",
+                "Montserrat",
+                "Malta",
+                "Mauritius",
+                "Maldives",
+                "Malawi",
+                "Mexico",
+                "Malaysia",
+                "Mozambique",
+                "Namibia",
+                "New Caledonia",
+                "Niger",
+                "Norfolk Island",
+                "Nigeria",
+                "Nicaragua",
+                "Netherlands",
+                "Norway",
+                "Nepal",
+                "Nauru",
+                "Niue",
+                "New Zealand",
+                "Oman",
+                "Panama",
+                "Peru",
+                "French Polynesia",
+                "Papua New Guinea",
+                "Philippines",
+                "Pakistan",
+                "Poland",
+                "Saint Pierre and Miquelon",
+                "Pitcairn",
+                "Puerto Rico",
+                "Occupied Palestinian Territory",
+                "Portugal",
+                "Palau",
+                "Paraguay",
+                "Qatar",
+                "R\u00E9union",
+                "Romania",
+                "Serbia",
+                "Russian Federation",
+                "Rwanda",
+                "Saudi Arabia",
+                "Solomon Islands",
+                "Seychelles",
+                "Sudan",
+                "Sweden",
+                "Singapore",
+                "Saint Helena, Ascension and Tristan da Cunha",
+                "Slovenia",
+                "Svalbard and Jan Mayen",
+                "Slovakia",
+                "Sierra Leone",
+                "San Marino",
+                "Senegal",
+                "Somalia",
+                "Suriname",
+                "South Sudan",
+                "Sao Tome and Principe",
+                "El Salvador",
+                "Sint Maarten",
+                "Syrian Arab Republic",
+                "Swaziland",
+                "Turks and Caicos Islands",
+                "Chad",
+                "French Southern Territories",
+                "Togo",
+                "Thailand",
+                "Tajikistan",
+                "Tokelau",
+                "Timor-Leste",
+                "Turkmenistan",
+                "Tunisia",
+                "Tonga",
+                "Turkey",
+                "Trinidad and Tobago",
+                "Tuvalu",
+                "Taiwan, Province of China",
+                "United Republic of Tanzania",
+                "Ukraine",
+                "Uganda",
+                "United States Minor Outlying Islands",
+                "United States",
+                "Uruguay",
+                "Uzbekistan",
+                "Holy See",
+                "Saint Vincent and the Grenadines",
+                "Bolivarian Republic of Venezuela",
+                "British Virgin Islands",
+                "Virgin Islands, U.S.",
+                "Viet Nam",
+                "Vanuatu",
+                "Wallis and Futuna",
+                "Samoa",
+                "Kosovo",
+                "Yemen",
+                "Mayotte",
+                "South Africa",
+                "Zambia",
+                "Zimbabwe"
+        };
+
+        // 3 characters per country
+        private static final String ALPHA3 =
+                "ANDAREAFGATGAIAALBARMAGOATAARGASMAUTAUSABWALAAZEBIHBRBBGDBEL" +
+                "BFABGRBHRBDIBENBLMBMUBRNBOLBESBRABHSBTNBVTBWABLRBLZCANCCKCOD" +
+                "CAFCOGCHECIVCOKCHLCMRCHNCOLCRICUBCPVCUWCXRCYPCZEDEUDJIDNKDMA" +
+                "DOMDZAECUESTEGYESHERIESPETHFINFJIFLKFSMFROFRAGABGBRGRDGEOGUF" +
+                "GGYGHAGIBGRLGMBGINGLPGNQGRCSGSGTMGUMGNBGUYHKGHMDHNDHRVHTIHUN" +
+                "IDNIRLISRIMNINDIOTIRQIRNISLITAJEYJAMJORJPNKENKGZKHMKIRCOMKNA" +
+                "PRKKORKWTCYMKAZLAOLBNLCALIELKALBRLSOLTULUXLVALBYMARMCOMDAMNE" +
+                "MAFMDGMHLMKDMLIMMRMNGMACMNPMTQMRTMSRMLTMUSMDVMWIMEXMYSMOZNAM" +
+                "NCLNERNFKNGANICNLDNORNPLNRUNIUNZLOMNPANPERPYFPNGPHLPAKPOLSPM" +
+                "PCNPRIPSEPRTPLWPRYQATREUROUSRBRUSRWASAUSLBSYCSDNSWESGPSHNSVN" +
+                "SJMSVKSLESMRSENSOMSURSSDSTPSLVSXMSYRSWZTCATCDATFTGOTHATJKTKL" +
+                "TLSTKMTUNTONTURTTOTUVTWNTZAUKRUGAUMIUSAURYUZBVATVCTVENVGBVIR" +
+                "VNMVUTWLFWSMUNKYEMMYTZAFZMBZWE";
+
+        private static final String[] ALPHA3_CODES = new String[NAMES.length];
+
+        /**
+         * Country alpha3 code map, maps alpha3 codes to country codes
+         * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3">ISO 3166-3 alpha-3</a> code.
+         */
+        private static final Map<String, CountryCode> ALPHA3_MAP =
+                new HashMap<String, CountryCode>(NAMES.length * 2);
+
+        static {
+            for (final CountryCode cc : values()) {
+                final int ordinal = cc.ordinal();
+                final String alpha3 = ALPHA3.substring(ordinal * 3, ordinal * 3 + 3);
+                ALPHA3_CODES[ordinal] = alpha3;
+                ALPHA3_MAP.put(alpha3, cc);
+            }
+        }
     }
-}
\ No newline at end of file
+}
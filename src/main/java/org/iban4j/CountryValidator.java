@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanStructure;
+
+/**
+ * Service provider interface for country specific iban checks.
+ * <p/>
+ * Implementations are discovered like java.util.ServiceLoader providers:
+ * list the implementation class names in a
+ * <code>META-INF/services/org.iban4j.CountryValidator</code> resource. Each
+ * implementation needs a public no-arg constructor and must be thread safe.
+ * <p/>
+ * Validators run after the iban passed the structure and check digit
+ * validation, so entries can be sliced directly with the offsets of the
+ * bban structure.
+ */
+public interface CountryValidator {
+
+    /**
+     * Returns the countries the validator is called for.
+     *
+     * @return country codes
+     */
+    CountryCode[] getCountryCodes();
+
+    /**
+     * Validates an iban of one of the validator's countries.
+     *
+     * @param iban the iban, in its original form.
+     * @param structure the bban structure of the iban's country, see
+     *                  {@link BbanStructure#getEntryOffset(org.iban4j.bban.BbanEntryType)}.
+     *                  Entry offsets are relative to the bban which starts at index 4.
+     * @throws Iban4jException if the iban is rejected. Other runtime exceptions
+     *         are reported as {@link IbanFormatException.IbanFormatViolation#UNKNOWN}.
+     */
+    void validate(CharSequence iban, BbanStructure structure) throws Iban4jException;
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Discovered {@link CountryValidator}s indexed by country code ordinal.
+ * <p/>
+ * Providers are looked up once, on the first validation, with the context
+ * class loader of the validating thread.
+ */
+final class CountryValidators {
+
+    static final String SERVICE_RESOURCE = "META-INF/services/" + CountryValidator.class.getName();
+
+    // validators of every country by ordinal, null for countries without validators
+    private static volatile CountryValidator[][] validators;
+
+    private CountryValidators() {
+    }
+
+    /**
+     * Returns the validators of all countries.
+     *
+     * @return validators indexed by country code ordinal, null entries for
+     *         countries without validators.
+     * @throws IllegalStateException if a provider can't be loaded.
+     */
+    static CountryValidator[][] get() {
+        CountryValidator[][] current = validators;
+        if (current == null) {
+            synchronized (CountryValidators.class) {
+                current = validators;
+                if (current == null) {
+                    current = index(discover(classLoader()));
+                    validators = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replaces the validators of all countries, for tests plugging in their
+     * own validators without a provider configuration on the class path.
+     *
+     * @param replacement validators indexed by country code ordinal, or null
+     *                    to discover the providers again on the next validation.
+     */
+    static void set(final CountryValidator[][] replacement) {
+        synchronized (CountryValidators.class) {
+            validators = replacement;
+        }
+    }
+
+    static CountryValidator[][] index(final List<CountryValidator> providers) {
+        final CountryValidator[][] index = new CountryValidator[CountryCode.values().length][];
+        for (final CountryValidator validator : providers) {
+            for (final CountryCode countryCode : validator.getCountryCodes()) {
+                final CountryValidator[] existing = index[countryCode.ordinal()];
+                final CountryValidator[] updated;
+                if (existing == null) {
+                    updated = new CountryValidator[1];
+                } else {
+                    updated = new CountryValidator[existing.length + 1];
+                    System.arraycopy(existing, 0, updated, 0, existing.length);
+                }
+                updated[updated.length - 1] = validator;
+                index[countryCode.ordinal()] = updated;
+            }
+        }
+        return index;
+    }
+
+    static List<CountryValidator> discover(final ClassLoader loader) {
+        final Set<String> classNames = new LinkedHashSet<String>();
+        try {
+            final Enumeration<URL> resources = loader.getResources(SERVICE_RESOURCE);
+            while (resources.hasMoreElements()) {
+                readClassNames(resources.nextElement(), classNames);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read " + SERVICE_RESOURCE, e);
+        }
+
+        final List<CountryValidator> providers = new ArrayList<CountryValidator>();
+        for (final String className : classNames) {
+            try {
+                final Class<?> providerClass = Class.forName(className, true, loader);
+                providers.add(providerClass.asSubclass(CountryValidator.class).newInstance());
+            } catch (Exception e) {
+                throw new IllegalStateException("Can't load " +
+                        CountryValidator.class.getName() + " provider " + className, e);
+            }
+        }
+        return providers;
+    }
+
+    private static void readClassNames(final URL resource, final Set<String> classNames)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.openStream(), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int comment = line.indexOf('#');
+                final String className = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (className.length() != 0) {
+                    classNames.add(className);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static ClassLoader classLoader() {
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        return contextLoader != null ? contextLoader : CountryValidator.class.getClassLoader();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+/**
+ * Validator of the built in bban structures, implemented by the BbanValidators
+ * class the maven build generates. Builds which compile only the sources in
+ * src/main/java don't have it and validate against the structures instead.
+ *
+ * @see IbanUtil
+ */
+interface GeneratedBbanValidator {
+
+    /**
+     * @param ordinal CountryCode ordinal
+     * @param iban CharSequence
+     * @return true if the bban matches the built in structure of the country.
+     */
+    boolean accepts(int ordinal, CharSequence iban);
+}
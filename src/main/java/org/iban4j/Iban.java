@@ -18,6 +18,9 @@ package org.iban4j;
 import org.iban4j.bban.BbanStructure;
 import org.iban4j.bban.BbanStructureEntry;
 
+import java.io.IOException;
+import java.nio.CharBuffer;
+
 import static org.iban4j.IbanFormatException.IbanFormatViolation.*;
 
 
@@ -25,20 +28,36 @@ import static org.iban4j.IbanFormatException.IbanFormatViolation.*;
  * International Bank Account Number
  *
  * <a href="http://en.wikipedia.org/wiki/ISO_13616">ISO_13616</a>.
+ * <p/>
+ * Ibans are ordered by country code, bank code, the rest of the bban and
+ * finally the check digit. The bank code position is taken from the current
+ * bban structures, the same ones {@link IbanSorter} uses.
  */
-public final class Iban {
+public final class Iban implements Comparable<Iban> {
 
     static final String DEFAULT_CHECK_DIGIT = "00";
 
+    /**
+     * The number of characters per group of {@link #toFormattedString()}.
+     */
+    public static final int DEFAULT_GROUP_SIZE = 4;
+
+    private static final char DEFAULT_SEPARATOR = ' ';
+
     // Cache string value of the iban
     private final String value;
 
+    // Leading sort key under sortLayouts, computed on the first comparison
+    // and written under the iban's lock, see IbanKeys
+    private long sortKey;
+    private volatile int[] sortLayouts;
+
     /**
      * Creates iban instance.
      *
-     * @param value String
+     * @param value String, already validated.
      */
-    private Iban(final String value) {
+    Iban(final String value) {
         this.value = value;
     }
 
@@ -140,7 +159,7 @@ public final class Iban {
      * @throws IbanFormatException if the String doesn't contain parsable Iban
      *         InvalidCheckDigitException if Iban has invalid check digit
      *         UnsupportedCountryException if Iban's Country is not supported.
-     *
+     * @see IbanCache#valueOf(String)
      */
     public static Iban valueOf(final String iban) throws IbanFormatException,
             InvalidCheckDigitException, UnsupportedCountryException {
@@ -148,6 +167,53 @@ public final class Iban {
         return new Iban(iban);
     }
 
+    /**
+     * Returns an Iban object for user input, normalized on the fly: an
+     * "IBAN" prefix, white space including non-breaking spaces and hyphens
+     * are skipped and ascii letters are upper cased. For example
+     * "iban: de89 3704-0044 0532 0130 00" is parsed as DE89370400440532013000.
+     *
+     * @param input the user input.
+     * @return an Iban object holding the normalized value.
+     * @throws IbanFormatException if the normalized input isn't a parsable Iban
+     *         InvalidCheckDigitException if Iban has invalid check digit
+     *         UnsupportedCountryException if Iban's Country is not supported.
+     */
+    public static Iban parse(final CharSequence input) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        if (input == null) {
+            return valueOf(null);
+        }
+        final int length = input.length();
+        int index = IbanUtil.skipPrefix(input);
+        if (index == 0 && isNormalized(input)) {
+            // the final value is the only allocation, none for a String
+            final String value = input.toString();
+            IbanUtil.validate(value);
+            return new Iban(value);
+        }
+        final char[] normalized = new char[length - index];
+        int normalizedLength = 0;
+        for (; index < length; index++) {
+            final char ch = input.charAt(index);
+            if (!IbanUtil.isSeparator(ch)) {
+                normalized[normalizedLength++] = ch >= 'a' && ch <= 'z' ? (char) (ch - ('a' - 'A')) : ch;
+            }
+        }
+        IbanUtil.validate(CharBuffer.wrap(normalized, 0, normalizedLength));
+        return new Iban(new String(normalized, 0, normalizedLength));
+    }
+
+    private static boolean isNormalized(final CharSequence input) {
+        for (int i = 0; i < input.length(); i++) {
+            final char ch = input.charAt(i);
+            if (IbanUtil.isSeparator(ch) || (ch >= 'a' && ch <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return value;
@@ -159,14 +225,130 @@ public final class Iban {
      * @return A string representing formatted Iban for printing.
      */
     public String toFormattedString() {
-        final StringBuilder ibanBuffer = new StringBuilder(value);
-        final int length = ibanBuffer.length();
+        final char[] formatted = new char[getFormattedLength(DEFAULT_GROUP_SIZE)];
+        formatTo(formatted, 0);
+        return new String(formatted);
+    }
+
+    /**
+     * Returns the length of the iban formatted in groups.
+     *
+     * @param groupSize number of characters per group
+     * @return length including the separators
+     */
+    public int getFormattedLength(final int groupSize) {
+        validateGroupSize(groupSize);
+        return value.length() + (value.length() - 1) / groupSize;
+    }
+
+    /**
+     * Appends the formatted iban, see {@link #toFormattedString()}.
+     *
+     * @param out the destination
+     * @throws IOException if appending fails.
+     */
+    public void formatTo(final Appendable out) throws IOException {
+        formatTo(out, DEFAULT_GROUP_SIZE, DEFAULT_SEPARATOR);
+    }
+
+    /**
+     * Appends the iban in groups of characters.
+     *
+     * @param out the destination
+     * @param groupSize number of characters per group
+     * @param separator character between the groups
+     * @throws IOException if appending fails.
+     */
+    public void formatTo(final Appendable out, final int groupSize, final char separator)
+            throws IOException {
+        validateGroupSize(groupSize);
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (i != 0 && i % groupSize == 0) {
+                out.append(separator);
+            }
+            out.append(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the formatted iban into a buffer, see {@link #toFormattedString()}.
+     *
+     * @param buffer the destination, with room for
+     *               {@link #getFormattedLength(int)} characters from the offset.
+     * @param offset index of the first character
+     * @return number of written characters
+     */
+    public int formatTo(final char[] buffer, final int offset) {
+        return formatTo(buffer, offset, DEFAULT_GROUP_SIZE, DEFAULT_SEPARATOR);
+    }
+
+    /**
+     * Writes the iban in groups of characters into a buffer.
+     *
+     * @param buffer the destination, with room for
+     *               {@link #getFormattedLength(int)} characters from the offset.
+     * @param offset index of the first character
+     * @param groupSize number of characters per group
+     * @param separator character between the groups
+     * @return number of written characters
+     */
+    public int formatTo(final char[] buffer, final int offset, final int groupSize,
+                        final char separator) {
+        validateGroupSize(groupSize);
+        final int length = value.length();
+        int index = offset;
+        for (int from = 0; from < length; from += groupSize) {
+            if (from != 0) {
+                buffer[index++] = separator;
+            }
+            final int to = Math.min(from + groupSize, length);
+            value.getChars(from, to, buffer, index);
+            index += to - from;
+        }
+        return index - offset;
+    }
 
-        for (int i = 0; i < length / 4; i++) {
-            ibanBuffer.insert((i + 1) * 4 + i, ' ');
+    /**
+     * Compares ibans by country code, bank code, the rest of the bban and
+     * the check digit. Characters are compared by their check digit value,
+     * ibans which differ only in letter case are ordered by their string value.
+     *
+     * @param other the iban to be compared.
+     * @return a negative integer, zero, or a positive integer as this iban
+     *         is less than, equal to, or greater than the specified iban.
+     */
+    public int compareTo(final Iban other) {
+        if (this == other) {
+            return 0;
+        }
+        final int[] layouts = IbanKeys.layouts();
+        final long key = sortKey(layouts);
+        final long otherKey = other.sortKey(layouts);
+        if (key != otherKey) {
+            return key < otherKey ? -1 : 1;
         }
+        // equal keys imply the same country and thus the same layout
+        return IbanKeys.compare(value, other.value, IbanKeys.layoutOf(layouts, value),
+                IbanKeys.CHARS_PER_KEY);
+    }
 
-        return ibanBuffer.toString().trim();
+    /**
+     * Returns the leading sort key of the iban under the layouts, computed
+     * again if the registry was replaced since it was computed. Comparisons
+     * running concurrently with a registry swap may see the key of either
+     * registry.
+     */
+    private long sortKey(final int[] layouts) {
+        if (sortLayouts != layouts) {
+            synchronized (this) {
+                if (sortLayouts != layouts) {
+                    sortKey = IbanKeys.sortKey(value, IbanKeys.layoutOf(layouts, value), 0);
+                    sortLayouts = layouts;
+                }
+            }
+        }
+        return sortKey;
     }
 
     @Override
@@ -182,11 +364,24 @@ public final class Iban {
         return value.hashCode();
     }
 
+    private static void validateGroupSize(final int groupSize) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize must be positive");
+        }
+    }
+
     /**
      * Iban Builder Class
+     * <p/>
+     * A builder can be {@link #reset()} and reused. The iban is assembled in a
+     * character buffer kept by the builder, so building a valid iban only
+     * allocates the resulting iban. Builders are not thread safe.
      */
     public final static class Builder {
 
+        private static final int BBAN_INDEX = 4;
+        private static final int MOD = 97;
+
         private CountryCode countryCode;
         private String bankCode;
         private String branchCode;
@@ -196,12 +391,33 @@ public final class Iban {
         private String ownerAccountType;
         private String identificationNumber;
 
+        // iban assembly buffer, grown to the longest iban built so far
+        private char[] buffer = new char[0];
+        private CharBuffer bufferView;
+
         /**
          * Creates an Iban Builder instance.
          */
         public Builder() {
         }
 
+        /**
+         * Clears all values, keeping the buffers for the next iban.
+         *
+         * @return builder Builder
+         */
+        public Builder reset() {
+            countryCode = null;
+            bankCode = null;
+            branchCode = null;
+            nationalCheckDigit = null;
+            accountType = null;
+            accountNumber = null;
+            ownerAccountType = null;
+            identificationNumber = null;
+            return this;
+        }
+
         /**
          * Sets iban's country code.
          *
@@ -304,6 +520,18 @@ public final class Iban {
             // null checks
             require(countryCode, bankCode, accountNumber);
 
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure == null) {
+                throw new UnsupportedCountryException(countryCode.toString(),
+                        "Country code is not supported.");
+            }
+            final CharSequence iban = assemble(structure);
+            if (iban != null) {
+                IbanUtil.validateAssembled(iban, countryCode, structure);
+                return new Iban(iban.toString());
+            }
+
+            // values don't match the structure, validation reports the violation
             // iban is formatted with default check digit.
             final String formattedIban = formatIban();
 
@@ -317,6 +545,94 @@ public final class Iban {
             return new Iban(ibanValue);
         }
 
+        /**
+         * Writes country code, bban and check digit into the buffer, checking
+         * every value against its structure entry and computing the check
+         * digit in the same pass.
+         *
+         * @return a view of the iban in the buffer, null if a value doesn't
+         *         match its entry.
+         */
+        private CharSequence assemble(final BbanStructure structure) {
+            final int length = BBAN_INDEX + structure.getBbanLength();
+            if (buffer.length < length) {
+                buffer = new char[length];
+                bufferView = CharBuffer.wrap(buffer);
+            }
+
+            int index = BBAN_INDEX;
+            int remainder = 0;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                final String value = entryValue(entry);
+                if (value == null || value.length() != entry.getLength()) {
+                    return null;
+                }
+                for (int i = 0; i < value.length(); i++) {
+                    final char ch = value.charAt(i);
+                    final int digit = characterValue(entry.getCharacterType(), ch);
+                    if (digit < 0) {
+                        return null;
+                    }
+                    buffer[index++] = ch;
+                    remainder = (remainder * (digit < 10 ? 10 : 100) + digit) % MOD;
+                }
+            }
+
+            // country code and check digit 00 follow the bban
+            final String alpha2 = countryCode.getAlpha2();
+            for (int i = 0; i < alpha2.length(); i++) {
+                final int digit = alpha2.charAt(i) - 'A' + 10;
+                remainder = (remainder * 100 + digit) % MOD;
+                buffer[i] = alpha2.charAt(i);
+            }
+            final int checkDigit = 98 - remainder * 100 % MOD;
+            buffer[2] = (char) ('0' + checkDigit / 10);
+            buffer[3] = (char) ('0' + checkDigit % 10);
+
+            bufferView.clear();
+            bufferView.limit(length);
+            return bufferView;
+        }
+
+        /**
+         * Returns the mod 97 value of an ascii character of the type, -1 if
+         * the character is not of the type.
+         */
+        private static int characterValue(final BbanStructureEntry.EntryCharacterType type,
+                                          final char ch) {
+            if (ch >= '0' && ch <= '9') {
+                return type == BbanStructureEntry.EntryCharacterType.a ? -1 : ch - '0';
+            }
+            if (ch >= 'A' && ch <= 'Z') {
+                return type == BbanStructureEntry.EntryCharacterType.n ? -1 : ch - 'A' + 10;
+            }
+            if (ch >= 'a' && ch <= 'z') {
+                return type == BbanStructureEntry.EntryCharacterType.c ? ch - 'a' + 10 : -1;
+            }
+            return -1;
+        }
+
+        private String entryValue(final BbanStructureEntry entry) {
+            switch (entry.getEntryType()) {
+                case bank_code:
+                    return bankCode;
+                case branch_code:
+                    return branchCode;
+                case account_number:
+                    return accountNumber;
+                case national_check_digit:
+                    return nationalCheckDigit;
+                case account_type:
+                    return accountType;
+                case owner_account_number:
+                    return ownerAccountType;
+                case identification_number:
+                    return identificationNumber;
+                default:
+                    return null;
+            }
+        }
+
         /**
          * Returns formatted bban string.
          */
@@ -330,29 +646,7 @@ public final class Iban {
             }
 
             for(final BbanStructureEntry entry : structure.getEntries()) {
-                switch (entry.getEntryType()) {
-                    case bank_code:
-                        sb.append(bankCode);
-                        break;
-                    case branch_code:
-                        sb.append(branchCode);
-                        break;
-                    case account_number:
-                        sb.append(accountNumber);
-                        break;
-                    case national_check_digit:
-                        sb.append(nationalCheckDigit);
-                        break;
-                    case account_type:
-                        sb.append(accountType);
-                        break;
-                    case owner_account_number:
-                        sb.append(ownerAccountType);
-                        break;
-                    case identification_number:
-                        sb.append(identificationNumber);
-                        break;
-                }
+                sb.append(entryValue(entry));
             }
             return sb.toString();
         }
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.support.Assert;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Matcher of blocked ibans and blocked institutions.
+ * <p/>
+ * Entries are either complete ibans or bank prefixes, a country code
+ * followed by a bank code ("DE37040044", "GBNWBK"), which block every iban
+ * of the institution. Ibans are matched in the normalized form of
+ * {@link Iban#parse(CharSequence)}: an "IBAN" prefix, white space and hyphens
+ * are ignored and letters are matched regardless of their case. Input which
+ * can't be normalized is rejected instead of being reported as not blocked.
+ * <p/>
+ * Entries live in an immutable snapshot of packed keys and open addressing
+ * hash tables. Lookups read the current snapshot without locking,
+ * {@link #reload(Collection, Collection)} builds a new snapshot and swaps it in
+ * atomically, so readers never wait for a reload.
+ * <p/>
+ * Bank prefixes are matched against the bank codes of the current
+ * {@link BbanStructure#getRegistry() registry}. The first lookup after
+ * {@link BbanStructure#setRegistry(BbanRegistry)} rebuilds the bank prefixes
+ * against the new bank codes. Bank codes of up to
+ * {@value #MAX_BANK_CODE_LENGTH} characters can be blocked, prefixes of
+ * countries with longer bank codes are rejected.
+ */
+public final class IbanBlocklist {
+
+    // 4 keys of 10 characters hold the longest iban
+    private static final int KEYS_PER_IBAN = 4;
+    private static final int FIRST_LETTER_VALUE = IbanKeys.charValue('A');
+    // the country code and the bank code share one key
+    static final int MAX_BANK_CODE_LENGTH = IbanKeys.CHARS_PER_KEY - 2;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>();
+
+    /**
+     * Creates an empty blocklist.
+     */
+    public IbanBlocklist() {
+        this(Collections.<CharSequence>emptyList(), Collections.<CharSequence>emptyList());
+    }
+
+    /**
+     * Creates a blocklist.
+     *
+     * @param ibans blocked ibans
+     * @param bankPrefixes blocked country code and bank code prefixes
+     * @throws IllegalArgumentException if an entry can't be an iban or bank prefix.
+     */
+    public IbanBlocklist(final Collection<? extends CharSequence> ibans,
+                         final Collection<? extends CharSequence> bankPrefixes) {
+        snapshot.set(new Snapshot(ibans, bankPrefixes, BbanStructure.getRegistry()));
+    }
+
+    /**
+     * Replaces all entries of the blocklist. Lookups running concurrently
+     * see either the previous or the new entries, never a mix.
+     *
+     * @param ibans blocked ibans
+     * @param bankPrefixes blocked country code and bank code prefixes
+     * @throws IllegalArgumentException if an entry can't be an iban or bank prefix,
+     *         the previous entries stay in place in that case.
+     */
+    public void reload(final Collection<? extends CharSequence> ibans,
+                       final Collection<? extends CharSequence> bankPrefixes) {
+        snapshot.set(new Snapshot(ibans, bankPrefixes, BbanStructure.getRegistry()));
+    }
+
+    /**
+     * Checks whether the iban or its institution is blocked.
+     *
+     * @param iban CharSequence
+     * @return true if the iban or its bank prefix is blocked.
+     * @throws IbanFormatException if the input is null, empty or contains
+     *         other characters than letters, digits and separators.
+     * @throws IllegalStateException if a bank prefix doesn't fit the bank
+     *         codes of the current registry.
+     */
+    public boolean isBlocked(final CharSequence iban) {
+        final Snapshot current = current();
+        final long[] keys = new long[KEYS_PER_IBAN];
+        final int length = pack(iban, keys);
+        return current.containsIban(keys) || current.containsBank(keys, length);
+    }
+
+    /**
+     * Checks whether the iban or its institution is blocked.
+     *
+     * @param iban Iban
+     * @return true if the iban or its bank prefix is blocked.
+     */
+    public boolean isBlocked(final Iban iban) {
+        return isBlocked(iban.toString());
+    }
+
+    /**
+     * Checks whether the iban itself is blocked.
+     *
+     * @param iban CharSequence
+     * @return true if the iban is blocked.
+     * @throws IbanFormatException if the input is null, empty or contains
+     *         other characters than letters, digits and separators.
+     * @throws IllegalStateException if a bank prefix doesn't fit the bank
+     *         codes of the current registry.
+     */
+    public boolean isIbanBlocked(final CharSequence iban) {
+        final Snapshot current = current();
+        final long[] keys = new long[KEYS_PER_IBAN];
+        pack(iban, keys);
+        return current.containsIban(keys);
+    }
+
+    /**
+     * Checks whether the institution of the iban is blocked.
+     *
+     * @param iban CharSequence
+     * @return true if the iban's bank prefix is blocked.
+     * @throws IbanFormatException if the input is null, empty or contains
+     *         other characters than letters, digits and separators.
+     * @throws IllegalStateException if a bank prefix doesn't fit the bank
+     *         codes of the current registry.
+     */
+    public boolean isBankBlocked(final CharSequence iban) {
+        final Snapshot current = current();
+        final long[] keys = new long[KEYS_PER_IBAN];
+        final int length = pack(iban, keys);
+        return current.containsBank(keys, length);
+    }
+
+    /**
+     * Returns the snapshot, rebuilt first if the registry was replaced since
+     * it was built.
+     */
+    private Snapshot current() {
+        final Snapshot current = snapshot.get();
+        final BbanRegistry registry = BbanStructure.getRegistry();
+        if (current.registry == registry) {
+            return current;
+        }
+        final Snapshot rebuilt;
+        try {
+            rebuilt = new Snapshot(current, registry);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Blocked bank prefixes don't fit the current registry, " +
+                    "reload the blocklist.", e);
+        }
+        // a concurrent reload wins, it was built against the new registry
+        return snapshot.compareAndSet(current, rebuilt) ? rebuilt : snapshot.get();
+    }
+
+    /**
+     * Packs looked up input, rejecting input which can't be packed.
+     */
+    private static int pack(final CharSequence iban, final long[] keys) {
+        if (iban == null) {
+            throw new IbanFormatException(IbanFormatException.IbanFormatViolation.IBAN_NOT_NULL,
+                    "Null can't be a valid Iban.");
+        }
+        final int length = IbanKeys.pack(iban, keys);
+        if (length == 0) {
+            throw new IbanFormatException(IbanFormatException.IbanFormatViolation.IBAN_NOT_EMPTY,
+                    "Empty string can't be a valid Iban.");
+        }
+        if (length < 0) {
+            throw new IbanFormatException(IbanFormatException.IbanFormatViolation.UNKNOWN, iban.toString(),
+                    "[" + iban + "] must contain only letters, digits and separators.");
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of distinct blocked ibans.
+     *
+     * @return iban count
+     */
+    public int getIbanCount() {
+        return snapshot.get().ibanCount;
+    }
+
+    /**
+     * Returns the number of distinct blocked bank prefixes.
+     *
+     * @return bank prefix count
+     */
+    public int getBankCount() {
+        return snapshot.get().bankCount;
+    }
+
+    private static int tableSize(final int entries) {
+        return Integer.highestOneBit(Math.max(entries, 1) * 4 - 1);
+    }
+
+    private static int hash(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h ^ (int) (h >>> 16);
+    }
+
+    /**
+     * Immutable set of blocked ibans and bank prefixes, the bank prefixes
+     * packed for the bank codes of one registry.
+     */
+    private static final class Snapshot {
+
+        private final BbanRegistry registry;
+
+        // packed ibans, KEYS_PER_IBAN keys each
+        private final long[] ibanKeys;
+        // 1 based index into ibanKeys / KEYS_PER_IBAN, 0 for empty slots
+        private final int[] ibanTable;
+        private final int ibanCount;
+
+        // bank prefixes as given, packed again for another registry
+        private final String[] bankPrefixes;
+        // packed bank prefixes, 0 for empty slots
+        private final long[] bankTable;
+        private final int bankCount;
+
+        // bank code layouts indexed by country letters, see IbanKeys.layoutOf
+        private final int[] layouts = new int[26 * 26];
+
+        Snapshot(final Collection<? extends CharSequence> ibans,
+                 final Collection<? extends CharSequence> bankPrefixes,
+                 final BbanRegistry registry) {
+            Assert.notNull(ibans, "ibans can't be null");
+            Assert.notNull(bankPrefixes, "bankPrefixes can't be null");
+            this.registry = registry;
+            initLayouts();
+
+            final long[] keys = new long[KEYS_PER_IBAN];
+
+            ibanKeys = new long[ibans.size() * KEYS_PER_IBAN];
+            ibanTable = new int[tableSize(ibans.size())];
+            int count = 0;
+            for (final CharSequence iban : ibans) {
+                if (iban == null || IbanKeys.pack(iban, keys) <= 0) {
+                    throw new IllegalArgumentException("[" + iban + "] can't be a blocked iban.");
+                }
+                int slot = hashOf(keys) & (ibanTable.length - 1);
+                while (ibanTable[slot] != 0 && !matches(ibanTable[slot] - 1, keys)) {
+                    slot = (slot + 1) & (ibanTable.length - 1);
+                }
+                if (ibanTable[slot] == 0) {
+                    System.arraycopy(keys, 0, ibanKeys, count * KEYS_PER_IBAN, KEYS_PER_IBAN);
+                    ibanTable[slot] = ++count;
+                }
+            }
+            ibanCount = count;
+
+            this.bankPrefixes = new String[bankPrefixes.size()];
+            int i = 0;
+            for (final CharSequence bankPrefix : bankPrefixes) {
+                this.bankPrefixes[i++] = bankPrefix == null ? null : bankPrefix.toString();
+            }
+            bankTable = new long[tableSize(this.bankPrefixes.length)];
+            bankCount = packBankPrefixes();
+        }
+
+        /**
+         * Takes the ibans of the previous snapshot and packs its bank
+         * prefixes again for the registry.
+         */
+        Snapshot(final Snapshot previous, final BbanRegistry registry) {
+            this.registry = registry;
+            initLayouts();
+            ibanKeys = previous.ibanKeys;
+            ibanTable = previous.ibanTable;
+            ibanCount = previous.ibanCount;
+            bankPrefixes = previous.bankPrefixes;
+            bankTable = new long[previous.bankTable.length];
+            bankCount = packBankPrefixes();
+        }
+
+        private void initLayouts() {
+            for (final CountryCode countryCode : CountryCode.values()) {
+                final String alpha2 = countryCode.getAlpha2();
+                layouts[(alpha2.charAt(0) - 'A') * 26 + alpha2.charAt(1) - 'A'] =
+                        IbanKeys.layoutOf(registry, countryCode);
+            }
+        }
+
+        private int packBankPrefixes() {
+            final long[] keys = new long[KEYS_PER_IBAN];
+            int count = 0;
+            for (final String bankPrefix : bankPrefixes) {
+                final int length = bankPrefix == null ? -1 : IbanKeys.pack(bankPrefix, keys);
+                final long key = length < 0 ? 0 : bankKey(keys, length, true);
+                if (key == 0) {
+                    throw new IllegalArgumentException("[" + bankPrefix +
+                            "] must be a supported country code followed by a bank code.");
+                }
+                int slot = hash(key) & (bankTable.length - 1);
+                while (bankTable[slot] != 0 && bankTable[slot] != key) {
+                    slot = (slot + 1) & (bankTable.length - 1);
+                }
+                if (bankTable[slot] == 0) {
+                    bankTable[slot] = key;
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean containsIban(final long[] keys) {
+            int slot = hashOf(keys) & (ibanTable.length - 1);
+            int entry;
+            while ((entry = ibanTable[slot]) != 0) {
+                if (matches(entry - 1, keys)) {
+                    return true;
+                }
+                slot = (slot + 1) & (ibanTable.length - 1);
+            }
+            return false;
+        }
+
+        boolean containsBank(final long[] keys, final int length) {
+            final long key = bankKey(keys, length, false);
+            if (key == 0) {
+                return false;
+            }
+            int slot = hash(key) & (bankTable.length - 1);
+            long entry;
+            while ((entry = bankTable[slot]) != 0) {
+                if (entry == key) {
+                    return true;
+                }
+                slot = (slot + 1) & (bankTable.length - 1);
+            }
+            return false;
+        }
+
+        /**
+         * Packs the country code and the bank code of an iban, or of a bank
+         * prefix if prefix is true, into one key.
+         *
+         * @return the key or 0 if the country is not supported or the
+         *         input is too short.
+         * @throws IllegalArgumentException if a prefix's bank code is longer
+         *         than {@link #MAX_BANK_CODE_LENGTH} characters; ibans of such
+         *         countries get no key, no prefix can block them.
+         */
+        private long bankKey(final long[] keys, final int length, final boolean prefix) {
+            if (length < 2) {
+                return 0;
+            }
+            final int first = IbanKeys.valueAt(keys, 0) - FIRST_LETTER_VALUE;
+            final int second = IbanKeys.valueAt(keys, 1) - FIRST_LETTER_VALUE;
+            if (first < 0 || second < 0) {
+                return 0;
+            }
+            final int layout = layouts[first * 26 + second];
+            final int bankLength = layout & 0xFF;
+            if (bankLength > MAX_BANK_CODE_LENGTH) {
+                if (prefix) {
+                    throw new IllegalArgumentException("Bank codes longer than " +
+                            MAX_BANK_CODE_LENGTH + " characters can't be blocked.");
+                }
+                return 0;
+            }
+            final int bankIndex = prefix ? 2 : layout >>> 8;
+            if (bankLength == 0 || (prefix ?
+                    length != bankIndex + bankLength : length < bankIndex + bankLength)) {
+                return 0;
+            }
+            long key = 0;
+            for (int position = 0; position < IbanKeys.CHARS_PER_KEY; position++) {
+                key <<= IbanKeys.BITS_PER_CHAR;
+                if (position < 2) {
+                    key |= IbanKeys.valueAt(keys, position);
+                } else if (position < 2 + bankLength) {
+                    key |= IbanKeys.valueAt(keys, bankIndex + position - 2);
+                }
+            }
+            return key;
+        }
+
+        private boolean matches(final int entry, final long[] keys) {
+            final int offset = entry * KEYS_PER_IBAN;
+            for (int i = 0; i < KEYS_PER_IBAN; i++) {
+                if (ibanKeys[offset + i] != keys[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hashOf(final long[] keys) {
+            long h = 0;
+            for (final long key : keys) {
+                h = h * 31 + key;
+            }
+            return IbanBlocklist.hash(h);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded interning cache in front of {@link Iban#valueOf(String)}.
+ * <p/>
+ * Repeated lookups of the same iban return the canonical {@link Iban}
+ * instance without validating it again. Only values which passed
+ * {@link Iban#valueOf(String)} are ever stored, invalid input is rejected
+ * with the usual exceptions every time.
+ * <p/>
+ * The cache is a 4-way set associative table. Reads are lock-free, a miss
+ * is admitted into its set only if it is used more frequently than the
+ * entry it would evict (TinyLFU admission backed by a count-min sketch).
+ * <p/>
+ * The cached ibans were validated under the current
+ * {@link BbanStructure#getRegistry() registry}; the cache is cleared on the
+ * first lookup after {@link BbanStructure#setRegistry(BbanRegistry)}.
+ * Lookups running concurrently with the swap may still admit an iban
+ * validated under the previous registry.
+ * <p/>
+ * Instances are thread safe.
+ */
+public final class IbanCache {
+
+    /**
+     * The largest supported maximum size, 2^26 ibans.
+     */
+    public static final int MAXIMUM_SIZE_LIMIT = 1 << 26;
+
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Iban> table;
+    private final int setMask;
+    private final FrequencySketch sketch;
+    // registry the cached ibans were validated under
+    private volatile BbanRegistry registry = BbanStructure.getRegistry();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates iban cache instance.
+     *
+     * @param maximumSize the maximum number of cached ibans,
+     *                    rounded up to the next power of two.
+     * @throws IllegalArgumentException if maximumSize is not positive or
+     *         larger than {@link #MAXIMUM_SIZE_LIMIT}.
+     */
+    public IbanCache(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive.");
+        }
+        // keeps the capacity and the sketch size computations within int range
+        if (maximumSize > MAXIMUM_SIZE_LIMIT) {
+            throw new IllegalArgumentException("maximumSize must not be larger than " +
+                    MAXIMUM_SIZE_LIMIT + ".");
+        }
+        final int capacity = ceilingPowerOfTwo(Math.max(maximumSize, WAYS));
+        this.table = new AtomicReferenceArray<Iban>(capacity);
+        this.setMask = capacity / WAYS - 1;
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    /**
+     * Returns the canonical Iban object holding the value of the specified String.
+     *
+     * @param iban the String to be parsed.
+     * @return cached Iban instance or a newly validated one.
+     * @throws IbanFormatException if the String doesn't contain parsable Iban
+     *         InvalidCheckDigitException if Iban has invalid check digit
+     *         UnsupportedCountryException if Iban's Country is not supported.
+     */
+    public Iban valueOf(final String iban) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        if (iban == null) {
+            missCount.incrementAndGet();
+            return Iban.valueOf(iban);
+        }
+        clearIfRegistryChanged();
+
+        final int hash = spread(iban.hashCode());
+        final int set = (hash & setMask) * WAYS;
+        for (int i = 0; i < WAYS; i++) {
+            final Iban cached = table.get(set + i);
+            if (cached != null && cached.toString().equals(iban)) {
+                sketch.increment(hash);
+                hitCount.incrementAndGet();
+                return cached;
+            }
+        }
+
+        missCount.incrementAndGet();
+        final Iban value = Iban.valueOf(iban);
+        admit(set, hash, value);
+        return value;
+    }
+
+    /**
+     * Removes all cached ibans. Statistics are not reset.
+     */
+    public void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, null);
+        }
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups which had to validate the iban.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of ibans evicted in favour of more frequent ones.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the ratio of cache hits to all lookups.
+     *
+     * @return hit rate between 0.0 and 1.0, 1.0 if nothing was requested yet.
+     */
+    public double getHitRate() {
+        final long hits = hitCount.get();
+        final long requests = hits + missCount.get();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    /**
+     * Returns the maximum number of ibans the cache can hold.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return table.length();
+    }
+
+    private void clearIfRegistryChanged() {
+        final BbanRegistry current = BbanStructure.getRegistry();
+        if (current != registry) {
+            registry = current;
+            clear();
+        }
+    }
+
+    private void admit(final int set, final int hash, final Iban value) {
+        sketch.increment(hash);
+        final int frequency = sketch.frequency(hash);
+
+        int victimIndex = -1;
+        Iban victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < WAYS; i++) {
+            final Iban candidate = table.get(set + i);
+            if (candidate == null) {
+                if (table.compareAndSet(set + i, null, value)) {
+                    return;
+                }
+                continue;
+            }
+            if (candidate.equals(value)) {
+                // another thread interned it meanwhile
+                return;
+            }
+            final int candidateFrequency = sketch.frequency(
+                    spread(candidate.hashCode()));
+            if (candidateFrequency < victimFrequency) {
+                victimIndex = set + i;
+                victim = candidate;
+                victimFrequency = candidateFrequency;
+            }
+        }
+
+        if (victim != null && frequency > victimFrequency
+                && table.compareAndSet(victimIndex, victim, value)) {
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static int spread(final int hashCode) {
+        final int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int ceilingPowerOfTwo(final int value) {
+        final int highestBit = Integer.highestOneBit(value);
+        return highestBit == value ? value : highestBit << 1;
+    }
+
+    /**
+     * Count-min sketch with counters saturating at 15, halved periodically
+     * so that the recorded frequencies age. Updates are not synchronized,
+     * lost increments only make the estimate slightly less accurate.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {
+                0x97CB3127, 0xB3B9E7F1, 0xC2B2AE35, 0x85EBCA6B
+        };
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(final int capacity) {
+            this.counters = new byte[Math.max(capacity * 8, 64)];
+            this.mask = counters.length - 1;
+            this.sampleSize = capacity * 10;
+        }
+
+        int frequency(final int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, counters[indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        void increment(final int hash) {
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                final int index = indexOf(hash, i);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            additions = 0;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = (byte) (counters[i] >>> 1);
+            }
+        }
+
+        private int indexOf(final int hash, final int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            h ^= h >>> 15;
+            return h & mask;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.support.Assert;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Append-only column of ibans stored back to back in a single byte array.
+ * <p/>
+ * Each iban costs its length in bytes plus an int offset and a short country
+ * ordinal, instead of a String and an Iban object per value. Characters are
+ * stored as ISO-8859-1 bytes.
+ * <p/>
+ * Sequential access is the intended access pattern: {@link #iterator()}
+ * moves a single reusable {@link View} over the rows and {@link #validate()}
+ * scans all rows without creating intermediate objects for valid ones.
+ * <p/>
+ * Instances are not thread safe.
+ */
+public final class IbanColumn implements Iterable<IbanColumn.View> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int AVERAGE_IBAN_LENGTH = 24;
+    private static final short UNKNOWN_COUNTRY = -1;
+    private static final int BBAN_INDEX = 4;
+    private static final CountryCode[] COUNTRY_CODES = CountryCode.values();
+
+    private byte[] data;
+    private int dataLength;
+    // offsets[i] is the start of row i, offsets[size] the end of the last row
+    private int[] offsets;
+    private short[] countries;
+    private int size;
+
+    /**
+     * Creates an empty iban column.
+     */
+    public IbanColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty iban column.
+     *
+     * @param expectedSize the number of ibans to reserve space for.
+     */
+    public IbanColumn(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 1);
+        data = new byte[capacity * AVERAGE_IBAN_LENGTH];
+        offsets = new int[capacity + 1];
+        countries = new short[capacity];
+    }
+
+    /**
+     * Appends an iban to the column. The value is not validated.
+     *
+     * @param iban CharSequence
+     * @return the row index of the appended iban.
+     * @throws IllegalArgumentException if iban is null or contains
+     *         characters outside of ISO-8859-1.
+     */
+    public int append(final CharSequence iban) {
+        Assert.notNull(iban, "iban can't be null");
+        final int length = iban.length();
+        ensureCapacity(length);
+
+        for (int i = 0; i < length; i++) {
+            final char ch = iban.charAt(i);
+            if (ch > 0xFF) {
+                throw new IllegalArgumentException("[" + iban +
+                        "] contains non ISO-8859-1 character at " + i);
+            }
+            data[dataLength + i] = (byte) ch;
+        }
+
+        CountryCode countryCode = null;
+        if (length >= 2) {
+            countryCode = CountryCode.getByAlpha2Code(iban.charAt(0), iban.charAt(1));
+        }
+        countries[size] = countryCode == null ?
+                UNKNOWN_COUNTRY : (short) countryCode.ordinal();
+
+        dataLength += length;
+        size++;
+        offsets[size] = dataLength;
+        return size - 1;
+    }
+
+    /**
+     * Appends an iban to the column.
+     *
+     * @param iban Iban
+     * @return the row index of the appended iban.
+     */
+    public int append(final Iban iban) {
+        Assert.notNull(iban, "iban can't be null");
+        return append(iban.toString());
+    }
+
+    /**
+     * Returns the number of ibans in the column.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the iban at the specified row as String.
+     *
+     * @param index row index
+     * @return iban String
+     */
+    public String get(final int index) {
+        checkIndex(index);
+        return toString(offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * Returns the length of the iban at the specified row.
+     *
+     * @param index row index
+     * @return length
+     */
+    public int length(final int index) {
+        checkIndex(index);
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns the country of the iban at the specified row.
+     *
+     * @param index row index
+     * @return countryCode CountryCode, null if the row doesn't start with a known country code.
+     */
+    public CountryCode getCountryCode(final int index) {
+        checkIndex(index);
+        return countryOf(index);
+    }
+
+    /**
+     * Validates all ibans of the column.
+     *
+     * @return the row indexes of the invalid ibans.
+     */
+    public BitSet validate() {
+        final BitSet invalid = new BitSet();
+        final View view = new View();
+        for (int i = 0; i < size; i++) {
+            view.moveTo(i);
+            try {
+                IbanUtil.validate(view);
+            } catch (Iban4jException e) {
+                invalid.set(i);
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Validates the iban at the specified row.
+     *
+     * @param index row index
+     * @throws IbanFormatException if iban is invalid.
+     *         UnsupportedCountryException if iban's country is not supported.
+     *         InvalidCheckDigitException if iban has invalid check digit.
+     */
+    public void validate(final int index) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        checkIndex(index);
+        final View view = new View();
+        view.moveTo(index);
+        IbanUtil.validate(view);
+    }
+
+    /**
+     * Copies the bban entry of the iban at the specified row to the buffer.
+     *
+     * @param index row index
+     * @param entryType the entry to extract
+     * @param dst destination buffer
+     * @param dstOffset offset in the destination buffer
+     * @return the number of copied characters, -1 if the row's country is unknown,
+     *         not supported, doesn't have the entry or the row is too short.
+     */
+    public int getEntry(final int index, final BbanEntryType entryType,
+                        final char[] dst, final int dstOffset) {
+        checkIndex(index);
+        final int start = offsets[index];
+        final int entry = entryOffset(index, entryType);
+        if (entry < 0) {
+            return -1;
+        }
+        final int entryLength = entry & 0xFF;
+        final int from = start + (entry >>> 8);
+        for (int i = 0; i < entryLength; i++) {
+            dst[dstOffset + i] = (char) (data[from + i] & 0xFF);
+        }
+        return entryLength;
+    }
+
+    /**
+     * Returns the bban entry of the iban at the specified row.
+     *
+     * @param index row index
+     * @param entryType the entry to extract
+     * @return entry value, null if the row's country is unknown, not supported,
+     *         doesn't have the entry or the row is too short.
+     */
+    public String getEntry(final int index, final BbanEntryType entryType) {
+        checkIndex(index);
+        final int entry = entryOffset(index, entryType);
+        if (entry < 0) {
+            return null;
+        }
+        final int from = offsets[index] + (entry >>> 8);
+        return toString(from, from + (entry & 0xFF));
+    }
+
+    /**
+     * Returns an iterator which moves one reusable {@link View} over the rows.
+     * Views returned by previous calls to next() are moved as well.
+     *
+     * @return iterator over the rows
+     */
+    public Iterator<View> iterator() {
+        final View view = new View();
+        return new Iterator<View>() {
+            private int next;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public View next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                view.moveTo(next++);
+                return view;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("IbanColumn is append-only");
+            }
+        };
+    }
+
+    /**
+     * Returns a view positioned on the specified row.
+     *
+     * @param index row index
+     * @return new view
+     */
+    public View view(final int index) {
+        checkIndex(index);
+        final View view = new View();
+        view.moveTo(index);
+        return view;
+    }
+
+    /**
+     * Returns the entry position relative to the row start shifted left by 8
+     * bits or'ed with its length, or -1.
+     */
+    private int entryOffset(final int index, final BbanEntryType entryType) {
+        final CountryCode countryCode = countryOf(index);
+        final BbanStructure structure = BbanStructure.forCountry(countryCode);
+        if (structure == null) {
+            return -1;
+        }
+        final int bbanOffset = structure.getEntryOffset(entryType);
+        if (bbanOffset < 0) {
+            return -1;
+        }
+        final int entryOffset = BBAN_INDEX + bbanOffset;
+        final int length = structure.getEntryLength(entryType);
+        if (entryOffset + length > offsets[index + 1] - offsets[index]) {
+            return -1;
+        }
+        return entryOffset << 8 | length;
+    }
+
+    private CountryCode countryOf(final int index) {
+        final short ordinal = countries[index];
+        return ordinal == UNKNOWN_COUNTRY ? null : COUNTRY_CODES[ordinal];
+    }
+
+    private String toString(final int from, final int to) {
+        final char[] chars = new char[to - from];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (data[from + i] & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity(final int length) {
+        if (dataLength + length > data.length) {
+            final byte[] newData = new byte[Math.max(data.length * 2, dataLength + length)];
+            System.arraycopy(data, 0, newData, 0, dataLength);
+            data = newData;
+        }
+        if (size + 1 >= offsets.length) {
+            final int[] newOffsets = new int[offsets.length * 2];
+            System.arraycopy(offsets, 0, newOffsets, 0, size + 1);
+            offsets = newOffsets;
+        }
+        if (size >= countries.length) {
+            final short[] newCountries = new short[countries.length * 2];
+            System.arraycopy(countries, 0, newCountries, 0, size);
+            countries = newCountries;
+        }
+    }
+
+    /**
+     * Flyweight view of one row of the column.
+     * <p/>
+     * The view reads the column's storage directly; it stays valid while
+     * more ibans are appended.
+     */
+    public final class View implements CharSequence {
+
+        private int index;
+        private int start;
+        private int length;
+
+        private View() {
+        }
+
+        private void moveTo(final int index) {
+            this.index = index;
+            this.start = offsets[index];
+            this.length = offsets[index + 1] - start;
+        }
+
+        /**
+         * Returns the row index of the view.
+         *
+         * @return row index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the country of the iban.
+         *
+         * @return countryCode CountryCode, null if unknown.
+         */
+        public CountryCode getCountryCode() {
+            return countryOf(index);
+        }
+
+        /**
+         * Returns the bban entry of the iban.
+         *
+         * @param entryType the entry to extract
+         * @return entry value or null, see {@link IbanColumn#getEntry(int, BbanEntryType)}
+         */
+        public String getEntry(final BbanEntryType entryType) {
+            return IbanColumn.this.getEntry(index, entryType);
+        }
+
+        /**
+         * Validates the iban.
+         *
+         * @throws IbanFormatException if iban is invalid.
+         *         UnsupportedCountryException if iban's country is not supported.
+         *         InvalidCheckDigitException if iban has invalid check digit.
+         */
+        public void validate() throws IbanFormatException,
+                InvalidCheckDigitException, UnsupportedCountryException {
+            IbanUtil.validate(this);
+        }
+
+        /**
+         * Returns an Iban object holding the value of the row.
+         *
+         * @return iban Iban
+         * @throws IbanFormatException if iban is invalid.
+         *         UnsupportedCountryException if iban's country is not supported.
+         *         InvalidCheckDigitException if iban has invalid check digit.
+         */
+        public Iban toIban() throws IbanFormatException,
+                InvalidCheckDigitException, UnsupportedCountryException {
+            return Iban.valueOf(toString());
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(final int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+            }
+            return (char) (data[start + index] & 0xFF);
+        }
+
+        public CharSequence subSequence(final int from, final int to) {
+            if (from < 0 || from > to || to > length) {
+                throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+            }
+            return IbanColumn.this.toString(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return IbanColumn.this.toString(start, start + length);
+        }
+    }
+}
@@ -170,7 +170,10 @@ public class IbanFormatException extends Iban4jException {
 
         IBAN_COUNTRY_CODE_NOT_NULL,
         IBAN_BANK_CODE_NOT_NULL,
-        IBAN_ACCOUNT_NUMBER_NOT_NULL
+        IBAN_ACCOUNT_NUMBER_NOT_NULL,
+
+        // appended, the ordinals of the constants above are kept
+        NATIONAL_CHECK_DIGIT
 
     }
 }
\ No newline at end of file
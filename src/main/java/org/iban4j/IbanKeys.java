@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+
+import java.util.Arrays;
+
+/**
+ * Packed iban keys.
+ * <p/>
+ * Characters are packed with 6 bits each, using their iban numeric value
+ * plus one (1 for '0' up to 36 for 'Z', 0 for a missing character), so that
+ * comparing keys compares characters the way the check digit sees them.
+ * <p/>
+ * Sort keys follow the iban order sequence: country code, bank code,
+ * the rest of the bban and finally the check digit.
+ */
+final class IbanKeys {
+
+    static final int CHARS_PER_KEY = 10;
+    static final int BITS_PER_CHAR = 6;
+
+    private static final int COUNTRY_CODE_LENGTH = 2;
+    private static final int CHECK_DIGIT_LENGTH = 2;
+    private static final int BBAN_INDEX = COUNTRY_CODE_LENGTH + CHECK_DIGIT_LENGTH;
+
+    // packed values of the ascii characters
+    private static final byte[] ASCII_VALUES = new byte[128];
+
+    // bank code layouts of the current registry, replaced after a registry swap
+    private static volatile Layouts layouts;
+
+    static {
+        for (char ch = 0; ch < ASCII_VALUES.length; ch++) {
+            final int value = Character.getNumericValue(ch);
+            ASCII_VALUES[ch] = (byte) (value >= 0 && value <= 35 ? value + 1 : 0);
+        }
+    }
+
+    private IbanKeys() {
+    }
+
+    /**
+     * Returns the packed value of the character.
+     *
+     * @param ch char
+     * @return value between 1 and 36, 0 if the character is not alphanumeric.
+     */
+    static int charValue(final char ch) {
+        if (ch < ASCII_VALUES.length) {
+            return ASCII_VALUES[ch];
+        }
+        final int value = Character.getNumericValue(ch);
+        return value >= 0 && value <= 35 ? value + 1 : 0;
+    }
+
+    /**
+     * Returns the position and length of the bank code in the iban.
+     *
+     * @param iban CharSequence
+     * @return bank code index shifted left by 8 bits or'ed with its length,
+     *         or the bban index alone if the country is not supported.
+     */
+    static int layoutOf(final CharSequence iban) {
+        return layoutOf(layouts(), iban);
+    }
+
+    /**
+     * Returns the position and length of the bank code in the iban, looked
+     * up in layouts returned by {@link #layouts()}.
+     */
+    static int layoutOf(final int[] layouts, final CharSequence iban) {
+        if (iban.length() < COUNTRY_CODE_LENGTH) {
+            return BBAN_INDEX << 8;
+        }
+        final int first = iban.charAt(0) - 'A';
+        final int second = iban.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return BBAN_INDEX << 8;
+        }
+        return layouts[first * 26 + second];
+    }
+
+    /**
+     * Returns the bank code layouts of the current registry, the one source
+     * of layouts for comparing and sorting ibans.
+     *
+     * @return layouts indexed by (first letter - 'A') * 26 + second letter - 'A'
+     *         of the country code, see {@link #layoutOf(CountryCode)}.
+     */
+    static int[] layouts() {
+        final BbanRegistry registry = BbanStructure.getRegistry();
+        Layouts current = layouts;
+        if (current == null || current.registry != registry) {
+            current = new Layouts(registry);
+            layouts = current;
+        }
+        return current.values;
+    }
+
+    /**
+     * Returns the position and length of the bank code in the country's ibans.
+     *
+     * @param countryCode CountryCode
+     * @return bank code index shifted left by 8 bits or'ed with its length,
+     *         or the bban index alone if the country is not supported.
+     */
+    static int layoutOf(final CountryCode countryCode) {
+        return layoutOf(BbanStructure.getRegistry(), countryCode);
+    }
+
+    /**
+     * Returns the position and length of the bank code in the country's ibans
+     * under the registry, see {@link #layoutOf(CountryCode)}.
+     */
+    static int layoutOf(final BbanRegistry registry, final CountryCode countryCode) {
+        final BbanStructure structure = registry.forCountry(countryCode);
+        if (structure == null) {
+            return BBAN_INDEX << 8;
+        }
+        final int offset = structure.getEntryOffset(BbanEntryType.bank_code);
+        if (offset < 0) {
+            return BBAN_INDEX << 8;
+        }
+        return (BBAN_INDEX + offset) << 8 | structure.getEntryLength(BbanEntryType.bank_code);
+    }
+
+    /**
+     * Packs a normalized iban into consecutive keys of {@link #CHARS_PER_KEY}
+     * characters each, in string order. Input is normalized like
+     * {@link Iban#parse(CharSequence)}: an "IBAN" prefix, white space and
+     * hyphens are skipped and letters are packed regardless of their case.
+     *
+     * @param iban CharSequence
+     * @param keys destination, zeroed before packing
+     * @return the number of packed characters, -1 if the iban contains
+     *         a non alphanumeric character or doesn't fit into keys.
+     */
+    static int pack(final CharSequence iban, final long[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+        }
+        int count = 0;
+        for (int i = IbanUtil.skipPrefix(iban); i < iban.length(); i++) {
+            final char ch = iban.charAt(i);
+            if (IbanUtil.isSeparator(ch)) {
+                continue;
+            }
+            final int value = charValue(ch);
+            if (value == 0 || count >= keys.length * CHARS_PER_KEY) {
+                return -1;
+            }
+            keys[count / CHARS_PER_KEY] |= (long) value <<
+                    (CHARS_PER_KEY - 1 - count % CHARS_PER_KEY) * BITS_PER_CHAR;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the packed character at the position from keys filled by
+     * {@link #pack(CharSequence, long[])}.
+     */
+    static int valueAt(final long[] keys, final int position) {
+        return (int) (keys[position / CHARS_PER_KEY] >>>
+                (CHARS_PER_KEY - 1 - position % CHARS_PER_KEY) * BITS_PER_CHAR) & 0x3F;
+    }
+
+    /**
+     * Returns the sort key of the iban.
+     *
+     * @param iban CharSequence
+     * @param layout value returned by {@link #layoutOf(CharSequence)}
+     * @param depth index of the {@link #CHARS_PER_KEY} characters long chunk
+     *              of the order sequence.
+     * @return non negative sort key
+     */
+    static long sortKey(final CharSequence iban, final int layout, final int depth) {
+        final int length = iban.length();
+        final int from = depth * CHARS_PER_KEY;
+        long key = 0;
+        for (int position = from; position < from + CHARS_PER_KEY; position++) {
+            key <<= BITS_PER_CHAR;
+            if (position < length) {
+                key |= charValue(iban.charAt(indexOf(position, layout, length)));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Compares two ibans of the same country in iban order, starting at
+     * the specified position of the order sequence.
+     */
+    static int compare(final String iban1, final String iban2, final int layout,
+                       final int from) {
+        final int length1 = iban1.length();
+        final int length2 = iban2.length();
+        final int length = Math.min(length1, length2);
+        for (int position = from; position < length; position++) {
+            final int value1 = charValue(iban1.charAt(indexOf(position, layout, length1)));
+            final int value2 = charValue(iban2.charAt(indexOf(position, layout, length2)));
+            if (value1 != value2) {
+                return value1 - value2;
+            }
+        }
+        if (length1 != length2) {
+            return length1 - length2;
+        }
+        return iban1.compareTo(iban2);
+    }
+
+    /**
+     * Maps a position of the order sequence to an index in the iban.
+     */
+    private static int indexOf(final int position, final int layout, final int length) {
+        final int bankIndex = layout >>> 8;
+        final int bankLength = layout & 0xFF;
+        if (position < COUNTRY_CODE_LENGTH) {
+            return position;
+        }
+        if (position < COUNTRY_CODE_LENGTH + bankLength) {
+            return bankIndex + position - COUNTRY_CODE_LENGTH;
+        }
+        if (position < length - CHECK_DIGIT_LENGTH) {
+            final int index = BBAN_INDEX + position - COUNTRY_CODE_LENGTH - bankLength;
+            return index < bankIndex ? index : index + bankLength;
+        }
+        return position - length + BBAN_INDEX;
+    }
+
+    private static final class Layouts {
+
+        private final BbanRegistry registry;
+        private final int[] values = new int[26 * 26];
+
+        Layouts(final BbanRegistry registry) {
+            this.registry = registry;
+            Arrays.fill(values, BBAN_INDEX << 8);
+            for (final CountryCode countryCode : CountryCode.values()) {
+                final String alpha2 = countryCode.getAlpha2();
+                values[(alpha2.charAt(0) - 'A') * 26 + alpha2.charAt(1) - 'A'] =
+                        layoutOf(registry, countryCode);
+            }
+        }
+    }
+}
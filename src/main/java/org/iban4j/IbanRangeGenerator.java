@@ -0,0 +1,304 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Generates ibans of consecutive account numbers under one bank.
+ * <p/>
+ * The mod 97 remainder of the rearranged iban is kept between steps.
+ * Incrementing the account number adds the precomputed power of 10 mod 97
+ * of the changed position to it, so a step costs constant amortized time
+ * instead of a pass over the iban. Countries with national check digits
+ * recompute those and the remainder on every step; account numbers which
+ * can't have a national check digit are skipped. Plugged in
+ * {@link CountryValidator}s are not run.
+ * <p/>
+ * The trailing digits of the account number are incremented as a decimal
+ * number, the generator stops when they would overflow. Generators are not
+ * thread safe.
+ */
+public final class IbanRangeGenerator implements Iterator<Iban> {
+
+    private static final int MOD = 97;
+    private static final int BBAN_INDEX = 4;
+    // the rearranged iban ends with the country code (4 digits) and check digit 00
+    private static final int TRAILING_DIGITS = 6;
+
+    private final CountryCode countryCode;
+    private final char[] iban;
+    private final CharBuffer view;
+    private final int accountFrom;
+    private final int accountTo;
+    // 10^n mod 97 for every bban character, n being its digit position in the rearranged iban
+    private final int[] powers;
+    private final boolean nationalCheckDigits;
+
+    private int remainder;
+    private long remaining;
+    private boolean started;
+    private boolean prepared;
+
+    /**
+     * Creates a generator starting with an iban.
+     *
+     * @param first the first iban, its account number is incremented.
+     * @param count the number of ibans to generate at most.
+     * @throws IllegalArgumentException if the account number doesn't end with digits.
+     */
+    public IbanRangeGenerator(final Iban first, final long count) {
+        this(first.getCountryCode(), first.toString().toCharArray(), count);
+    }
+
+    private IbanRangeGenerator(final CountryCode countryCode, final char[] iban, final long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count can't be negative");
+        }
+        final BbanStructure structure = BbanStructure.forCountry(countryCode);
+        if (structure == null) {
+            throw new UnsupportedCountryException(countryCode.getAlpha2(),
+                    "Country code is not supported.");
+        }
+        this.countryCode = countryCode;
+        this.iban = iban;
+        this.view = CharBuffer.wrap(iban);
+        this.remaining = count;
+        // the trailing digits of the account number are incremented
+        final int accountOffset = BBAN_INDEX + structure.getEntryOffset(BbanEntryType.account_number);
+        this.accountTo = accountOffset + structure.getEntryLength(BbanEntryType.account_number);
+        int from = accountTo;
+        while (from > accountOffset && isDigit(iban[from - 1])) {
+            from--;
+        }
+        if (from == accountTo) {
+            throw new IllegalArgumentException("Account number must end with digits to be incremented.");
+        }
+        this.accountFrom = from;
+        this.nationalCheckDigits = BbanRegistry.defaults().forCountry(countryCode) == structure &&
+                NationalCheckDigits.hasCheckDigits(countryCode);
+
+        powers = new int[iban.length];
+        int power = pow10(TRAILING_DIGITS);
+        for (int i = iban.length - 1; i >= BBAN_INDEX; i--) {
+            powers[i] = power;
+            power = power * (isDigit(iban[i]) ? 10 : 100) % MOD;
+        }
+        remainder = remainderOf(iban);
+    }
+
+    /**
+     * Creates a generator for the accounts of a bank. National check digits
+     * are computed.
+     *
+     * @param countryCode the country
+     * @param bankCode the bank code
+     * @param branchCode the branch code, null if the country has none.
+     * @param firstAccountNumber the first account number, ending with digits.
+     * @param count the number of ibans to generate at most.
+     * @return generator
+     * @throws IbanFormatException if the values don't match the bban structure.
+     * @throws UnsupportedCountryException if the country doesn't support ibans.
+     * @throws IllegalArgumentException if the country's bban has other entries.
+     */
+    public static IbanRangeGenerator forBank(final CountryCode countryCode, final String bankCode,
+                                             final String branchCode, final String firstAccountNumber,
+                                             final long count) {
+        Assert.notNull(countryCode, "countryCode can't be null");
+        final BbanStructure structure = BbanStructure.forCountry(countryCode);
+        if (structure == null) {
+            throw new UnsupportedCountryException(countryCode.getAlpha2(),
+                    "Country code is not supported.");
+        }
+        final StringBuilder sb = new StringBuilder(BBAN_INDEX + structure.getBbanLength());
+        sb.append(countryCode.getAlpha2()).append(Iban.DEFAULT_CHECK_DIGIT);
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            switch (entry.getEntryType()) {
+                case bank_code:
+                    sb.append(bankCode);
+                    break;
+                case branch_code:
+                    sb.append(branchCode);
+                    break;
+                case account_number:
+                    sb.append(firstAccountNumber);
+                    break;
+                case national_check_digit:
+                    // placeholders of the entry's type, computed per account
+                    for (int i = 0; i < entry.getLength(); i++) {
+                        sb.append(entry.getCharacterType() == BbanStructureEntry.EntryCharacterType.a
+                                ? 'A' : '0');
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(countryCode.getAlpha2() + " bban has a " +
+                            entry.getEntryType() + " entry, use an iban of the bank to start with.");
+            }
+        }
+        if (!structure.matches(sb)) {
+            // reports the structure violation
+            IbanUtil.validate(sb);
+        }
+        return new IbanRangeGenerator(countryCode, sb.toString().toCharArray(), count);
+    }
+
+    /**
+     * @return the length of the generated ibans.
+     */
+    public int getIbanLength() {
+        return iban.length;
+    }
+
+    public boolean hasNext() {
+        if (!prepared) {
+            prepared = prepareNext();
+        }
+        return prepared;
+    }
+
+    public Iban next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        prepared = false;
+        return new Iban(new String(iban));
+    }
+
+    /**
+     * Writes the next iban into a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset index of the iban's first character
+     * @return the number of characters written, -1 if there are no more ibans.
+     */
+    public int next(final char[] buffer, final int offset) {
+        if (!hasNext()) {
+            return -1;
+        }
+        prepared = false;
+        System.arraycopy(iban, 0, buffer, offset, iban.length);
+        return iban.length;
+    }
+
+    /**
+     * Appends ibans, each followed by a line feed.
+     *
+     * @param out the destination
+     * @param count the number of ibans to append at most
+     * @return the number of ibans appended
+     * @throws IOException if appending fails.
+     */
+    public long writeTo(final Appendable out, final long count) throws IOException {
+        long written = 0;
+        while (written < count && hasNext()) {
+            prepared = false;
+            view.clear();
+            out.append(view).append('\n');
+            written++;
+        }
+        return written;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Moves to the next account number and completes its check digits.
+     */
+    private boolean prepareNext() {
+        if (remaining == 0) {
+            return false;
+        }
+        if (started && !increment()) {
+            remaining = 0;
+            return false;
+        }
+        started = true;
+        if (nationalCheckDigits) {
+            while (!NationalCheckDigits.calculate(countryCode, iban)) {
+                if (!increment()) {
+                    remaining = 0;
+                    return false;
+                }
+            }
+            remainder = remainderOf(iban);
+        }
+        final int checkDigit = 98 - remainder;
+        iban[2] = (char) ('0' + checkDigit / 10);
+        iban[3] = (char) ('0' + checkDigit % 10);
+        remaining--;
+        return true;
+    }
+
+    /**
+     * Adds one to the account number, updating the remainder per changed digit.
+     *
+     * @return false if the account number overflows.
+     */
+    private boolean increment() {
+        for (int i = accountTo - 1; i >= accountFrom; i--) {
+            if (iban[i] != '9') {
+                iban[i]++;
+                remainder = (remainder + powers[i]) % MOD;
+                return true;
+            }
+            // 9 becomes 0, subtract 9 * 10^n
+            iban[i] = '0';
+            remainder = (remainder + 9 * (MOD - powers[i])) % MOD;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the mod 97 remainder of bban, country code and check digit 00.
+     */
+    private static int remainderOf(final char[] iban) {
+        int remainder = 0;
+        for (int i = BBAN_INDEX; i < iban.length; i++) {
+            remainder = append(remainder, iban[i]);
+        }
+        remainder = append(remainder, iban[0]);
+        remainder = append(remainder, iban[1]);
+        return remainder * 100 % MOD;
+    }
+
+    private static int append(final int remainder, final char ch) {
+        final int value = Character.digit(ch, Character.MAX_RADIX);
+        return (remainder * (value < 10 ? 10 : 100) + value) % MOD;
+    }
+
+    private static boolean isDigit(final char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static int pow10(final int exponent) {
+        int power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power = power * 10 % MOD;
+        }
+        return power;
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size cache of recently rejected iban strings.
+ * <p/>
+ * Input which failed validation once is answered from the cache afterwards:
+ * the first rejection ({@link IbanFormatException} with its
+ * {@link IbanFormatException.IbanFormatViolation},
+ * {@link InvalidCheckDigitException} or {@link UnsupportedCountryException})
+ * is copied once into an exception of the same type and details without a
+ * stack trace, and that copy is thrown for every repeated submission.
+ * Other {@link Iban4jException}s, like those of plugged in
+ * {@link CountryValidator}s, are cached and rethrown as they are.
+ * {@link #getViolation(String)} looks up a rejection without throwing.
+ * <p/>
+ * The cache is split into lock striped segments, each a hash table in fixed
+ * arrays. Lookups, inserts and evictions take constant time, the least
+ * recently seen entry of a segment is replaced when it is full.
+ * Input longer than {@value #MAX_CACHED_LENGTH} characters is never cached,
+ * which keeps the memory footprint fixed.
+ * <p/>
+ * The rejections were made under the current
+ * {@link BbanStructure#getRegistry() registry}; the cache is cleared on the
+ * first lookup after {@link BbanStructure#setRegistry(BbanRegistry)}, so
+ * input the new registry accepts is validated again.
+ * <p/>
+ * Instances are thread safe.
+ */
+public final class IbanRejectionCache {
+
+    static final int MAX_CACHED_LENGTH = 64;
+
+    private static final int STRIPE_COUNT = 16;
+
+    private final Stripe[] stripes;
+    // registry the cached rejections were made under
+    private volatile BbanRegistry registry = BbanStructure.getRegistry();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates rejection cache instance.
+     *
+     * @param maximumSize the maximum number of cached rejections,
+     *                    rounded up to a multiple of the stripe count.
+     * @throws IllegalArgumentException if maximumSize is not positive.
+     */
+    public IbanRejectionCache(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive.");
+        }
+        final int stripeSize = (maximumSize + STRIPE_COUNT - 1) / STRIPE_COUNT;
+        stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * Validates iban, answering repeated invalid input from the cache.
+     *
+     * @param iban to be validated.
+     * @throws IbanFormatException if iban is invalid.
+     *         UnsupportedCountryException if iban's country is not supported.
+     *         InvalidCheckDigitException if iban has invalid check digit.
+     */
+    public void validate(final String iban) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        throwIfRejected(iban);
+        try {
+            IbanUtil.validate(iban);
+        } catch (Iban4jException e) {
+            reject(iban, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns an Iban object holding the value of the specified String,
+     * answering repeated invalid input from the cache.
+     *
+     * @param iban the String to be parsed.
+     * @return an Iban object holding the value represented by the string argument.
+     * @throws IbanFormatException if the String doesn't contain parsable Iban
+     *         InvalidCheckDigitException if Iban has invalid check digit
+     *         UnsupportedCountryException if Iban's Country is not supported.
+     */
+    public Iban valueOf(final String iban) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        throwIfRejected(iban);
+        try {
+            return Iban.valueOf(iban);
+        } catch (Iban4jException e) {
+            reject(iban, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the cached rejection of the specified String.
+     *
+     * @param iban String
+     * @return the cached exception or null if the input is not cached.
+     */
+    public Iban4jException getRejection(final String iban) {
+        clearIfRegistryChanged();
+        if (!isCacheable(iban)) {
+            return null;
+        }
+        final int hash = iban.hashCode();
+        return stripeFor(hash).get(iban, hash, false);
+    }
+
+    /**
+     * Returns the violation of the cached rejection of the specified String,
+     * without throwing or counting a submission.
+     *
+     * @param iban String
+     * @return the format violation of a cached {@link IbanFormatException},
+     *         {@link IbanFormatException.IbanFormatViolation#UNKNOWN} for the
+     *         other cached rejections or null if the input is not cached.
+     */
+    public IbanFormatException.IbanFormatViolation getViolation(final String iban) {
+        final Iban4jException rejection = getRejection(iban);
+        if (rejection == null) {
+            return null;
+        }
+        return rejection instanceof IbanFormatException ?
+                ((IbanFormatException) rejection).getFormatViolation() :
+                IbanFormatException.IbanFormatViolation.UNKNOWN;
+    }
+
+    /**
+     * Returns the cached rejections ordered by the number of times they
+     * were submitted, most frequent first.
+     *
+     * @param limit the maximum number of returned offenders.
+     * @return snapshot of the most frequent offenders.
+     */
+    public List<Offender> getOffenders(final int limit) {
+        final List<Offender> offenders = new ArrayList<Offender>();
+        for (final Stripe stripe : stripes) {
+            stripe.collect(offenders);
+        }
+        Collections.sort(offenders, new Comparator<Offender>() {
+            public int compare(final Offender o1, final Offender o2) {
+                return o1.count < o2.count ? 1 : (o1.count == o2.count ? 0 : -1);
+            }
+        });
+        return offenders.size() > limit ?
+                new ArrayList<Offender>(offenders.subList(0, limit)) : offenders;
+    }
+
+    /**
+     * Removes all cached rejections. Statistics are not reset.
+     */
+    public void clear() {
+        for (final Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * Returns the number of submissions answered from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of submissions which had to be validated.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void throwIfRejected(final String iban) {
+        clearIfRegistryChanged();
+        if (isCacheable(iban)) {
+            final int hash = iban.hashCode();
+            final Iban4jException rejection = stripeFor(hash).get(iban, hash, true);
+            if (rejection != null) {
+                hitCount.incrementAndGet();
+                throw rejection;
+            }
+        }
+        missCount.incrementAndGet();
+    }
+
+    private void clearIfRegistryChanged() {
+        final BbanRegistry current = BbanStructure.getRegistry();
+        if (current != registry) {
+            registry = current;
+            clear();
+        }
+    }
+
+    private void reject(final String iban, final Iban4jException e) {
+        if (isCacheable(iban)) {
+            final int hash = iban.hashCode();
+            // copied outside of the stripe lock
+            stripeFor(hash).put(iban, hash, withoutStackTrace(e));
+        }
+    }
+
+    private static Iban4jException withoutStackTrace(final Iban4jException e) {
+        final Class<?> type = e.getClass();
+        if (type == IbanFormatException.class) {
+            final IbanFormatException formatException = (IbanFormatException) e;
+            // exceptions with an entry type carry no expected value
+            return formatException.getBbanEntryType() != null ?
+                    new CachedFormatException(formatException, formatException.getBbanEntryType()) :
+                    new CachedFormatException(formatException);
+        } else if (type == InvalidCheckDigitException.class) {
+            return new CachedCheckDigitException((InvalidCheckDigitException) e);
+        } else if (type == UnsupportedCountryException.class) {
+            return new CachedUnsupportedCountryException((UnsupportedCountryException) e);
+        }
+        return e;
+    }
+
+    private Stripe stripeFor(final int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    private static boolean isCacheable(final String iban) {
+        return iban != null && iban.length() <= MAX_CACHED_LENGTH;
+    }
+
+    /**
+     * Snapshot of a cached rejection.
+     */
+    public static final class Offender {
+
+        private final String iban;
+        private final Iban4jException rejection;
+        private final long count;
+
+        private Offender(final String iban, final Iban4jException rejection,
+                         final long count) {
+            this.iban = iban;
+            this.rejection = rejection;
+            this.count = count;
+        }
+
+        /**
+         * Returns the rejected input.
+         *
+         * @return iban String
+         */
+        public String getIban() {
+            return iban;
+        }
+
+        /**
+         * Returns an exception with the details recorded for the input.
+         *
+         * @return rejection Iban4jException
+         */
+        public Iban4jException getRejection() {
+            return rejection;
+        }
+
+        /**
+         * Returns how many times the input was submitted while cached.
+         *
+         * @return count long
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return iban + " x" + count + ": " + rejection.getMessage();
+        }
+    }
+
+    /**
+     * Copies of the rejections without stack traces, they are thrown again
+     * and again and filling one in would cost more than the validation.
+     */
+    private static final class CachedFormatException extends IbanFormatException {
+
+        CachedFormatException(final IbanFormatException e) {
+            super(e.getFormatViolation(), e.getActual(), e.getExpected(), e.getMessage());
+        }
+
+        CachedFormatException(final IbanFormatException e, final BbanEntryType entryType) {
+            super(e.getFormatViolation(), entryType, e.getActual(), e.getInvalidCharacter(),
+                    e.getMessage());
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class CachedCheckDigitException extends InvalidCheckDigitException {
+
+        CachedCheckDigitException(final InvalidCheckDigitException e) {
+            super(e.getActual(), e.getExpected(), e.getMessage());
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class CachedUnsupportedCountryException extends UnsupportedCountryException {
+
+        CachedUnsupportedCountryException(final UnsupportedCountryException e) {
+            super(e.getCountryCode(), e.getMessage());
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * A segment of the cache: entries in fixed arrays, found through hash
+     * chains and kept in least recently seen order by a doubly linked list,
+     * both linked by entry index.
+     */
+    private static final class Stripe {
+
+        private static final int NONE = -1;
+
+        private final String[] keys;
+        private final int[] hashes;
+        private final Iban4jException[] rejections;
+        private final long[] counts;
+        // first entry of each hash bucket and next entry in the chain
+        private final int[] buckets;
+        private final int[] chain;
+        // neighbours in the recency list
+        private final int[] newer;
+        private final int[] older;
+        private int newest = NONE;
+        private int oldest = NONE;
+        private int size;
+
+        Stripe(final int capacity) {
+            keys = new String[capacity];
+            hashes = new int[capacity];
+            rejections = new Iban4jException[capacity];
+            counts = new long[capacity];
+            chain = new int[capacity];
+            newer = new int[capacity];
+            older = new int[capacity];
+            int bucketCount = 1;
+            while (bucketCount < capacity) {
+                bucketCount <<= 1;
+            }
+            buckets = new int[bucketCount];
+            Arrays.fill(buckets, NONE);
+        }
+
+        synchronized Iban4jException get(final String iban, final int hash,
+                                         final boolean record) {
+            final int index = indexOf(iban, hash);
+            if (index == NONE) {
+                return null;
+            }
+            if (record) {
+                counts[index]++;
+                moveToNewest(index);
+            }
+            return rejections[index];
+        }
+
+        synchronized void put(final String iban, final int hash,
+                              final Iban4jException rejection) {
+            int index = indexOf(iban, hash);
+            if (index == NONE) {
+                if (size < keys.length) {
+                    index = size++;
+                } else {
+                    index = oldest;
+                    removeFromBucket(index);
+                    unlink(index);
+                }
+                keys[index] = iban;
+                hashes[index] = hash;
+                counts[index] = 0;
+                final int bucket = bucketOf(hash);
+                chain[index] = buckets[bucket];
+                buckets[bucket] = index;
+                linkNewest(index);
+            } else {
+                moveToNewest(index);
+            }
+            rejections[index] = rejection;
+            counts[index]++;
+        }
+
+        synchronized void collect(final List<Offender> offenders) {
+            for (int i = 0; i < size; i++) {
+                offenders.add(new Offender(keys[i], rejections[i], counts[i]));
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(rejections, null);
+            Arrays.fill(buckets, NONE);
+            newest = NONE;
+            oldest = NONE;
+            size = 0;
+        }
+
+        private int indexOf(final String iban, final int hash) {
+            for (int i = buckets[bucketOf(hash)]; i != NONE; i = chain[i]) {
+                if (hashes[i] == hash && keys[i].equals(iban)) {
+                    return i;
+                }
+            }
+            return NONE;
+        }
+
+        private int bucketOf(final int hash) {
+            // the low bits select the stripe
+            return ((hash ^ (hash >>> 16)) >>> 4) & (buckets.length - 1);
+        }
+
+        private void removeFromBucket(final int index) {
+            final int bucket = bucketOf(hashes[index]);
+            if (buckets[bucket] == index) {
+                buckets[bucket] = chain[index];
+                return;
+            }
+            int i = buckets[bucket];
+            while (chain[i] != index) {
+                i = chain[i];
+            }
+            chain[i] = chain[index];
+        }
+
+        private void moveToNewest(final int index) {
+            if (index != newest) {
+                unlink(index);
+                linkNewest(index);
+            }
+        }
+
+        private void linkNewest(final int index) {
+            newer[index] = NONE;
+            older[index] = newest;
+            if (newest != NONE) {
+                newer[newest] = index;
+            }
+            newest = index;
+            if (oldest == NONE) {
+                oldest = index;
+            }
+        }
+
+        private void unlink(final int index) {
+            if (newer[index] != NONE) {
+                older[newer[index]] = older[index];
+            } else {
+                newest = older[index];
+            }
+            if (older[index] != NONE) {
+                newer[older[index]] = newer[index];
+            } else {
+                oldest = newer[index];
+            }
+        }
+    }
+}
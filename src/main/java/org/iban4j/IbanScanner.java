@@ -0,0 +1,358 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds ibans in free text like remittance information, emails or OCR output.
+ * <p/>
+ * The bban structures of all countries are compiled into one deterministic
+ * automaton: a table of states and character classes where the country code
+ * selects the country's chain of states and every following state accepts
+ * the character types of one iban position. Ibans are found in electronic
+ * format and in print format, with a single space (or no-break space)
+ * after every group of 4 characters.
+ * <p/>
+ * A candidate starts with an upper case letter after a non alphanumeric
+ * character, and the character following it must not be alphanumeric. The
+ * mod 97 remainder is computed while the automaton runs, so candidates
+ * are verified in the same pass and rejected ones never become strings.
+ * Each candidate runs at most as many characters as the longest print
+ * format iban, which keeps the scan linear in the text length. National
+ * check digits are not verified, {@link Iban#valueOf(String)} of a match
+ * does the full validation.
+ * <p/>
+ * Scanners are immutable and thread safe.
+ */
+public final class IbanScanner {
+
+    private static final int COUNTRY_CODE_LENGTH = 2;
+    private static final int BBAN_INDEX = 4;
+    private static final int GROUP_LENGTH = 4;
+
+    // character classes: digits, one per upper case letter, lower case letters, separators, others
+    private static final int DIGIT = 0;
+    private static final int FIRST_LETTER = 1;
+    private static final int LOWER_CASE = FIRST_LETTER + 26;
+    private static final int SEPARATOR = LOWER_CASE + 1;
+    private static final int OTHER = SEPARATOR + 1;
+    private static final int CLASSES = OTHER + 1;
+
+    private static final int START = 0;
+    private static final int FAIL = -1;
+
+    // state flags
+    private static final byte BBAN_CHARACTER = 1;
+    private static final byte ACCEPT = 2;
+
+    // next state by state * CLASSES + character class
+    private final int[] transitions;
+    private final byte[] flags;
+
+    /**
+     * Creates a scanner for the current bban structures.
+     *
+     * @see BbanStructure#getRegistry()
+     */
+    public IbanScanner() {
+        this(BbanStructure.getRegistry());
+    }
+
+    /**
+     * Creates a scanner for the bban structures of a registry.
+     *
+     * @param registry BbanRegistry
+     */
+    public IbanScanner(final BbanRegistry registry) {
+        Assert.notNull(registry, "registry can't be null");
+        final Builder builder = new Builder();
+        for (final CountryCode countryCode : CountryCode.values()) {
+            final BbanStructure structure = registry.forCountry(countryCode);
+            if (structure != null) {
+                builder.addCountry(countryCode, structure);
+            }
+        }
+        transitions = new int[builder.states * CLASSES];
+        System.arraycopy(builder.transitions, 0, transitions, 0, transitions.length);
+        flags = new byte[builder.states];
+        System.arraycopy(builder.flags, 0, flags, 0, flags.length);
+    }
+
+    /**
+     * Finds the next iban.
+     *
+     * @param text the text to scan
+     * @param from index to start scanning at
+     * @return the match, null if there are no more ibans.
+     */
+    public Match find(final CharSequence text, final int from) {
+        Assert.notNull(text, "text can't be null");
+        final int length = text.length();
+        for (int start = Math.max(from, 0); start < length; start++) {
+            final char ch = text.charAt(start);
+            if (ch < 'A' || ch > 'Z' || start > 0 && isAlphanumeric(text.charAt(start - 1))) {
+                continue;
+            }
+            final int end = matchAt(text, start);
+            if (end >= 0) {
+                return new Match(text, start, end, CountryCode.getByAlpha2Code(
+                        ch, text.charAt(start + 1)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds all ibans.
+     *
+     * @param text the text to scan
+     * @return matches in text order.
+     */
+    public List<Match> findAll(final CharSequence text) {
+        final List<Match> matches = new ArrayList<Match>();
+        Match match = find(text, 0);
+        while (match != null) {
+            matches.add(match);
+            match = find(text, match.getEnd());
+        }
+        return matches;
+    }
+
+    /**
+     * Runs the automaton from a candidate start.
+     *
+     * @return the end index of the verified iban, -1 if there is none.
+     */
+    private int matchAt(final CharSequence text, final int start) {
+        final int length = text.length();
+        int state = START;
+        int remainder = 0;
+        for (int i = start; i < length; i++) {
+            final char ch = text.charAt(i);
+            state = transitions[state * CLASSES + characterClass(ch)];
+            if (state == FAIL) {
+                return -1;
+            }
+            final byte stateFlags = flags[state];
+            if ((stateFlags & BBAN_CHARACTER) != 0) {
+                remainder = appendRemainder(remainder, ch);
+            }
+            if ((stateFlags & ACCEPT) != 0) {
+                if (i + 1 < length && isAlphanumeric(text.charAt(i + 1))) {
+                    return -1;
+                }
+                // country code and check digit are moved behind the bban
+                for (int j = start; j < start + BBAN_INDEX; j++) {
+                    remainder = appendRemainder(remainder, text.charAt(j));
+                }
+                return remainder == 1 ? i + 1 : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int characterClass(final char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return DIGIT;
+        }
+        if (ch >= 'A' && ch <= 'Z') {
+            return FIRST_LETTER + ch - 'A';
+        }
+        if (ch >= 'a' && ch <= 'z') {
+            return LOWER_CASE;
+        }
+        if (ch == ' ' || ch == '\u00A0') {
+            return SEPARATOR;
+        }
+        return OTHER;
+    }
+
+    private static boolean isAlphanumeric(final char ch) {
+        final int characterClass = characterClass(ch);
+        return characterClass < SEPARATOR;
+    }
+
+    private static int appendRemainder(final int remainder, final char ch) {
+        final int value = Character.digit(ch, Character.MAX_RADIX);
+        return (remainder * (value < 10 ? 10 : 100) + value) % 97;
+    }
+
+    /**
+     * Compiles bban structures into the transition table.
+     */
+    private static final class Builder {
+
+        private int[] transitions = new int[0];
+        private byte[] flags = new byte[0];
+        private int states;
+
+        Builder() {
+            newState();
+            // states 1 to 26 follow the first country code letter
+            for (int letter = 0; letter < 26; letter++) {
+                transitions[START * CLASSES + FIRST_LETTER + letter] = newState();
+            }
+        }
+
+        void addCountry(final CountryCode countryCode, final BbanStructure structure) {
+            final String alpha2 = countryCode.getAlpha2();
+            final int ibanLength = BBAN_INDEX + structure.getBbanLength();
+
+            // state after consuming index characters, and its twin after a group separator
+            final int[] consumed = new int[ibanLength + 1];
+            final int[] separated = new int[ibanLength + 1];
+            for (int index = COUNTRY_CODE_LENGTH; index <= ibanLength; index++) {
+                consumed[index] = newState();
+                if (index >= BBAN_INDEX + 1) {
+                    flags[consumed[index]] |= BBAN_CHARACTER;
+                }
+                if (index % GROUP_LENGTH == 0 && index < ibanLength) {
+                    separated[index] = newState();
+                }
+            }
+            flags[consumed[ibanLength]] |= ACCEPT;
+
+            final int firstLetterState = START + 1 + alpha2.charAt(0) - 'A';
+            transitions[firstLetterState * CLASSES + FIRST_LETTER + alpha2.charAt(1) - 'A'] =
+                    consumed[COUNTRY_CODE_LENGTH];
+            link(consumed, separated, COUNTRY_CODE_LENGTH, DIGIT);
+            link(consumed, separated, COUNTRY_CODE_LENGTH + 1, DIGIT);
+
+            int index = BBAN_INDEX;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                for (int i = 0; i < entry.getLength(); i++, index++) {
+                    switch (entry.getCharacterType()) {
+                        case n:
+                            link(consumed, separated, index, DIGIT);
+                            break;
+                        case a:
+                            linkLetters(consumed, separated, index);
+                            break;
+                        case c:
+                            link(consumed, separated, index, DIGIT);
+                            linkLetters(consumed, separated, index);
+                            link(consumed, separated, index, LOWER_CASE);
+                            break;
+                    }
+                }
+            }
+            for (int i = GROUP_LENGTH; i < ibanLength; i += GROUP_LENGTH) {
+                transitions[consumed[i] * CLASSES + SEPARATOR] = separated[i];
+            }
+        }
+
+        private void linkLetters(final int[] consumed, final int[] separated, final int index) {
+            for (int letter = 0; letter < 26; letter++) {
+                link(consumed, separated, index, FIRST_LETTER + letter);
+            }
+        }
+
+        /**
+         * Links the state after index characters, and its separator twin,
+         * to the state after the next character of the class.
+         */
+        private void link(final int[] consumed, final int[] separated, final int index,
+                          final int characterClass) {
+            transitions[consumed[index] * CLASSES + characterClass] = consumed[index + 1];
+            if (separated[index] != 0) {
+                transitions[separated[index] * CLASSES + characterClass] = consumed[index + 1];
+            }
+        }
+
+        private int newState() {
+            if (states == flags.length) {
+                final int capacity = Math.max(64, states * 2);
+                final int[] grownTransitions = new int[capacity * CLASSES];
+                System.arraycopy(transitions, 0, grownTransitions, 0, transitions.length);
+                Arrays.fill(grownTransitions, transitions.length, grownTransitions.length, FAIL);
+                transitions = grownTransitions;
+                final byte[] grownFlags = new byte[capacity];
+                System.arraycopy(flags, 0, grownFlags, 0, flags.length);
+                flags = grownFlags;
+            }
+            return states++;
+        }
+    }
+
+    /**
+     * An iban found in text.
+     */
+    public static final class Match {
+
+        private final CharSequence text;
+        private final int start;
+        private final int end;
+        private final CountryCode countryCode;
+
+        Match(final CharSequence text, final int start, final int end,
+              final CountryCode countryCode) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.countryCode = countryCode;
+        }
+
+        /**
+         * @return index of the iban's first character in the text.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return index after the iban's last character in the text.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @return the iban's country.
+         */
+        public CountryCode getCountryCode() {
+            return countryCode;
+        }
+
+        /**
+         * Returns the iban in electronic format, without group separators.
+         *
+         * @return iban String
+         */
+        public String getIban() {
+            final StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                final char ch = text.charAt(i);
+                if (characterClass(ch) != SEPARATOR) {
+                    sb.append(ch);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return getIban() + " [" + start + ", " + end + ")";
+        }
+    }
+}
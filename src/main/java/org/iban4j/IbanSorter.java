@@ -0,0 +1,272 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Radix sort for large arrays of ibans and packed keys.
+ * <p/>
+ * Ibans are sorted in their natural order ({@link Iban#compareTo(Iban)})
+ * in O(n&middot;k) time, k being the iban length: each pass packs the next
+ * 10 characters of the order sequence into a key and radix sorts on it,
+ * ibans sharing a key are sorted recursively on the following characters.
+ */
+public final class IbanSorter {
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+    private static final int PASSES = (Long.SIZE + RADIX_BITS - 1) / RADIX_BITS;
+
+    // below this size comparison sort is faster than another radix pass
+    private static final int COMPARISON_SORT_THRESHOLD = 64;
+
+    private static final int MAX_DEPTH = (34 + IbanKeys.CHARS_PER_KEY - 1)
+            / IbanKeys.CHARS_PER_KEY;
+
+    private IbanSorter() {
+    }
+
+    /**
+     * Sorts the specified array of ibans into ascending order.
+     *
+     * @param ibans the array to be sorted.
+     */
+    public static void sort(final Iban[] ibans) {
+        sort(ibans, 0, ibans.length);
+    }
+
+    /**
+     * Sorts the specified range of the array of ibans into ascending order.
+     *
+     * @param ibans the array to be sorted.
+     * @param fromIndex the index of the first element, inclusive.
+     * @param toIndex the index of the last element, exclusive.
+     */
+    public static void sort(final Iban[] ibans, final int fromIndex, final int toIndex) {
+        checkRange(ibans.length, fromIndex, toIndex);
+        final int size = toIndex - fromIndex;
+        if (size < COMPARISON_SORT_THRESHOLD) {
+            Arrays.sort(ibans, fromIndex, toIndex);
+            return;
+        }
+        final IbanRadixSort radixSort = new IbanRadixSort(size);
+        radixSort.sort(ibans, fromIndex, toIndex, 0);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order.
+     *
+     * @param keys the array to be sorted.
+     */
+    public static void sort(final long[] keys) {
+        sort(keys, 0, keys.length);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending numerical order.
+     *
+     * @param keys the array to be sorted.
+     * @param fromIndex the index of the first element, inclusive.
+     * @param toIndex the index of the last element, exclusive.
+     */
+    public static void sort(final long[] keys, final int fromIndex, final int toIndex) {
+        checkRange(keys.length, fromIndex, toIndex);
+        final int size = toIndex - fromIndex;
+        if (size < COMPARISON_SORT_THRESHOLD) {
+            Arrays.sort(keys, fromIndex, toIndex);
+            return;
+        }
+        long[] source = new long[size];
+        long[] target = new long[size];
+        System.arraycopy(keys, fromIndex, source, 0, size);
+
+        final int[] counts = new int[RADIX];
+        for (int pass = 0; pass < PASSES; pass++) {
+            final int shift = pass * RADIX_BITS;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[digit(source[i], shift)]++;
+            }
+            if (!prefixSums(counts, size)) {
+                continue;
+            }
+            for (int i = 0; i < size; i++) {
+                final long key = source[i];
+                target[counts[digit(key, shift)]++] = key;
+            }
+            final long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        System.arraycopy(source, 0, keys, fromIndex, size);
+    }
+
+    /**
+     * Returns the radix digit of a key, flipping the sign bit so that
+     * negative keys sort first.
+     */
+    private static int digit(final long key, final int shift) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK;
+    }
+
+    /**
+     * Turns digit counts into bucket start offsets.
+     *
+     * @return false if all keys fall into the same bucket, so the pass can be skipped.
+     */
+    private static boolean prefixSums(final int[] counts, final int size) {
+        int offset = 0;
+        for (int i = 0; i < RADIX; i++) {
+            final int count = counts[i];
+            if (count == size) {
+                return false;
+            }
+            counts[i] = offset;
+            offset += count;
+        }
+        return true;
+    }
+
+    private static void checkRange(final int length, final int fromIndex, final int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex +
+                    ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > length) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+
+    /**
+     * Most significant chunk first radix sort of ibans, each chunk being
+     * sorted least significant digit first.
+     */
+    private static final class IbanRadixSort {
+
+        private final long[] keys;
+        private final long[] keyBuffer;
+        private final Iban[] ibanBuffer;
+        private final int[] counts = new int[RADIX];
+        // bank code layouts of the current registry, see IbanKeys.layouts
+        private final int[] layouts = IbanKeys.layouts();
+        private final RunComparator runComparator = new RunComparator();
+
+        IbanRadixSort(final int size) {
+            keys = new long[size];
+            keyBuffer = new long[size];
+            ibanBuffer = new Iban[size];
+        }
+
+        void sort(final Iban[] ibans, final int fromIndex, final int toIndex,
+                  final int depth) {
+            final int size = toIndex - fromIndex;
+            for (int i = 0; i < size; i++) {
+                keys[i] = sortKey(ibans[fromIndex + i], depth);
+            }
+
+            long[] sourceKeys = keys;
+            long[] targetKeys = keyBuffer;
+            Iban[] source = ibans;
+            int sourceOffset = fromIndex;
+            Iban[] target = ibanBuffer;
+            int targetOffset = 0;
+            for (int pass = 0; pass < PASSES; pass++) {
+                final int shift = pass * RADIX_BITS;
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < size; i++) {
+                    counts[digit(sourceKeys[i], shift)]++;
+                }
+                if (!prefixSums(counts, size)) {
+                    continue;
+                }
+                for (int i = 0; i < size; i++) {
+                    final long key = sourceKeys[i];
+                    final int index = counts[digit(key, shift)]++;
+                    targetKeys[index] = key;
+                    target[targetOffset + index] = source[sourceOffset + i];
+                }
+                final long[] swapKeys = sourceKeys;
+                sourceKeys = targetKeys;
+                targetKeys = swapKeys;
+                final Iban[] swap = source;
+                final int swapOffset = sourceOffset;
+                source = target;
+                sourceOffset = targetOffset;
+                target = swap;
+                targetOffset = swapOffset;
+            }
+            if (source != ibans) {
+                System.arraycopy(source, sourceOffset, ibans, fromIndex, size);
+            }
+            if (sourceKeys != keys) {
+                System.arraycopy(sourceKeys, 0, keys, 0, size);
+            }
+
+            // sort runs of equal keys on the next characters
+            int runStart = 0;
+            for (int i = 1; i <= size; i++) {
+                if (i == size || keys[i] != keys[runStart]) {
+                    sortRun(ibans, fromIndex + runStart, fromIndex + i, depth);
+                    runStart = i;
+                }
+            }
+        }
+
+        private void sortRun(final Iban[] ibans, final int fromIndex, final int toIndex,
+                             final int depth) {
+            final int size = toIndex - fromIndex;
+            if (size < 2) {
+                return;
+            }
+            if (size < COMPARISON_SORT_THRESHOLD || depth + 1 >= MAX_DEPTH) {
+                runComparator.layout = layoutOf(ibans[fromIndex].toString());
+                runComparator.from = (depth + 1) * IbanKeys.CHARS_PER_KEY;
+                Arrays.sort(ibans, fromIndex, toIndex, runComparator);
+                return;
+            }
+            // overwrites the start of keys, which the caller has already scanned past
+            sort(ibans, fromIndex, toIndex, depth + 1);
+        }
+
+        private long sortKey(final Iban iban, final int depth) {
+            final String value = iban.toString();
+            return IbanKeys.sortKey(value, layoutOf(value), depth);
+        }
+
+        private int layoutOf(final String iban) {
+            return layouts[(iban.charAt(0) - 'A') * 26 + iban.charAt(1) - 'A'];
+        }
+    }
+
+    /**
+     * Compares ibans of a run which share the leading characters.
+     */
+    private static final class RunComparator implements Comparator<Iban> {
+
+        private int layout;
+        private int from;
+
+        public int compare(final Iban iban1, final Iban iban2) {
+            return IbanKeys.compare(iban1.toString(), iban2.toString(), layout, from);
+        }
+    }
+}
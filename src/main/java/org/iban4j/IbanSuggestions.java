@@ -0,0 +1,338 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Suggests corrections for mistyped ibans: the valid ibans one typo away,
+ * a substituted character or two swapped neighbouring characters.
+ * <p/>
+ * The country code is taken as typed. Every candidate has to match the
+ * character types of the bban structure and is checked against modulo 97
+ * in constant time: the remainders of all prefixes and suffixes of the
+ * rearranged iban are computed once, a candidate only combines them with
+ * its changed characters. The few candidates passing modulo 97 are
+ * validated completely, including national check digits.
+ * <p/>
+ * Suggestions are ranked by how likely the typo is: changed letter case,
+ * swapped characters and look-alike characters (0 and O, 1 and I, ...)
+ * come first, neighbouring digits next, other substitutions last.
+ */
+public final class IbanSuggestions {
+
+    /**
+     * The number of suggestions of {@link #suggest(String)}.
+     */
+    public static final int DEFAULT_MAX_SUGGESTIONS = 10;
+
+    private static final int MOD = 97;
+    private static final int CHECK_DIGIT_INDEX = 2;
+    private static final int BBAN_INDEX = 4;
+    private static final int[] POWERS_OF_TEN = new int[2 * 34 + 3];
+    private static final String[] LOOK_ALIKES = { "0O", "0D", "1I", "1L", "2Z", "5S", "6G", "8B" };
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10 % MOD;
+        }
+    }
+
+    private IbanSuggestions() {
+    }
+
+    /**
+     * Returns up to {@link #DEFAULT_MAX_SUGGESTIONS} corrections of an iban.
+     *
+     * @param iban the mistyped iban
+     * @return valid ibans one typo away, most likely first. Empty if the
+     *         country code is not supported or the length doesn't match.
+     */
+    public static List<Iban> suggest(final String iban) {
+        return suggest(iban, DEFAULT_MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Returns corrections of an iban.
+     *
+     * @param iban the mistyped iban
+     * @param maxSuggestions maximum number of suggestions
+     * @return valid ibans one typo away, most likely first. Empty if the
+     *         country code is not supported or the length doesn't match.
+     */
+    public static List<Iban> suggest(final String iban, final int maxSuggestions) {
+        Assert.notNull(iban, "iban can't be null");
+        final char[] types = characterTypes(iban);
+        if (types == null) {
+            return Collections.emptyList();
+        }
+        final Remainders remainders = new Remainders(iban, types);
+        if (remainders.invalidCount > 2) {
+            return Collections.emptyList();
+        }
+
+        final List<Candidate> candidates = new ArrayList<Candidate>();
+        final int length = iban.length();
+        for (int i = CHECK_DIGIT_INDEX; i < length; i++) {
+            if (!remainders.coversInvalid(i, i)) {
+                continue;
+            }
+            final char current = iban.charAt(i);
+            for (char ch = '0'; ch <= 'Z'; ch = ch == '9' ? 'A' : (char) (ch + 1)) {
+                if (ch != current && isValidCharacter(types[i], ch) &&
+                        remainders.withCharacter(i, ch) == 1) {
+                    candidates.add(new Candidate(i, i, ch, substitutionRank(current, ch)));
+                }
+            }
+        }
+        for (int i = CHECK_DIGIT_INDEX; i < length - 1; i++) {
+            final char first = iban.charAt(i);
+            final char second = iban.charAt(i + 1);
+            if (first != second && remainders.coversInvalid(i, i + 1) &&
+                    isValidCharacter(types[i], second) && isValidCharacter(types[i + 1], first) &&
+                    remainders.withCharacters(i, second, i + 1, first) == 1) {
+                candidates.add(new Candidate(i, i + 1, second, 1));
+            }
+        }
+        Collections.sort(candidates);
+
+        final List<Iban> suggestions = new ArrayList<Iban>();
+        for (final Candidate candidate : candidates) {
+            if (suggestions.size() >= maxSuggestions) {
+                break;
+            }
+            final String corrected = candidate.apply(iban);
+            try {
+                IbanUtil.validate(corrected);
+                suggestions.add(new Iban(corrected));
+            } catch (Iban4jException e) {
+                // fails the national check digits or a country validator
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns the character type by iban index, 'n', 'a' or 'c' and 0 for the
+     * country code, or null if the iban's country or length isn't supported.
+     */
+    private static char[] characterTypes(final String iban) {
+        if (iban.length() <= BBAN_INDEX) {
+            return null;
+        }
+        final CountryCode countryCode = CountryCode.getByAlpha2Code(iban.charAt(0), iban.charAt(1));
+        final BbanStructure structure = BbanStructure.forCountry(countryCode);
+        if (structure == null || iban.length() != BBAN_INDEX + structure.getBbanLength()) {
+            return null;
+        }
+        final char[] types = new char[iban.length()];
+        types[CHECK_DIGIT_INDEX] = 'n';
+        types[CHECK_DIGIT_INDEX + 1] = 'n';
+        int index = BBAN_INDEX;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            final char type = entry.getCharacterType().name().charAt(0);
+            for (int i = 0; i < entry.getLength(); i++) {
+                types[index++] = type;
+            }
+        }
+        return types;
+    }
+
+    private static boolean isValidCharacter(final char type, final char ch) {
+        final boolean digit = ch >= '0' && ch <= '9';
+        switch (type) {
+            case 'n':
+                return digit;
+            case 'a':
+                return ch >= 'A' && ch <= 'Z';
+            case 'c':
+                return digit || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z';
+            default:
+                return false;
+        }
+    }
+
+    private static int substitutionRank(final char current, final char replacement) {
+        if (Character.toUpperCase(current) == replacement) {
+            return 0;
+        }
+        final char typed = Character.toUpperCase(current);
+        for (final String lookAlike : LOOK_ALIKES) {
+            if (lookAlike.indexOf(typed) >= 0 && lookAlike.indexOf(replacement) >= 0) {
+                return 1;
+            }
+        }
+        if (typed >= '0' && typed <= '9' && replacement <= '9' && Math.abs(typed - replacement) == 1) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Remainders modulo 97 of the prefixes and suffixes of the rearranged
+     * iban: bban, country code, check digit.
+     */
+    private static final class Remainders {
+
+        private final int length;
+        // by rearranged index k, over the characters before k
+        private final int[] prefixRemainders;
+        private final int[] prefixDigits;
+        // by rearranged index k, over the characters from k on
+        private final int[] suffixRemainders;
+        private final int[] suffixDigits;
+        // iban indexes of characters not matching their type
+        private final int[] invalid = new int[2];
+        private int invalidCount;
+
+        Remainders(final String iban, final char[] types) {
+            length = iban.length();
+            prefixRemainders = new int[length + 1];
+            prefixDigits = new int[length + 1];
+            suffixRemainders = new int[length + 1];
+            suffixDigits = new int[length + 1];
+            final int[] values = new int[length];
+            for (int i = 0; i < length; i++) {
+                final char ch = iban.charAt(i);
+                final int value = Character.digit(ch, Character.MAX_RADIX);
+                final boolean valid = i < CHECK_DIGIT_INDEX ? value >= 10 : isValidCharacter(types[i], ch);
+                if (!valid) {
+                    if (invalidCount < invalid.length) {
+                        invalid[invalidCount] = i;
+                    }
+                    invalidCount++;
+                }
+                // invalid characters are always replaced, their value doesn't matter
+                values[rearranged(i)] = valid ? value : 0;
+            }
+            for (int k = 0; k < length; k++) {
+                final int digits = digits(values[k]);
+                prefixRemainders[k + 1] = (prefixRemainders[k] * POWERS_OF_TEN[digits] + values[k]) % MOD;
+                prefixDigits[k + 1] = prefixDigits[k] + digits;
+            }
+            for (int k = length - 1; k >= 0; k--) {
+                suffixRemainders[k] = (values[k] * POWERS_OF_TEN[suffixDigits[k + 1]] +
+                        suffixRemainders[k + 1]) % MOD;
+                suffixDigits[k] = suffixDigits[k + 1] + digits(values[k]);
+            }
+        }
+
+        /**
+         * Checks whether changing the iban indexes from and to fixes all
+         * characters not matching their type.
+         */
+        boolean coversInvalid(final int from, final int to) {
+            for (int i = 0; i < invalidCount; i++) {
+                if (invalid[i] != from && invalid[i] != to) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the remainder of the iban with one replaced character.
+         */
+        int withCharacter(final int index, final char ch) {
+            final int k = rearranged(index);
+            final int value = Character.digit(ch, Character.MAX_RADIX);
+            final int tail = suffixDigits[k + 1];
+            return (prefixRemainders[k] * POWERS_OF_TEN[digits(value) + tail] +
+                    value * POWERS_OF_TEN[tail] + suffixRemainders[k + 1]) % MOD;
+        }
+
+        /**
+         * Returns the remainder of the iban with two replaced characters.
+         */
+        int withCharacters(final int firstIndex, final char first, final int secondIndex,
+                           final char second) {
+            int j = rearranged(firstIndex);
+            int k = rearranged(secondIndex);
+            int jValue = Character.digit(first, Character.MAX_RADIX);
+            int kValue = Character.digit(second, Character.MAX_RADIX);
+            if (j > k) {
+                final int index = j;
+                j = k;
+                k = index;
+                final int value = jValue;
+                jValue = kValue;
+                kValue = value;
+            }
+            final int middleDigits = prefixDigits[k] - prefixDigits[j + 1];
+            final int middle = (prefixRemainders[k] - prefixRemainders[j + 1] *
+                    POWERS_OF_TEN[middleDigits] % MOD + MOD) % MOD;
+            int remainder = (prefixRemainders[j] * POWERS_OF_TEN[digits(jValue)] + jValue) % MOD;
+            remainder = (remainder * POWERS_OF_TEN[middleDigits] + middle) % MOD;
+            remainder = (remainder * POWERS_OF_TEN[digits(kValue)] + kValue) % MOD;
+            return (remainder * POWERS_OF_TEN[suffixDigits[k + 1]] + suffixRemainders[k + 1]) % MOD;
+        }
+
+        private int rearranged(final int index) {
+            return index >= BBAN_INDEX ? index - BBAN_INDEX : length - BBAN_INDEX + index;
+        }
+
+        private static int digits(final int value) {
+            return value < 10 ? 1 : 2;
+        }
+    }
+
+    /**
+     * A correction: the characters from and to are swapped, or the character
+     * at from = to is replaced.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        private final int from;
+        private final int to;
+        private final char replacement;
+        private final int rank;
+
+        Candidate(final int from, final int to, final char replacement, final int rank) {
+            this.from = from;
+            this.to = to;
+            this.replacement = replacement;
+            this.rank = rank;
+        }
+
+        String apply(final String iban) {
+            final char[] chars = iban.toCharArray();
+            if (from == to) {
+                chars[from] = replacement;
+            } else {
+                chars[to] = chars[from];
+                chars[from] = replacement;
+            }
+            return new String(chars);
+        }
+
+        public int compareTo(final Candidate other) {
+            if (rank != other.rank) {
+                return rank < other.rank ? -1 : 1;
+            }
+            if (from != other.from) {
+                return from < other.from ? -1 : 1;
+            }
+            return replacement < other.replacement ? -1 : replacement == other.replacement ? 0 : 1;
+        }
+    }
+}
@@ -16,8 +16,10 @@
 package org.iban4j;
 
 import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
 import org.iban4j.bban.BbanStructure;
 import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
 
 import static org.iban4j.IbanFormatException.IbanFormatViolation.*;
 /**
@@ -34,6 +36,26 @@ public final class IbanUtil {
     private static final int CHECK_DIGIT_LENGTH = 2;
     private static final int BBAN_INDEX = CHECK_DIGIT_INDEX + CHECK_DIGIT_LENGTH;
 
+    // 10^6 mod 97, shifts a bban remainder past the "CC00" tail
+    private static final int TAIL_SHIFT = 1000000 % MOD;
+    // remainder of the "CC00" tail by country code ordinal
+    private static final int[] TAIL_REMAINDERS;
+
+    static {
+        final CountryCode[] countryCodes = CountryCode.values();
+        TAIL_REMAINDERS = new int[countryCodes.length];
+        for (final CountryCode countryCode : countryCodes) {
+            final String alpha2 = countryCode.getAlpha2();
+            TAIL_REMAINDERS[countryCode.ordinal()] = (characterValue(alpha2.charAt(0)) * 10000 +
+                    characterValue(alpha2.charAt(1)) * 100) % MOD;
+        }
+    }
+
+    private static final String IBAN_PREFIX = "IBAN";
+
+    // null if the build didn't generate the validators
+    private static final GeneratedBbanValidator GENERATED_VALIDATOR = loadGeneratedValidator();
+
     private static final String ASSERT_UPPER_LETTERS = "[%s] must contain only upper case letters.";
     private static final String ASSERT_DIGITS_AND_LETTERS = "[%s] must contain only digits or letters.";
     private static final String ASSERT_DIGITS = "[%s] must contain only digits.";
@@ -49,12 +71,69 @@ public final class IbanUtil {
      * @return check digit as String
      */
     public static String calculateCheckDigit(final String iban) {
-        final String reformattedIban = replaceCheckDigit(iban,
-                Iban.DEFAULT_CHECK_DIGIT);
-        final int modResult = calculateMod(reformattedIban);
+        final int modResult = calculateMod(iban);
         final int checkDigitIntValue = (98 - modResult);
-        final String checkDigit = Integer.toString(checkDigitIntValue);
-        return checkDigitIntValue > 9 ? checkDigit : "0" + checkDigit;
+        return formatCheckDigit(checkDigitIntValue);
+    }
+
+    /**
+     * Calculates the check digits of many bbans at once. The bbans are slices
+     * of one buffer, bban i runs from {@code bbanOffsets[i]} to
+     * {@code bbanOffsets[i + 1]}. Its two check digits are written to
+     * {@code checkDigits[checkDigitsOffset + 2 * i]}.
+     * <p/>
+     * Bbans are not validated against the structure of their country, only
+     * their characters have to be digits or letters.
+     *
+     * @param countryCodes country code of each bban
+     * @param bbans buffer holding the bbans
+     * @param bbanOffsets count + 1 offsets into the buffer
+     * @param count number of bbans
+     * @param checkDigits destination of the check digits
+     * @param checkDigitsOffset index of the first check digit
+     * @throws IllegalArgumentException if a country code is null or a bban
+     *         contains other characters than digits and letters.
+     */
+    public static void calculateCheckDigits(final CountryCode[] countryCodes, final char[] bbans,
+                                            final int[] bbanOffsets, final int count,
+                                            final char[] checkDigits, final int checkDigitsOffset) {
+        for (int i = 0; i < count; i++) {
+            long total = 0;
+            for (int j = bbanOffsets[i]; j < bbanOffsets[i + 1]; j++) {
+                total = addAsciiCharacter(total, bbans[j], j);
+            }
+            final int checkDigit = 98 - tailRemainder(countryCodes[i], total);
+            checkDigits[checkDigitsOffset + 2 * i] = (char) ('0' + checkDigit / 10);
+            checkDigits[checkDigitsOffset + 2 * i + 1] = (char) ('0' + checkDigit % 10);
+        }
+    }
+
+    /**
+     * Calculates the check digits of many ascii encoded bbans at once, see
+     * {@link #calculateCheckDigits(CountryCode[], char[], int[], int, char[], int)}.
+     * The check digits are written as ascii characters.
+     *
+     * @param countryCodes country code of each bban
+     * @param bbans buffer holding the bbans
+     * @param bbanOffsets count + 1 offsets into the buffer
+     * @param count number of bbans
+     * @param checkDigits destination of the check digits
+     * @param checkDigitsOffset index of the first check digit
+     * @throws IllegalArgumentException if a country code is null or a bban
+     *         contains other characters than digits and letters.
+     */
+    public static void calculateCheckDigits(final CountryCode[] countryCodes, final byte[] bbans,
+                                            final int[] bbanOffsets, final int count,
+                                            final byte[] checkDigits, final int checkDigitsOffset) {
+        for (int i = 0; i < count; i++) {
+            long total = 0;
+            for (int j = bbanOffsets[i]; j < bbanOffsets[i + 1]; j++) {
+                total = addAsciiCharacter(total, (char) (bbans[j] & 0xFF), j);
+            }
+            final int checkDigit = 98 - tailRemainder(countryCodes[i], total);
+            checkDigits[checkDigitsOffset + 2 * i] = (byte) ('0' + checkDigit / 10);
+            checkDigits[checkDigitsOffset + 2 * i + 1] = (byte) ('0' + checkDigit % 10);
+        }
     }
 
     /**
@@ -67,17 +146,59 @@ public final class IbanUtil {
      */
     public static void validate(final String iban) throws IbanFormatException,
             InvalidCheckDigitException, UnsupportedCountryException {
+        validate((CharSequence) iban);
+    }
+
+    /**
+     * Validates iban held by any character sequence. No intermediate strings
+     * are created unless the iban is invalid.
+     *
+     * @param iban to be validated.
+     * @return the bban structure of the iban's country.
+     * @throws IbanFormatException if iban is invalid.
+     *         UnsupportedCountryException if iban's country is not supported.
+     *         InvalidCheckDigitException if iban has invalid check digit.
+     */
+    static BbanStructure validate(final CharSequence iban) throws IbanFormatException,
+            InvalidCheckDigitException, UnsupportedCountryException {
+        // provider configuration errors are not iban format violations
+        final CountryValidator[][] countryValidators = CountryValidators.get();
         try {
             validateEmpty(iban);
-            validateCountryCode(iban);
+            final CountryCode countryCode = validateCountryCode(iban);
+            final BbanStructure structure = validateSupportedCountry(countryCode);
             validateCheckDigitPresence(iban);
 
-            final BbanStructure structure = getBbanStructure(iban);
-
-            validateBbanLength(iban, structure);
-            validateBbanEntries(iban, structure);
+            validateBban(iban, countryCode, structure);
 
             validateCheckDigit(iban);
+            validateNationalCheckDigit(iban, countryCode, structure);
+
+            validateCountry(iban, structure, countryValidators[countryCode.ordinal()]);
+            return structure;
+        } catch (Iban4jException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IbanFormatException(UNKNOWN, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the checks which follow the structure and check digit validation,
+     * for ibans assembled from values already checked against the structure.
+     *
+     * @param iban the assembled iban.
+     * @param countryCode the iban's country.
+     * @param structure the bban structure the iban was assembled with.
+     * @throws IbanFormatException if a national check digit or a country
+     *         validator rejects the iban.
+     */
+    static void validateAssembled(final CharSequence iban, final CountryCode countryCode,
+                                  final BbanStructure structure) throws IbanFormatException {
+        final CountryValidator[][] countryValidators = CountryValidators.get();
+        try {
+            validateNationalCheckDigit(iban, countryCode, structure);
+            validateCountry(iban, structure, countryValidators[countryCode.ordinal()]);
         } catch (Iban4jException e) {
             throw e;
         } catch (RuntimeException e) {
@@ -219,6 +340,45 @@ public final class IbanUtil {
         return extractBbanEntry(iban, BbanEntryType.identification_number);
     }
 
+    /**
+     * Checks whether the character separates the groups of user entered
+     * ibans: white space including non-breaking spaces or a hyphen.
+     *
+     * @param ch char
+     * @return true if the character is skipped by normalization.
+     */
+    static boolean isSeparator(final char ch) {
+        return ch == '-' || Character.isWhitespace(ch) || Character.isSpaceChar(ch);
+    }
+
+    /**
+     * Skips leading separators and an "IBAN" or "IBAN:" prefix of any case
+     * of user entered ibans.
+     *
+     * @param input CharSequence
+     * @return index of the first character after the prefix.
+     */
+    static int skipPrefix(final CharSequence input) {
+        final int length = input.length();
+        int index = 0;
+        while (index < length && isSeparator(input.charAt(index))) {
+            index++;
+        }
+        if (length - index < IBAN_PREFIX.length()) {
+            return index;
+        }
+        for (int i = 0; i < IBAN_PREFIX.length(); i++) {
+            if (Character.toUpperCase(input.charAt(index + i)) != IBAN_PREFIX.charAt(i)) {
+                return index;
+            }
+        }
+        index += IBAN_PREFIX.length();
+        if (index < length && input.charAt(index) == ':') {
+            index++;
+        }
+        return index;
+    }
+
     static String calculateCheckDigit(final Iban iban) {
         return calculateCheckDigit(iban.toString());
     }
@@ -235,9 +395,16 @@ public final class IbanUtil {
 
 
 
-    private static void validateCheckDigit(final String iban) {
-        String checkDigit = getCheckDigit(iban);
-        String expectedCheckDigit = calculateCheckDigit(iban);
+    private static void validateCheckDigit(final CharSequence iban) {
+        final int expected = 98 - calculateMod(iban);
+        final int actual = digitValue(iban.charAt(CHECK_DIGIT_INDEX)) * 10 +
+                digitValue(iban.charAt(CHECK_DIGIT_INDEX + 1));
+        if (actual == expected) {
+            return;
+        }
+        final String checkDigit = iban.subSequence(CHECK_DIGIT_INDEX,
+                CHECK_DIGIT_INDEX + CHECK_DIGIT_LENGTH).toString();
+        final String expectedCheckDigit = formatCheckDigit(expected);
         if (!checkDigit.equals(expectedCheckDigit)) {
             throw new InvalidCheckDigitException(
                     checkDigit, expectedCheckDigit,
@@ -246,7 +413,27 @@ public final class IbanUtil {
         }
     }
 
-    private static void validateEmpty(final String iban) {
+    private static void validateNationalCheckDigit(final CharSequence iban,
+                                                   final CountryCode countryCode,
+                                                   final BbanStructure structure) {
+        // loaded registries don't describe national check digits
+        if (BbanRegistry.defaults().forCountry(countryCode) != structure) {
+            return;
+        }
+        final NationalCheckDigits.Rule rule = NationalCheckDigits.findViolation(countryCode, iban);
+        if (rule == null) {
+            return;
+        }
+        final String checkDigit = iban.subSequence(rule.getCheckIndex(),
+                rule.getCheckIndex() + rule.getCheckLength()).toString();
+        final String expectedCheckDigit = rule.expected(iban);
+        throw new IbanFormatException(NATIONAL_CHECK_DIGIT, checkDigit, expectedCheckDigit,
+                "[" + iban + "] has invalid national check digit: " + checkDigit +
+                (expectedCheckDigit == null ? ", no valid national check digit exists."
+                        : ", expected national check digit is: " + expectedCheckDigit));
+    }
+
+    private static void validateEmpty(final CharSequence iban) {
         if(iban == null) {
             throw new IbanFormatException(IBAN_NOT_NULL,
                     "Null can't be a valid Iban.");
@@ -258,61 +445,110 @@ public final class IbanUtil {
         }
     }
 
-    private static void validateCountryCode(final String iban) {
+    private static CountryCode validateCountryCode(final CharSequence iban) {
         // check if iban contains 2 char country code
         if(iban.length() < COUNTRY_CODE_LENGTH) {
-            throw new IbanFormatException(COUNTRY_CODE_TWO_LETTERS, iban,
+            throw new IbanFormatException(COUNTRY_CODE_TWO_LETTERS, iban.toString(),
                     "Iban must contain 2 char country code.");
         }
 
-        final String countryCode = getCountryCode(iban);
+        CountryCode countryCode = CountryCode.getByAlpha2Code(
+                iban.charAt(COUNTRY_CODE_INDEX), iban.charAt(COUNTRY_CODE_INDEX + 1));
 
-        // check case sensitivity
-        if(!countryCode.equals(countryCode.toUpperCase()) ||
-            !Character.isLetter(countryCode.charAt(0)) ||
-            !Character.isLetter(countryCode.charAt(1))) {
-            throw new IbanFormatException(COUNTRY_CODE_UPPER_CASE_LETTERS, countryCode,
-                    "Iban country code must contain upper case letters.");
-        }
+        if (countryCode == null) {
+            final String code = iban.subSequence(COUNTRY_CODE_INDEX,
+                    COUNTRY_CODE_INDEX + COUNTRY_CODE_LENGTH).toString();
+
+            // check case sensitivity
+            if(!code.equals(code.toUpperCase()) ||
+                !Character.isLetter(code.charAt(0)) ||
+                !Character.isLetter(code.charAt(1))) {
+                throw new IbanFormatException(COUNTRY_CODE_UPPER_CASE_LETTERS, code,
+                        "Iban country code must contain upper case letters.");
+            }
 
-        if(CountryCode.getByCode(countryCode) == null) {
-            throw new IbanFormatException(COUNTRY_CODE_EXISTS, countryCode,
-                    "Iban contains non existing country code.");
+            countryCode = CountryCode.getByCode(code);
+            if(countryCode == null) {
+                throw new IbanFormatException(COUNTRY_CODE_EXISTS, code,
+                        "Iban contains non existing country code.");
+            }
         }
+        return countryCode;
+    }
 
+    private static BbanStructure validateSupportedCountry(final CountryCode countryCode) {
         // check if country is supported
-        final BbanStructure structure = BbanStructure.forCountry(
-                CountryCode.getByCode(countryCode));
+        final BbanStructure structure = BbanStructure.forCountry(countryCode);
         if (structure == null) {
-            throw new UnsupportedCountryException(countryCode,
+            throw new UnsupportedCountryException(countryCode.getAlpha2(),
                     "Country code is not supported.");
         }
+        return structure;
     }
 
-    private static void validateCheckDigitPresence(final String iban) {
+    private static void validateCheckDigitPresence(final CharSequence iban) {
         // check if iban contains 2 digit check digit
         if(iban.length() < COUNTRY_CODE_LENGTH + CHECK_DIGIT_LENGTH) {
             throw new IbanFormatException(CHECK_DIGIT_TWO_DIGITS,
-                    iban.substring(COUNTRY_CODE_LENGTH),
+                    iban.subSequence(COUNTRY_CODE_LENGTH, iban.length()).toString(),
                     "Iban must contain 2 digit check digit.");
         }
 
-        final String checkDigit = getCheckDigit(iban);
-
         // check digits
-        if(!Character.isDigit(checkDigit.charAt(0)) ||
-           !Character.isDigit(checkDigit.charAt(1))) {
+        if(!Character.isDigit(iban.charAt(CHECK_DIGIT_INDEX)) ||
+           !Character.isDigit(iban.charAt(CHECK_DIGIT_INDEX + 1))) {
+            final String checkDigit = iban.subSequence(CHECK_DIGIT_INDEX,
+                    CHECK_DIGIT_INDEX + CHECK_DIGIT_LENGTH).toString();
             throw new IbanFormatException(CHECK_DIGIT_ONLY_DIGITS, checkDigit,
                     "Iban's check digit should contain only digits.");
         }
     }
 
-    private static void validateBbanLength(final String iban,
+    private static void validateBban(final CharSequence iban, final CountryCode countryCode,
+                                     final BbanStructure structure) {
+        // built in structures have generated validators if the build generated
+        // them, other structures specialize their own; the checks below report
+        // violations
+        if (GENERATED_VALIDATOR != null &&
+                BbanRegistry.defaults().forCountry(countryCode) == structure) {
+            if (GENERATED_VALIDATOR.accepts(countryCode.ordinal(), iban)) {
+                return;
+            }
+        } else if (structure.matches(iban)) {
+            return;
+        }
+        validateBbanLength(iban, structure);
+        validateBbanEntries(iban, structure);
+    }
+
+    private static GeneratedBbanValidator loadGeneratedValidator() {
+        try {
+            return (GeneratedBbanValidator) Class.forName("org.iban4j.BbanValidators").newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InstantiationException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static void validateCountry(final CharSequence iban, final BbanStructure structure,
+                                        final CountryValidator[] validators) {
+        // null for countries without plugged in validators
+        if (validators != null) {
+            for (final CountryValidator validator : validators) {
+                validator.validate(iban, structure);
+            }
+        }
+    }
+
+    private static void validateBbanLength(final CharSequence iban,
                                            final BbanStructure structure) {
         final int expectedBbanLength = structure.getBbanLength();
-        final String bban = getBban(iban);
-        final int bbanLength = bban.length();
+        final int bbanLength = iban.length() - BBAN_INDEX;
         if (expectedBbanLength != bbanLength) {
+            final String bban = iban.subSequence(BBAN_INDEX, iban.length()).toString();
             throw new IbanFormatException(BBAN_LENGTH,
                     bbanLength, expectedBbanLength,
                     "[" + bban + "] length is " + bbanLength +
@@ -320,20 +556,33 @@ public final class IbanUtil {
         }
     }
 
-    private static void validateBbanEntries(final String iban,
+    private static void validateBbanEntries(final CharSequence iban,
                                             final BbanStructure structure) {
-        final String bban = getBban(iban);
-        // FIXME duplicate code
-        int bbanEntryOffset = 0;
+        int bbanEntryOffset = BBAN_INDEX;
         for(final BbanStructureEntry entry : structure.getEntries()) {
             final int entryLength = entry.getLength();
-            final String entryValue = bban.substring(bbanEntryOffset,
-                    bbanEntryOffset + entryLength);
-
+            for (int i = bbanEntryOffset; i < bbanEntryOffset + entryLength; i++) {
+                if (!isValidCharacter(entry.getCharacterType(), iban.charAt(i))) {
+                    // validate character type
+                    validateBbanEntryCharacterType(entry, iban.subSequence(
+                            bbanEntryOffset, bbanEntryOffset + entryLength).toString());
+                }
+            }
             bbanEntryOffset = bbanEntryOffset + entryLength;
+        }
+    }
 
-            // validate character type
-            validateBbanEntryCharacterType(entry, entryValue);
+    private static boolean isValidCharacter(final BbanStructureEntry.EntryCharacterType characterType,
+                                            final char ch) {
+        switch (characterType) {
+            case a:
+                return Character.isUpperCase(ch);
+            case c:
+                return Character.isLetterOrDigit(ch);
+            case n:
+                return Character.isDigit(ch);
+            default:
+                return false;
         }
     }
 
@@ -372,28 +621,80 @@ public final class IbanUtil {
 
     /**
      * Calculates
-     * <a href="http://en.wikipedia.org/wiki/ISO_13616#Modulo_operation_on_IBAN">Iban Modulo</a>.
+     * <a href="http://en.wikipedia.org/wiki/ISO_13616#Modulo_operation_on_IBAN">Iban Modulo</a>
+     * with the check digit taken as "00".
      *
-     * @param iban String value
+     * @param iban value
      * @return modulo 97
      */
-    private static int calculateMod(final String iban) {
-        final String reformattedIban = getBban(iban) + getCountryCodeAndCheckDigit(iban);
+    private static int calculateMod(final CharSequence iban) {
+        final int length = iban.length();
+        final int bbanLength = length - BBAN_INDEX;
         long total = 0;
-        for (int i = 0; i < reformattedIban.length(); i++) {
-            final int numericValue = Character.getNumericValue(reformattedIban.charAt(i));
-            if (numericValue < 0 || numericValue > 35) {
-                // FIXME IAE
-                throw new IllegalArgumentException("Invalid Character[" + i + "] = '" + numericValue + "'");
-            }
-            total = (numericValue > 9 ? total * 100 : total * 10) + numericValue;
+        // rearranged iban: bban, country code, check digit
+        for (int i = BBAN_INDEX; i < length; i++) {
+            total = addCharacter(total, iban.charAt(i), i - BBAN_INDEX);
+        }
+        for (int i = COUNTRY_CODE_INDEX; i < COUNTRY_CODE_LENGTH; i++) {
+            total = addCharacter(total, iban.charAt(i), bbanLength + i);
+        }
+        return (int) (total * 100 % MOD);
+    }
 
-            if (total > MAX) {
-                total = (total % MOD);
-            }
+    /**
+     * Appends the "CC00" tail of the country to a bban total.
+     *
+     * @return modulo 97 of the rearranged iban
+     */
+    private static int tailRemainder(final CountryCode countryCode, final long bbanTotal) {
+        Assert.notNull(countryCode, "countryCode can't be null");
+        return (int) ((bbanTotal % MOD * TAIL_SHIFT + TAIL_REMAINDERS[countryCode.ordinal()]) % MOD);
+    }
+
+    /**
+     * Returns the value of an ascii digit or letter, -1 for other characters.
+     */
+    private static int characterValue(final char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return ch - '0';
+        } else if (ch >= 'A' && ch <= 'Z') {
+            return ch - 'A' + 10;
+        } else if (ch >= 'a' && ch <= 'z') {
+            return ch - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static long addAsciiCharacter(final long total, final char ch, final int index) {
+        final int value = characterValue(ch);
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid Character[" + index + "] = '" + ch + "'");
+        }
+        final long result = (value > 9 ? total * 100 : total * 10) + value;
+        return result > MAX ? result % MOD : result;
+    }
 
+    private static long addCharacter(final long total, final char ch, final int index) {
+        final int numericValue = Character.getNumericValue(ch);
+        if (numericValue < 0 || numericValue > 35) {
+            // FIXME IAE
+            throw new IllegalArgumentException("Invalid Character[" + index + "] = '" + numericValue + "'");
         }
-        return (int) (total % MOD);
+        final long result = (numericValue > 9 ? total * 100 : total * 10) + numericValue;
+        return result > MAX ? result % MOD : result;
+    }
+
+    /**
+     * Returns the value of an ascii digit, or a value which can't make
+     * up a valid check digit for any other character.
+     */
+    private static int digitValue(final char ch) {
+        return ch >= '0' && ch <= '9' ? ch - '0' : 1000;
+    }
+
+    private static String formatCheckDigit(final int checkDigitIntValue) {
+        final String checkDigit = Integer.toString(checkDigitIntValue);
+        return checkDigitIntValue > 9 ? checkDigit : "0" + checkDigit;
     }
 
     private static BbanStructure getBbanStructure(final String iban) {
@@ -406,21 +707,13 @@ public final class IbanUtil {
     }
 
     private static String extractBbanEntry(final String iban, final BbanEntryType entryType) {
-        // FIXME duplicate code
-        final String bban = getBban(iban);
         final BbanStructure structure = getBbanStructure(iban);
-        int bbanEntryOffset = 0;
-        for(final BbanStructureEntry entry : structure.getEntries()) {
-            final int entryLength = entry.getLength();
-            final String entryValue = bban.substring(bbanEntryOffset,
-                    bbanEntryOffset + entryLength);
-
-            bbanEntryOffset = bbanEntryOffset + entryLength;
-            if(entry.getEntryType() == entryType) {
-                return entryValue;
-            }
+        final int entryOffset = structure.getEntryOffset(entryType);
+        if (entryOffset < 0) {
+            return null;
         }
-        return null;
+        final int from = BBAN_INDEX + entryOffset;
+        return iban.substring(from, from + structure.getEntryLength(entryType));
     }
 
 }
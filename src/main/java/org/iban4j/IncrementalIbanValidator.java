@@ -0,0 +1,338 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.IbanFormatException.IbanFormatViolation;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+
+import java.nio.CharBuffer;
+
+/**
+ * Validates an iban while it is typed, one character at a time.
+ * <p/>
+ * Every append or deletion checks the one character against the country's
+ * bban structure and advances the mod 97 remainder of the bban, so each
+ * keystroke costs constant time. The validator reports whether the input is
+ * a valid prefix ({@link Status#INCOMPLETE}), a complete valid iban
+ * ({@link Status#VALID}) or invalid, with the first invalid position and
+ * the violation. The verdicts match {@link IbanUtil#validate(String)}.
+ * <p/>
+ * Instances are not thread safe, use one per input field.
+ */
+public final class IncrementalIbanValidator {
+
+    private static final int COUNTRY_CODE_LENGTH = 2;
+    private static final int CHECK_DIGIT_LENGTH = 2;
+    private static final int BBAN_INDEX = COUNTRY_CODE_LENGTH + CHECK_DIGIT_LENGTH;
+    private static final int MAX_IBAN_LENGTH = 34;
+
+    private char[] chars = new char[MAX_IBAN_LENGTH];
+    // mod 97 remainder of the bban up to and including the position
+    private int[] remainders = new int[MAX_IBAN_LENGTH];
+    private int length;
+
+    private CountryCode countryCode;
+    private BbanStructure structure;
+    private EntryCharacterType[] characterTypes;
+    private int ibanLength;
+
+    // first invalid character, everything typed after it is only kept
+    private int characterErrorIndex = -1;
+    private Status characterErrorStatus;
+    private IbanFormatViolation characterErrorViolation;
+
+    private Status status = Status.INCOMPLETE;
+    private int invalidPosition = -1;
+    private IbanFormatViolation violation;
+
+    /**
+     * Validation states of the input.
+     */
+    public enum Status {
+        /** The input is empty or a valid prefix of an iban. */
+        INCOMPLETE,
+        /** The input is a complete, valid iban. */
+        VALID,
+        /** The input violates the iban format, see {@link #getViolation()}. */
+        INVALID_FORMAT,
+        /** The country code exists but doesn't support ibans. */
+        UNSUPPORTED_COUNTRY,
+        /** The input is complete but the iban check digit doesn't match. */
+        INVALID_CHECK_DIGIT
+    }
+
+    /**
+     * Appends a typed character.
+     *
+     * @param ch the character
+     * @return the status of the input
+     */
+    public Status append(final char ch) {
+        if (length == chars.length) {
+            final char[] grown = new char[chars.length * 2];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+        final int index = length;
+        chars[length++] = ch;
+        if (characterErrorIndex < 0) {
+            checkCharacter(index, ch);
+        }
+        return update();
+    }
+
+    /**
+     * Appends typed or pasted characters.
+     *
+     * @param text the characters
+     * @return the status of the input
+     */
+    public Status append(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+        return status;
+    }
+
+    /**
+     * Removes the last character.
+     *
+     * @return the status of the input
+     */
+    public Status deleteLast() {
+        if (length == 0) {
+            return status;
+        }
+        length--;
+        if (length <= characterErrorIndex) {
+            clearCharacterError();
+        }
+        if (length < COUNTRY_CODE_LENGTH) {
+            // the country is reported at position 0 but resolved from both letters
+            if (characterErrorIndex == 0 && isCountryError()) {
+                clearCharacterError();
+            }
+            countryCode = null;
+            structure = null;
+            characterTypes = null;
+            ibanLength = 0;
+        }
+        return update();
+    }
+
+    /**
+     * Clears the input.
+     */
+    public void reset() {
+        while (length > 0) {
+            deleteLast();
+        }
+    }
+
+    /**
+     * @return the status of the input
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the index of the first invalid character, or of the check
+     *         digits which don't match; -1 if the input is valid so far.
+     */
+    public int getInvalidPosition() {
+        return invalidPosition;
+    }
+
+    /**
+     * @return the format violation if the status is {@link Status#INVALID_FORMAT},
+     *         null otherwise.
+     */
+    public IbanFormatViolation getViolation() {
+        return violation;
+    }
+
+    /**
+     * @return the country of the input, null until it is known.
+     */
+    public CountryCode getCountryCode() {
+        return countryCode;
+    }
+
+    /**
+     * @return the iban length of the input's country, 0 until it is known.
+     */
+    public int getIbanLength() {
+        return ibanLength;
+    }
+
+    /**
+     * @return the number of characters typed
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void checkCharacter(final int index, final char ch) {
+        if (index < COUNTRY_CODE_LENGTH) {
+            if (ch < 'A' || ch > 'Z') {
+                fail(index, Status.INVALID_FORMAT, IbanFormatViolation.COUNTRY_CODE_UPPER_CASE_LETTERS);
+            } else if (index == COUNTRY_CODE_LENGTH - 1) {
+                resolveCountry();
+            }
+        } else if (index < BBAN_INDEX) {
+            if (ch < '0' || ch > '9') {
+                fail(index, Status.INVALID_FORMAT, IbanFormatViolation.CHECK_DIGIT_ONLY_DIGITS);
+            }
+        } else if (index >= ibanLength) {
+            fail(index, Status.INVALID_FORMAT, IbanFormatViolation.BBAN_LENGTH);
+        } else {
+            final IbanFormatViolation typeViolation = checkCharacterType(
+                    characterTypes[index - BBAN_INDEX], ch);
+            if (typeViolation != null) {
+                fail(index, Status.INVALID_FORMAT, typeViolation);
+            } else {
+                final int previous = index == BBAN_INDEX ? 0 : remainders[index - 1];
+                remainders[index] = appendRemainder(previous, ch);
+            }
+        }
+    }
+
+    private void resolveCountry() {
+        countryCode = CountryCode.getByAlpha2Code(chars[0], chars[1]);
+        if (countryCode == null) {
+            fail(0, Status.INVALID_FORMAT, IbanFormatViolation.COUNTRY_CODE_EXISTS);
+            return;
+        }
+        final BbanStructure bbanStructure = BbanStructure.forCountry(countryCode);
+        if (bbanStructure == null) {
+            fail(0, Status.UNSUPPORTED_COUNTRY, null);
+            return;
+        }
+        if (bbanStructure != structure) {
+            structure = bbanStructure;
+            characterTypes = new EntryCharacterType[bbanStructure.getBbanLength()];
+            int offset = 0;
+            for (final BbanStructureEntry entry : bbanStructure.getEntries()) {
+                for (int i = 0; i < entry.getLength(); i++) {
+                    characterTypes[offset++] = entry.getCharacterType();
+                }
+            }
+        }
+        ibanLength = BBAN_INDEX + characterTypes.length;
+        // loaded registries may define bbans longer than the standard allows
+        if (ibanLength > remainders.length) {
+            final int[] grown = new int[ibanLength];
+            System.arraycopy(remainders, 0, grown, 0, remainders.length);
+            remainders = grown;
+        }
+    }
+
+    private boolean isCountryError() {
+        return characterErrorStatus == Status.UNSUPPORTED_COUNTRY ||
+                characterErrorViolation == IbanFormatViolation.COUNTRY_CODE_EXISTS;
+    }
+
+    private void clearCharacterError() {
+        characterErrorIndex = -1;
+        characterErrorStatus = null;
+        characterErrorViolation = null;
+    }
+
+    private void fail(final int index, final Status failure, final IbanFormatViolation failureViolation) {
+        characterErrorIndex = index;
+        characterErrorStatus = failure;
+        characterErrorViolation = failureViolation;
+    }
+
+    /**
+     * Derives the status from the character checks and, for complete input,
+     * the check digits.
+     */
+    private Status update() {
+        if (characterErrorIndex >= 0) {
+            return setStatus(characterErrorStatus, characterErrorIndex, characterErrorViolation);
+        }
+        if (ibanLength == 0 || length < ibanLength) {
+            return setStatus(Status.INCOMPLETE, -1, null);
+        }
+        int remainder = remainders[length - 1];
+        for (int i = 0; i < BBAN_INDEX; i++) {
+            remainder = appendRemainder(remainder, chars[i]);
+        }
+        if (remainder != 1) {
+            return setStatus(Status.INVALID_CHECK_DIGIT, COUNTRY_CODE_LENGTH, null);
+        }
+        return checkComplete(CharBuffer.wrap(chars, 0, length));
+    }
+
+    private Status checkComplete(final CharSequence iban) {
+        if (BbanRegistry.defaults().forCountry(countryCode) == structure) {
+            final NationalCheckDigits.Rule rule = NationalCheckDigits.findViolation(countryCode, iban);
+            if (rule != null) {
+                return setStatus(Status.INVALID_FORMAT, rule.getCheckIndex(),
+                        IbanFormatViolation.NATIONAL_CHECK_DIGIT);
+            }
+        }
+        final CountryValidator[] validators = CountryValidators.get()[countryCode.ordinal()];
+        if (validators != null) {
+            try {
+                for (final CountryValidator validator : validators) {
+                    validator.validate(iban, structure);
+                }
+            } catch (IbanFormatException e) {
+                return setStatus(Status.INVALID_FORMAT, BBAN_INDEX, e.getFormatViolation());
+            } catch (RuntimeException e) {
+                return setStatus(Status.INVALID_FORMAT, BBAN_INDEX, IbanFormatViolation.UNKNOWN);
+            }
+        }
+        return setStatus(Status.VALID, -1, null);
+    }
+
+    private Status setStatus(final Status newStatus, final int position,
+                             final IbanFormatViolation newViolation) {
+        status = newStatus;
+        invalidPosition = position;
+        violation = newViolation;
+        return newStatus;
+    }
+
+    private static IbanFormatViolation checkCharacterType(final EntryCharacterType type,
+                                                          final char ch) {
+        switch (type) {
+            case n:
+                return ch >= '0' && ch <= '9' ? null : IbanFormatViolation.BBAN_ONLY_DIGITS;
+            case a:
+                return ch >= 'A' && ch <= 'Z' ? null : IbanFormatViolation.BBAN_ONLY_UPPER_CASE_LETTERS;
+            default:
+                return ch >= '0' && ch <= '9' || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z'
+                        ? null : IbanFormatViolation.BBAN_ONLY_DIGITS_OR_LETTERS;
+        }
+    }
+
+    private static int appendRemainder(final int remainder, final char ch) {
+        final int value = Character.digit(ch, Character.MAX_RADIX);
+        return (remainder * (value < 10 ? 10 : 100) + value) % 97;
+    }
+}
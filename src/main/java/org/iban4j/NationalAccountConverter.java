@@ -0,0 +1,386 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.iban4j.IbanFormatException.IbanFormatViolation.*;
+
+/**
+ * Converts national account identifiers of one country, like a German bank
+ * code and account number, to ibans written into a char buffer.
+ * <p/>
+ * The components are the entries of the country's bban structure in bban
+ * order, see {@link #getComponents()}. Components shorter than their entries
+ * are padded with leading zeros, empty components are rejected, extra
+ * leading zeros are dropped and ascii letters are upper cased. National
+ * check digits are calculated for the built in structures which define
+ * them, the iban check digit always.
+ * <p/>
+ * Instances are immutable. Bulk conversions write the iban of record i to
+ * {@code offset + i * getIbanLength()} and can be split over an executor.
+ */
+public final class NationalAccountConverter {
+
+    private static final int MOD = 97;
+    private static final int BBAN_INDEX = 4;
+    private static final int CHUNK_SIZE = 4096;
+
+    private final CountryCode countryCode;
+    private final BbanStructure structure;
+    private final int ibanLength;
+    private final BbanEntryType[] components;
+    // iban indexes of each component's characters
+    private final int[][] positions;
+    // character type by iban index: 'n', 'a' or 'c'
+    private final char[] types;
+    private final boolean nationalCheckDigits;
+    // iban indexes of the calculated national check digits
+    private final int[] checkDigitPositions;
+
+    /**
+     * Creates a converter for the country's current bban structure.
+     *
+     * @param countryCode CountryCode
+     * @throws UnsupportedCountryException if the country doesn't support ibans.
+     */
+    public NationalAccountConverter(final CountryCode countryCode) {
+        Assert.notNull(countryCode, "countryCode can't be null");
+        structure = BbanStructure.forCountry(countryCode);
+        if (structure == null) {
+            throw new UnsupportedCountryException(countryCode.getAlpha2(),
+                    "Country code is not supported.");
+        }
+        this.countryCode = countryCode;
+        ibanLength = BBAN_INDEX + structure.getBbanLength();
+        nationalCheckDigits = BbanRegistry.defaults().forCountry(countryCode) == structure &&
+                NationalCheckDigits.hasCheckDigits(countryCode);
+
+        types = new char[ibanLength];
+        final List<BbanEntryType> entryTypes = new ArrayList<BbanEntryType>();
+        final List<List<Integer>> entryPositions = new ArrayList<List<Integer>>();
+        final List<Integer> calculated = new ArrayList<Integer>();
+        int index = BBAN_INDEX;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            final BbanEntryType entryType = entry.getEntryType();
+            final boolean component = !(nationalCheckDigits && entryType == BbanEntryType.national_check_digit);
+            if (component && !entryTypes.contains(entryType)) {
+                entryTypes.add(entryType);
+                entryPositions.add(new ArrayList<Integer>());
+            }
+            for (int i = 0; i < entry.getLength(); i++) {
+                types[index] = entry.getCharacterType().name().charAt(0);
+                if (component) {
+                    entryPositions.get(entryTypes.indexOf(entryType)).add(index);
+                } else {
+                    calculated.add(index);
+                }
+                index++;
+            }
+        }
+        components = entryTypes.toArray(new BbanEntryType[entryTypes.size()]);
+        positions = new int[components.length][];
+        for (int i = 0; i < components.length; i++) {
+            positions[i] = toArray(entryPositions.get(i));
+        }
+        checkDigitPositions = toArray(calculated);
+    }
+
+    /**
+     * Returns the components of a record, the country's bban entries in bban
+     * order. Calculated national check digits are not components.
+     *
+     * @return entry types
+     */
+    public BbanEntryType[] getComponents() {
+        final BbanEntryType[] copy = new BbanEntryType[components.length];
+        System.arraycopy(components, 0, copy, 0, components.length);
+        return copy;
+    }
+
+    /**
+     * @return the length of the converted ibans.
+     */
+    public int getIbanLength() {
+        return ibanLength;
+    }
+
+    /**
+     * Converts one record. If the conversion fails the buffer content from
+     * the offset is undefined.
+     *
+     * @param record the components, see {@link #getComponents()}
+     * @param out the destination, with room for {@link #getIbanLength()} characters.
+     * @param offset index of the iban's first character
+     * @return the length of the iban
+     * @throws IbanFormatException if a component doesn't match its entries or
+     *         no national check digits exist for the account.
+     * @throws IllegalArgumentException if the number of components is wrong.
+     */
+    public int convert(final CharSequence[] record, final char[] out, final int offset) {
+        if (record.length != components.length) {
+            throw new IllegalArgumentException("Record must have " + components.length +
+                    " components, not " + record.length);
+        }
+        final String alpha2 = countryCode.getAlpha2();
+        out[offset] = alpha2.charAt(0);
+        out[offset + 1] = alpha2.charAt(1);
+        for (int i = 0; i < components.length; i++) {
+            writeComponent(components[i], positions[i], record[i], out, offset);
+        }
+
+        for (final int index : checkDigitPositions) {
+            out[offset + index] = '0';
+        }
+        if (nationalCheckDigits && !NationalCheckDigits.calculate(countryCode, out, offset, ibanLength)) {
+            throw new IbanFormatException(NATIONAL_CHECK_DIGIT, new String(out, offset + BBAN_INDEX,
+                    ibanLength - BBAN_INDEX), "No national check digits exist for the bban.");
+        }
+        int remainder = 0;
+        for (int i = offset + BBAN_INDEX; i < offset + ibanLength; i++) {
+            remainder = append(remainder, out[i]);
+        }
+        remainder = append(append(remainder, out[offset]), out[offset + 1]) * 100 % MOD;
+        final int checkDigit = 98 - remainder;
+        out[offset + 2] = (char) ('0' + checkDigit / 10);
+        out[offset + 3] = (char) ('0' + checkDigit % 10);
+
+        IbanUtil.validateAssembled(CharBuffer.wrap(out, offset, ibanLength), countryCode, structure);
+        return ibanLength;
+    }
+
+    /**
+     * Converts one record to an iban.
+     *
+     * @param components the components, see {@link #getComponents()}
+     * @return the iban
+     * @throws IbanFormatException if a component doesn't match its entries or
+     *         no national check digits exist for the account.
+     */
+    public Iban toIban(final CharSequence... components) {
+        final char[] out = new char[ibanLength];
+        convert(components, out, 0);
+        return new Iban(new String(out));
+    }
+
+    /**
+     * Converts many records, the iban of record i is written to
+     * {@code offset + i * getIbanLength()}.
+     *
+     * @param records the records
+     * @param out the destination
+     * @param offset index of the first iban's first character
+     * @param errors receives the exception of each failed record, the
+     *               conversion stops at the first failure if null. Null
+     *               records and records with the wrong number of components
+     *               fail with {@link IbanFormatException.IbanFormatViolation#UNKNOWN}.
+     * @return the number of converted records
+     * @throws Iban4jException if a record fails and errors is null.
+     */
+    public int convert(final CharSequence[][] records, final char[] out, final int offset,
+                       final Iban4jException[] errors) {
+        return convert(records, 0, records.length, out, offset, errors);
+    }
+
+    /**
+     * Converts many records in chunks run by an executor, see
+     * {@link #convert(CharSequence[][], char[], int, Iban4jException[])}.
+     * <p/>
+     * If a record fails and errors is null, chunks which haven't started yet
+     * are skipped and the method returns once the running chunks are done.
+     * The ibans of records converted until then are in out; the content at
+     * the failed record, after it in its chunk and in skipped chunks is
+     * undefined.
+     *
+     * @param records the records
+     * @param out the destination
+     * @param offset index of the first iban's first character
+     * @param errors receives the exception of each failed record, the
+     *               conversion stops at the first failure if null.
+     * @param executor runs the chunks
+     * @return the number of converted records
+     * @throws Iban4jException if a record fails and errors is null.
+     * @throws InterruptedException if interrupted while waiting for the chunks.
+     */
+    public int convert(final CharSequence[][] records, final char[] out, final int offset,
+                       final Iban4jException[] errors, final ExecutorService executor)
+            throws InterruptedException {
+        Assert.notNull(executor, "executor can't be null");
+        // set by the first failed chunk, the chunks after it are skipped
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Future<Integer>> chunks = new ArrayList<Future<Integer>>();
+        for (int from = 0; from < records.length; from += CHUNK_SIZE) {
+            final int chunkFrom = from;
+            final int chunkTo = Math.min(from + CHUNK_SIZE, records.length);
+            chunks.add(executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    if (failed.get()) {
+                        return 0;
+                    }
+                    try {
+                        return convert(records, chunkFrom, chunkTo, out, offset, errors);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+            }));
+        }
+        int converted = 0;
+        Throwable failure = null;
+        try {
+            // waits for every chunk, none writes to out after the return
+            for (final Future<Integer> chunk : chunks) {
+                try {
+                    converted += chunk.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+            throw e;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+        return converted;
+    }
+
+    private int convert(final CharSequence[][] records, final int from, final int to,
+                        final char[] out, final int offset, final Iban4jException[] errors) {
+        int converted = 0;
+        for (int i = from; i < to; i++) {
+            try {
+                checkRecord(records[i]);
+                convert(records[i], out, offset + i * ibanLength);
+                converted++;
+            } catch (Iban4jException e) {
+                if (errors == null) {
+                    throw e;
+                }
+                errors[i] = e;
+            }
+        }
+        return converted;
+    }
+
+    private void checkRecord(final CharSequence[] record) {
+        if (record == null) {
+            throw new IbanFormatException(UNKNOWN, "Record is required; it cannot be null");
+        }
+        if (record.length != components.length) {
+            throw new IbanFormatException(UNKNOWN, record.length, components.length,
+                    "Record must have " + components.length + " components, not " + record.length);
+        }
+    }
+
+    private void writeComponent(final BbanEntryType entryType, final int[] componentPositions,
+                                final CharSequence value, final char[] out, final int offset) {
+        if (value == null) {
+            throw new IbanFormatException(notNullViolation(entryType),
+                    entryType + " is required; it cannot be null");
+        }
+        final int length = componentPositions.length;
+        if (value.length() == 0) {
+            throw lengthViolation(entryType, value, length);
+        }
+        int start = 0;
+        while (value.length() - start > length && value.charAt(start) == '0') {
+            start++;
+        }
+        final int padding = length - (value.length() - start);
+        if (padding < 0) {
+            throw lengthViolation(entryType, value, length);
+        }
+        for (int i = 0; i < length; i++) {
+            final int index = componentPositions[i];
+            final char type = types[index];
+            if (i < padding) {
+                if (type == 'a') {
+                    throw lengthViolation(entryType, value, length);
+                }
+                out[offset + index] = '0';
+                continue;
+            }
+            char ch = value.charAt(start + i - padding);
+            if (ch >= 'a' && ch <= 'z') {
+                ch = (char) (ch - ('a' - 'A'));
+            }
+            final boolean digit = ch >= '0' && ch <= '9';
+            final boolean letter = ch >= 'A' && ch <= 'Z';
+            if (type == 'n' && !digit) {
+                throw new IbanFormatException(BBAN_ONLY_DIGITS, entryType, value.toString(), ch,
+                        "[" + value + "] must contain only digits.");
+            } else if (type == 'a' && !letter) {
+                throw new IbanFormatException(BBAN_ONLY_UPPER_CASE_LETTERS, entryType, value.toString(), ch,
+                        "[" + value + "] must contain only upper case letters.");
+            } else if (type == 'c' && !digit && !letter) {
+                throw new IbanFormatException(BBAN_ONLY_DIGITS_OR_LETTERS, entryType, value.toString(), ch,
+                        "[" + value + "] must contain only digits or letters.");
+            }
+            out[offset + index] = ch;
+        }
+    }
+
+    private static IbanFormatException lengthViolation(final BbanEntryType entryType,
+                                                       final CharSequence value, final int length) {
+        return new IbanFormatException(BBAN_LENGTH, value, length,
+                "[" + value + "] length is " + value.length() + ", expected " + entryType +
+                        " length is: " + length);
+    }
+
+    private static IbanFormatException.IbanFormatViolation notNullViolation(final BbanEntryType entryType) {
+        switch (entryType) {
+            case bank_code:
+                return IBAN_BANK_CODE_NOT_NULL;
+            case account_number:
+                return IBAN_ACCOUNT_NUMBER_NOT_NULL;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    private static int[] toArray(final List<Integer> values) {
+        final int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static int append(final int remainder, final char ch) {
+        final int value = Character.digit(ch, Character.MAX_RADIX);
+        return (remainder * (value < 10 ? 10 : 100) + value) % MOD;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import java.nio.CharBuffer;
+
+/**
+ * National check digits of the built in bban structures.
+ * <p/>
+ * Every country has a table of rules, each naming the algorithm, the bban
+ * range it covers, the weights and the position of the check digits it
+ * guards. Algorithms compute the expected check digits straight from the
+ * iban characters, so the same tables verify ibans and complete generated
+ * ones.
+ * <p/>
+ * Positions are relative to the bban of the built in structures; bban
+ * structures of loaded registries don't describe national check digits.
+ */
+final class NationalCheckDigits {
+
+    private static final int BBAN_INDEX = 4;
+
+    // rules by country code ordinal, null for countries without national check digits
+    private static final Rule[][] RULES = new Rule[CountryCode.values().length][];
+
+    static {
+        rules(CountryCode.AL, new Rule(Algorithm.WEIGHTED_MOD_10, 0, 7, 7, 1, 9, 7, 3, 1));
+        rules(CountryCode.BA, new Rule(Algorithm.MOD_97_10, 0, 14, 14, 2));
+        rules(CountryCode.BE, new Rule(Algorithm.MOD_97, 0, 10, 10, 2));
+        rules(CountryCode.EE, new Rule(Algorithm.WEIGHTED_MOD_10, 2, 15, 15, 1, 7, 1, 3));
+        rules(CountryCode.ES,
+                new Rule(Algorithm.MOD_11, 0, 8, 8, 1, 4, 8, 5, 10, 9, 7, 3, 6),
+                new Rule(Algorithm.MOD_11, 10, 20, 9, 1, 1, 2, 4, 8, 5, 10, 9, 7, 3, 6));
+        rules(CountryCode.FI, new Rule(Algorithm.LUHN, 0, 13, 13, 1));
+        rules(CountryCode.FR, new Rule(Algorithm.RIB_KEY, 0, 21, 21, 2));
+        rules(CountryCode.HU,
+                new Rule(Algorithm.WEIGHTED_MOD_10, 0, 7, 7, 1, 9, 7, 3, 1),
+                new Rule(Algorithm.WEIGHTED_MOD_10, 8, 23, 23, 1, 9, 7, 3, 1));
+        rules(CountryCode.IT, new Rule(Algorithm.CIN, 1, 23, 0, 1));
+        rules(CountryCode.MC, new Rule(Algorithm.RIB_KEY, 0, 21, 21, 2));
+        rules(CountryCode.ME, new Rule(Algorithm.MOD_97_10, 0, 16, 16, 2));
+        rules(CountryCode.MK, new Rule(Algorithm.MOD_97_10, 0, 13, 13, 2));
+        rules(CountryCode.MR, new Rule(Algorithm.RIB_KEY, 0, 21, 21, 2));
+        rules(CountryCode.NO, new Rule(Algorithm.STRICT_MOD_11, 0, 10, 10, 1, 5, 4, 3, 2, 7, 6, 5, 4, 3, 2));
+        rules(CountryCode.PL, new Rule(Algorithm.WEIGHTED_MOD_10, 0, 7, 7, 1, 3, 9, 7, 1));
+        rules(CountryCode.PT, new Rule(Algorithm.MOD_97_10, 0, 19, 19, 2));
+        rules(CountryCode.RS, new Rule(Algorithm.MOD_97_10, 0, 16, 16, 2));
+        rules(CountryCode.SI, new Rule(Algorithm.MOD_97_10, 0, 13, 13, 2));
+        rules(CountryCode.SM, new Rule(Algorithm.CIN, 1, 23, 0, 1));
+        rules(CountryCode.TL, new Rule(Algorithm.MOD_97_10, 0, 17, 17, 2));
+        rules(CountryCode.XK, new Rule(Algorithm.MOD_97_10, 0, 14, 14, 2));
+    }
+
+    private NationalCheckDigits() {
+    }
+
+    /**
+     * Returns the first rule whose check digits don't match the iban.
+     *
+     * @param countryCode the iban's country, its bban must already match the
+     *                    built in structure.
+     * @param iban CharSequence
+     * @return the violated rule, null if all national check digits match or
+     *         the country has none.
+     */
+    static Rule findViolation(final CountryCode countryCode, final CharSequence iban) {
+        final Rule[] rules = RULES[countryCode.ordinal()];
+        if (rules != null) {
+            for (final Rule rule : rules) {
+                if (!rule.matches(iban)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the national check digits of the country into an iban.
+     *
+     * @param countryCode the iban's country.
+     * @param iban iban characters, the bban starting at index 4.
+     * @return false if no national check digits exist for the other bban
+     *         characters, the iban can't be valid then.
+     */
+    static boolean calculate(final CountryCode countryCode, final char[] iban) {
+        return calculate(countryCode, iban, 0, iban.length);
+    }
+
+    /**
+     * Writes the national check digits of the country into an iban in a buffer.
+     *
+     * @param countryCode the iban's country.
+     * @param buffer buffer holding the iban.
+     * @param offset index of the iban's first character.
+     * @param length length of the iban.
+     * @return false if no national check digits exist for the other bban
+     *         characters, the iban can't be valid then.
+     */
+    static boolean calculate(final CountryCode countryCode, final char[] buffer,
+                             final int offset, final int length) {
+        final Rule[] rules = RULES[countryCode.ordinal()];
+        if (rules != null) {
+            final CharSequence sequence = CharBuffer.wrap(buffer, offset, length);
+            for (final Rule rule : rules) {
+                if (!rule.write(sequence, buffer, offset)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the national check digit rules of the country's built in structure.
+     *
+     * @param countryCode CountryCode
+     * @return the rules, null if the country has no national check digits.
+     */
+    static Rule[] getRules(final CountryCode countryCode) {
+        return RULES[countryCode.ordinal()];
+    }
+
+    /**
+     * Checks whether the country's built in structure has national check digits.
+     *
+     * @param countryCode CountryCode
+     * @return true if national check digits are verified for the country.
+     */
+    static boolean hasCheckDigits(final CountryCode countryCode) {
+        return RULES[countryCode.ordinal()] != null;
+    }
+
+    private static void rules(final CountryCode countryCode, final Rule... rules) {
+        RULES[countryCode.ordinal()] = rules;
+    }
+
+    /**
+     * One set of check digits: the algorithm computes them over the iban
+     * characters in [from, to).
+     */
+    static final class Rule {
+
+        private final Algorithm algorithm;
+        private final int from;
+        private final int to;
+        private final int checkIndex;
+        private final int checkLength;
+        private final int[] weights;
+
+        Rule(final Algorithm algorithm, final int from, final int to,
+             final int checkOffset, final int checkLength, final int... weights) {
+            this.algorithm = algorithm;
+            this.from = BBAN_INDEX + from;
+            this.to = BBAN_INDEX + to;
+            this.checkIndex = BBAN_INDEX + checkOffset;
+            this.checkLength = checkLength;
+            this.weights = weights;
+        }
+
+        /**
+         * @return the iban index of the check digits.
+         */
+        int getCheckIndex() {
+            return checkIndex;
+        }
+
+        /**
+         * @return the number of check digits.
+         */
+        int getCheckLength() {
+            return checkLength;
+        }
+
+        /**
+         * Computes the expected check digits.
+         *
+         * @param iban CharSequence
+         * @return expected check digits, null if there are none.
+         */
+        String expected(final CharSequence iban) {
+            final char[] digits = new char[checkLength];
+            final int value = algorithm.compute(iban, from, to, weights);
+            return value < 0 ? null : new String(format(value, digits, 0));
+        }
+
+        boolean matches(final CharSequence iban) {
+            final int value = algorithm.compute(iban, from, to, weights);
+            if (value < 0) {
+                return false;
+            }
+            if (algorithm == Algorithm.CIN) {
+                return iban.charAt(checkIndex) == (char) ('A' + value);
+            }
+            int actual = 0;
+            for (int i = checkIndex; i < checkIndex + checkLength; i++) {
+                actual = actual * 10 + iban.charAt(i) - '0';
+            }
+            return actual == value;
+        }
+
+        private boolean write(final CharSequence sequence, final char[] buffer, final int offset) {
+            final int value = algorithm.compute(sequence, from, to, weights);
+            if (value < 0) {
+                return false;
+            }
+            format(value, buffer, offset + checkIndex);
+            return true;
+        }
+
+        private char[] format(final int value, final char[] out, final int offset) {
+            if (algorithm == Algorithm.CIN) {
+                out[offset] = (char) ('A' + value);
+            } else {
+                int rest = value;
+                for (int i = offset + checkLength - 1; i >= offset; i--) {
+                    out[i] = (char) ('0' + rest % 10);
+                    rest /= 10;
+                }
+            }
+            return out;
+        }
+    }
+
+    /**
+     * National check digit algorithms, computing the expected check digits
+     * as a number, or -1 if no check digits exist.
+     */
+    enum Algorithm {
+
+        /**
+         * ISO 7064 MOD 97-10, the algorithm of the iban check digit.
+         */
+        MOD_97_10 {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                int mod = 0;
+                for (int i = from; i < to; i++) {
+                    mod = append(mod, Character.digit(iban.charAt(i), Character.MAX_RADIX));
+                }
+                return 98 - mod * 100 % 97;
+            }
+        },
+
+        /**
+         * Remainder of division by 97, 97 instead of 0 (Belgium).
+         */
+        MOD_97 {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                int mod = 0;
+                for (int i = from; i < to; i++) {
+                    mod = (mod * 10 + iban.charAt(i) - '0') % 97;
+                }
+                return mod == 0 ? 97 : mod;
+            }
+        },
+
+        /**
+         * French RIB key, letters count as the digits 1 to 9.
+         */
+        RIB_KEY {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                int mod = 0;
+                for (int i = from; i < to; i++) {
+                    final int value = Character.digit(iban.charAt(i), Character.MAX_RADIX);
+                    mod = (mod * 10 + (value < 10 ? value : RIB_LETTERS[value - 10])) % 97;
+                }
+                return 97 - mod * 100 % 97;
+            }
+        },
+
+        /**
+         * Weighted sum of the digits, complemented to the next multiple of 10.
+         */
+        WEIGHTED_MOD_10 {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                return (10 - weightedSum(iban, from, to, weights) % 10) % 10;
+            }
+        },
+
+        /**
+         * Luhn algorithm, doubling every second digit from the right.
+         */
+        LUHN {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                int sum = 0;
+                boolean doubled = true;
+                for (int i = to - 1; i >= from; i--) {
+                    final int digit = iban.charAt(i) - '0';
+                    sum += doubled ? LUHN_DOUBLED[digit] : digit;
+                    doubled = !doubled;
+                }
+                return (10 - sum % 10) % 10;
+            }
+        },
+
+        /**
+         * Weighted sum of the digits modulo 11, 1 if the check digit would be 10 (Spain).
+         */
+        MOD_11 {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                final int digit = (11 - weightedSum(iban, from, to, weights) % 11) % 11;
+                return digit == 10 ? 1 : digit;
+            }
+        },
+
+        /**
+         * Weighted sum of the digits modulo 11, without check digit if it would be 10 (Norway).
+         */
+        STRICT_MOD_11 {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                final int digit = (11 - weightedSum(iban, from, to, weights) % 11) % 11;
+                return digit == 10 ? -1 : digit;
+            }
+        },
+
+        /**
+         * Italian CIN, a letter for the values 0 to 25.
+         */
+        CIN {
+            int compute(final CharSequence iban, final int from, final int to, final int[] weights) {
+                int sum = 0;
+                for (int i = from; i < to; i++) {
+                    final int value = Character.digit(iban.charAt(i), Character.MAX_RADIX);
+                    final int index = value < 10 ? value : value - 10;
+                    sum += (i - from) % 2 == 0 ? CIN_ODD[index] : index;
+                }
+                return sum % 26;
+            }
+        };
+
+        private static final int[] RIB_LETTERS = {
+                1, 2, 3, 4, 5, 6, 7, 8, 9, 1, 2, 3, 4, 5, 6, 7, 8, 9, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+        private static final int[] LUHN_DOUBLED = { 0, 2, 4, 6, 8, 1, 3, 5, 7, 9 };
+
+        private static final int[] CIN_ODD = {
+                1, 0, 5, 7, 9, 13, 15, 17, 19, 21, 2, 4, 18, 20, 11, 3, 6, 8, 12, 14, 16, 10, 22, 25, 24, 23 };
+
+        abstract int compute(CharSequence iban, int from, int to, int[] weights);
+
+        private static int append(final int mod, final int value) {
+            return (mod * (value < 10 ? 10 : 100) + value) % 97;
+        }
+
+        private static int weightedSum(final CharSequence iban, final int from, final int to,
+                                       final int[] weights) {
+            int sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += (iban.charAt(i) - '0') * weights[(i - from) % weights.length];
+            }
+            return sum;
+        }
+    }
+}
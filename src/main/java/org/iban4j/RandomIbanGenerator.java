@@ -0,0 +1,561 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.IbanFormatException.IbanFormatViolation;
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.support.Assert;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates random ibans for load tests, valid ones and ones with
+ * injected errors.
+ * <p/>
+ * Ibans are numbered: the iban of an index only depends on the seed and
+ * the index, drawn from a SplitMix64 sequence started at the index. The
+ * generator is immutable, so threads can generate disjoint index ranges
+ * concurrently and the output is the same for any number of threads.
+ * <p/>
+ * Valid ibans follow the bban structure of their country and have correct
+ * national and iban check digits. At configured rates an iban instead gets
+ * one injected error: an {@link IbanFormatViolation} or a wrong check digit.
+ * {@link IbanUtil#validate(String)} reports exactly the injected error.
+ */
+public final class RandomIbanGenerator {
+
+    private static final int MOD = 97;
+    private static final int BBAN_INDEX = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // ibans generated per append by writeTo
+    private static final int WRITE_CHUNK = 64;
+
+    private final long seed;
+    private final Country[] countries;
+    private final double[] countryWeights;
+    // injected errors, a null violation stands for a wrong check digit
+    private final Injection[] injections;
+    private final double[] injectionRates;
+    private final int maxLength;
+
+    private RandomIbanGenerator(final Builder builder) {
+        seed = builder.seed;
+        final Map<CountryCode, Double> weights = builder.countryWeights.isEmpty()
+                ? allCountries() : builder.countryWeights;
+        final List<Country> countryList = new ArrayList<Country>();
+        for (final Map.Entry<CountryCode, Double> entry : weights.entrySet()) {
+            countryList.add(new Country(entry.getKey(), entry.getValue()));
+        }
+        countries = countryList.toArray(new Country[countryList.size()]);
+        countryWeights = cumulativeWeights(countries);
+        int longest = 0;
+        for (final Country country : countries) {
+            longest = Math.max(longest, country.ibanLength);
+        }
+        // room for the extra character of BBAN_LENGTH errors
+        maxLength = longest + 1;
+
+        injections = new Injection[builder.injectedRates.size()];
+        injectionRates = new double[injections.length];
+        double rate = 0;
+        int i = 0;
+        for (final Map.Entry<IbanFormatViolation, Double> entry : builder.injectedRates.entrySet()) {
+            injections[i] = new Injection(entry.getKey(), countries);
+            rate += entry.getValue();
+            injectionRates[i++] = rate;
+        }
+        if (rate > 1) {
+            throw new IllegalArgumentException("Error rates add up to more than 1.");
+        }
+    }
+
+    /**
+     * Returns the maximum length of a generated iban: one more than the
+     * longest iban of the generated countries, for
+     * {@link IbanFormatViolation#BBAN_LENGTH} errors.
+     *
+     * @return the maximum iban length
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the iban of an index.
+     *
+     * @param index the iban's index
+     * @return the iban, possibly with an injected error.
+     */
+    public String generate(final long index) {
+        final char[] out = new char[maxLength];
+        return new String(out, 0, generate(index, out, 0));
+    }
+
+    /**
+     * Writes the iban of an index into a buffer.
+     *
+     * @param index the iban's index
+     * @param out the buffer, with room for {@link #getMaxLength()} characters from the offset.
+     * @param offset index of the iban's first character
+     * @return the length of the iban
+     */
+    public int generate(final long index, final char[] out, final int offset) {
+        return new Generation().generate(index, out, offset);
+    }
+
+    /**
+     * Writes the ibans of an index range into a buffer, each followed by a
+     * line feed, the same lines {@link #writeTo(Appendable, long, long)}
+     * appends.
+     *
+     * @param fromIndex the first index
+     * @param count the number of ibans
+     * @param out the buffer, with room for {@code count * (getMaxLength() + 1)}
+     *        characters from the offset.
+     * @param offset index of the first iban's first character
+     * @return the number of characters written
+     */
+    public int generate(final long fromIndex, final int count, final char[] out, final int offset) {
+        return generate(new Generation(), fromIndex, count, out, offset);
+    }
+
+    /**
+     * Appends the ibans of an index range, each followed by a line feed.
+     *
+     * @param out the destination
+     * @param fromIndex the first index
+     * @param count the number of ibans
+     * @throws IOException if appending fails.
+     */
+    public void writeTo(final Appendable out, final long fromIndex, final long count)
+            throws IOException {
+        final Generation generation = new Generation();
+        final char[] buffer = new char[WRITE_CHUNK * (maxLength + 1)];
+        final CharBuffer view = CharBuffer.wrap(buffer);
+        for (long index = fromIndex; index < fromIndex + count; index += WRITE_CHUNK) {
+            final int chunk = (int) Math.min(WRITE_CHUNK, fromIndex + count - index);
+            view.clear();
+            view.limit(generate(generation, index, chunk, buffer, 0));
+            out.append(view);
+        }
+    }
+
+    private static int generate(final Generation generation, final long fromIndex, final int count,
+                                final char[] out, final int offset) {
+        int position = offset;
+        for (long index = fromIndex; index < fromIndex + count; index++) {
+            position += generation.generate(index, out, position);
+            out[position++] = '\n';
+        }
+        return position - offset;
+    }
+
+    private static Map<CountryCode, Double> allCountries() {
+        final Map<CountryCode, Double> weights = new LinkedHashMap<CountryCode, Double>();
+        for (final CountryCode countryCode : BbanStructure.getRegistry().getCountryCodes()) {
+            weights.put(countryCode, 1.0);
+        }
+        return weights;
+    }
+
+    private static double[] cumulativeWeights(final Country[] countries) {
+        final double[] cumulative = new double[countries.length];
+        double total = 0;
+        for (int i = 0; i < countries.length; i++) {
+            total += countries[i].weight;
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(final double[] cumulative, final double value) {
+        final int index = Arrays.binarySearch(cumulative, value);
+        return Math.min(index < 0 ? -index - 1 : index + 1, cumulative.length - 1);
+    }
+
+    /**
+     * The state of one generation: a SplitMix64 sequence and a scratch
+     * iban, which national check digits are computed in.
+     */
+    private final class Generation {
+
+        private final char[] iban = new char[maxLength];
+        private long state;
+
+        int generate(final long index, final char[] out, final int offset) {
+            state = mix(seed + index * GOLDEN_GAMMA);
+
+            final Injection injection = injections.length == 0 ? null : injection(nextDouble());
+
+            final Country country = injection == null
+                    ? country(countries, countryWeights)
+                    : country(injection.countries, injection.weights);
+            fillValid(country);
+            final int length = injection == null ? country.ibanLength : inject(injection, country);
+            System.arraycopy(iban, 0, out, offset, length);
+            return length;
+        }
+
+        private Country country(final Country[] countries, final double[] weights) {
+            return countries[pick(weights, nextDouble() * weights[weights.length - 1])];
+        }
+
+        private Injection injection(final double value) {
+            for (int i = 0; i < injections.length; i++) {
+                if (value < injectionRates[i]) {
+                    return injections[i];
+                }
+            }
+            return null;
+        }
+
+        private void fillValid(final Country country) {
+            final String alpha2 = country.countryCode.getAlpha2();
+            iban[0] = alpha2.charAt(0);
+            iban[1] = alpha2.charAt(1);
+            do {
+                for (int i = BBAN_INDEX; i < country.ibanLength; i++) {
+                    iban[i] = randomCharacter(country.types[i]);
+                }
+            } while (country.nationalCheckDigits &&
+                    !NationalCheckDigits.calculate(country.countryCode, iban));
+            writeCheckDigit(country.ibanLength);
+        }
+
+        private int inject(final Injection injection, final Country country) {
+            final int length = country.ibanLength;
+            if (injection.violation == null) {
+                final int checkDigit = 98 - remainderOf(length);
+                // any other value from 2 to 98
+                final int wrong = (checkDigit - 2 + 1 + nextInt(96)) % 97 + 2;
+                iban[2] = (char) ('0' + wrong / 10);
+                iban[3] = (char) ('0' + wrong % 10);
+                return length;
+            }
+            switch (injection.violation) {
+                case IBAN_NOT_EMPTY:
+                    return 0;
+                case COUNTRY_CODE_UPPER_CASE_LETTERS:
+                    final int position = nextInt(2);
+                    iban[position] = Character.toLowerCase(iban[position]);
+                    return length;
+                case COUNTRY_CODE_EXISTS:
+                    do {
+                        iban[0] = (char) ('A' + nextInt(26));
+                        iban[1] = (char) ('A' + nextInt(26));
+                    } while (CountryCode.getByAlpha2Code(iban[0], iban[1]) != null);
+                    return length;
+                case CHECK_DIGIT_ONLY_DIGITS:
+                    iban[2 + nextInt(2)] = (char) ('A' + nextInt(26));
+                    return length;
+                case BBAN_LENGTH:
+                    if (nextInt(2) == 0) {
+                        return length - 1;
+                    }
+                    iban[length] = (char) ('0' + nextInt(10));
+                    return length + 1;
+                case BBAN_ONLY_DIGITS:
+                    iban[randomPosition(country.digitPositions)] = (char) ('A' + nextInt(26));
+                    return length;
+                case BBAN_ONLY_UPPER_CASE_LETTERS:
+                    iban[randomPosition(country.letterPositions)] = (char) ('a' + nextInt(26));
+                    return length;
+                case BBAN_ONLY_DIGITS_OR_LETTERS:
+                    iban[randomPosition(country.alphanumericPositions)] = '-';
+                    return length;
+                case NATIONAL_CHECK_DIGIT:
+                    final int digit = country.nationalCheckDigitIndex;
+                    if (Character.isLetter(iban[digit])) {
+                        iban[digit] = (char) ('A' + (iban[digit] - 'A' + 1 + nextInt(25)) % 26);
+                    } else {
+                        iban[digit] = (char) ('0' + (iban[digit] - '0' + 1 + nextInt(9)) % 10);
+                    }
+                    writeCheckDigit(length);
+                    return length;
+                default:
+                    throw new IllegalStateException("Unsupported violation " + injection.violation);
+            }
+        }
+
+        private void writeCheckDigit(final int length) {
+            final int checkDigit = 98 - remainderOf(length);
+            iban[2] = (char) ('0' + checkDigit / 10);
+            iban[3] = (char) ('0' + checkDigit % 10);
+        }
+
+        private int remainderOf(final int length) {
+            int remainder = 0;
+            for (int i = BBAN_INDEX; i < length; i++) {
+                remainder = append(remainder, iban[i]);
+            }
+            remainder = append(remainder, iban[0]);
+            remainder = append(remainder, iban[1]);
+            return remainder * 100 % MOD;
+        }
+
+        private char randomCharacter(final char type) {
+            switch (type) {
+                case 'n':
+                    return (char) ('0' + nextInt(10));
+                case 'a':
+                    return (char) ('A' + nextInt(26));
+                default:
+                    final int value = nextInt(36);
+                    return (char) (value < 10 ? '0' + value : 'A' + value - 10);
+            }
+        }
+
+        private int randomPosition(final int[] positions) {
+            return positions[nextInt(positions.length)];
+        }
+
+        private long nextLong() {
+            state += GOLDEN_GAMMA;
+            return mix(state);
+        }
+
+        private int nextInt(final int bound) {
+            return (int) (((nextLong() >>> 32) * bound) >>> 32);
+        }
+
+        private double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+    }
+
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int append(final int remainder, final char ch) {
+        final int value = Character.digit(ch, Character.MAX_RADIX);
+        return (remainder * (value < 10 ? 10 : 100) + value) % MOD;
+    }
+
+    /**
+     * A generated country: its structure by iban position.
+     */
+    private static final class Country {
+
+        final CountryCode countryCode;
+        final double weight;
+        final int ibanLength;
+        // character type by iban index: 'n', 'a' or 'c'
+        final char[] types;
+        final int[] digitPositions;
+        final int[] letterPositions;
+        final int[] alphanumericPositions;
+        final boolean nationalCheckDigits;
+        final int nationalCheckDigitIndex;
+
+        Country(final CountryCode countryCode, final double weight) {
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure == null) {
+                throw new UnsupportedCountryException(countryCode.getAlpha2(),
+                        "Country code is not supported.");
+            }
+            this.countryCode = countryCode;
+            this.weight = weight;
+            ibanLength = BBAN_INDEX + structure.getBbanLength();
+            types = new char[ibanLength];
+            int index = BBAN_INDEX;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                for (int i = 0; i < entry.getLength(); i++) {
+                    types[index++] = entry.getCharacterType().name().charAt(0);
+                }
+            }
+            digitPositions = positions('n');
+            letterPositions = positions('a');
+            alphanumericPositions = positions('c');
+            nationalCheckDigits = BbanRegistry.defaults().forCountry(countryCode) == structure &&
+                    NationalCheckDigits.hasCheckDigits(countryCode);
+            final int nationalCheckDigitOffset = structure.getEntryOffset(BbanEntryType.national_check_digit);
+            nationalCheckDigitIndex = nationalCheckDigits && nationalCheckDigitOffset >= 0
+                    ? BBAN_INDEX + nationalCheckDigitOffset : -1;
+        }
+
+        private int[] positions(final char type) {
+            int count = 0;
+            for (int i = BBAN_INDEX; i < ibanLength; i++) {
+                if (types[i] == type) {
+                    count++;
+                }
+            }
+            final int[] positions = new int[count];
+            count = 0;
+            for (int i = BBAN_INDEX; i < ibanLength; i++) {
+                if (types[i] == type) {
+                    positions[count++] = i;
+                }
+            }
+            return positions;
+        }
+
+        boolean supports(final IbanFormatViolation violation) {
+            if (violation == null) {
+                return true;
+            }
+            switch (violation) {
+                case BBAN_ONLY_DIGITS:
+                    return digitPositions.length != 0;
+                case BBAN_ONLY_UPPER_CASE_LETTERS:
+                    return letterPositions.length != 0;
+                case BBAN_ONLY_DIGITS_OR_LETTERS:
+                    return alphanumericPositions.length != 0;
+                case NATIONAL_CHECK_DIGIT:
+                    return nationalCheckDigitIndex >= 0;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * An injected error and the countries it can be injected into.
+     */
+    private static final class Injection {
+
+        final IbanFormatViolation violation;
+        final Country[] countries;
+        final double[] weights;
+
+        Injection(final IbanFormatViolation violation, final Country[] allCountries) {
+            this.violation = violation;
+            final List<Country> eligible = new ArrayList<Country>();
+            for (final Country country : allCountries) {
+                if (country.supports(violation)) {
+                    eligible.add(country);
+                }
+            }
+            if (eligible.isEmpty()) {
+                throw new IllegalArgumentException("None of the countries can have " + violation + " errors.");
+            }
+            countries = eligible.size() == allCountries.length
+                    ? allCountries : eligible.toArray(new Country[eligible.size()]);
+            weights = cumulativeWeights(countries);
+        }
+    }
+
+    /**
+     * Builder of random iban generators.
+     */
+    public static final class Builder {
+
+        private long seed;
+        private final Map<CountryCode, Double> countryWeights = new LinkedHashMap<CountryCode, Double>();
+        private final Map<IbanFormatViolation, Double> injectedRates =
+                new LinkedHashMap<IbanFormatViolation, Double>();
+
+        /**
+         * Sets the seed, 0 by default.
+         *
+         * @param seed long
+         * @return builder Builder
+         */
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Adds a country. Without countries all supported countries are
+         * generated with equal weights.
+         *
+         * @param countryCode CountryCode
+         * @param weight relative frequency of the country
+         * @return builder Builder
+         */
+        public Builder country(final CountryCode countryCode, final double weight) {
+            Assert.notNull(countryCode, "countryCode can't be null");
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("weight must be positive");
+            }
+            countryWeights.put(countryCode, weight);
+            return this;
+        }
+
+        /**
+         * Injects a format violation into a share of the ibans. Supported are
+         * IBAN_NOT_EMPTY, COUNTRY_CODE_UPPER_CASE_LETTERS, COUNTRY_CODE_EXISTS,
+         * CHECK_DIGIT_ONLY_DIGITS, BBAN_LENGTH, BBAN_ONLY_DIGITS,
+         * BBAN_ONLY_UPPER_CASE_LETTERS, BBAN_ONLY_DIGITS_OR_LETTERS and
+         * NATIONAL_CHECK_DIGIT.
+         *
+         * @param violation IbanFormatViolation
+         * @param rate share of the ibans, from 0 to 1
+         * @return builder Builder
+         */
+        public Builder violation(final IbanFormatViolation violation, final double rate) {
+            Assert.notNull(violation, "violation can't be null");
+            switch (violation) {
+                case IBAN_NOT_EMPTY:
+                case COUNTRY_CODE_UPPER_CASE_LETTERS:
+                case COUNTRY_CODE_EXISTS:
+                case CHECK_DIGIT_ONLY_DIGITS:
+                case BBAN_LENGTH:
+                case BBAN_ONLY_DIGITS:
+                case BBAN_ONLY_UPPER_CASE_LETTERS:
+                case BBAN_ONLY_DIGITS_OR_LETTERS:
+                case NATIONAL_CHECK_DIGIT:
+                    return rate(violation, rate);
+                default:
+                    throw new IllegalArgumentException(violation + " can't be injected.");
+            }
+        }
+
+        /**
+         * Gives a share of the ibans a wrong check digit.
+         *
+         * @param rate share of the ibans, from 0 to 1
+         * @return builder Builder
+         */
+        public Builder invalidCheckDigits(final double rate) {
+            return rate(null, rate);
+        }
+
+        /**
+         * Builds the generator.
+         *
+         * @return generator
+         * @throws IllegalArgumentException if the rates add up to more than 1
+         *         or no country can have an injected violation.
+         * @throws UnsupportedCountryException if a country doesn't support ibans.
+         */
+        public RandomIbanGenerator build() {
+            return new RandomIbanGenerator(this);
+        }
+
+        private Builder rate(final IbanFormatViolation violation, final double rate) {
+            if (!(rate >= 0 && rate <= 1)) {
+                throw new IllegalArgumentException("rate must be between 0 and 1");
+            }
+            injectedRates.put(violation, rate);
+            return this;
+        }
+    }
+}
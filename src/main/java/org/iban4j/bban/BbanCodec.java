@@ -0,0 +1,329 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary codec of the bbans of one structure, giving the smallest fixed
+ * size key for the country.
+ * <p/>
+ * Consecutive positions of one character type are encoded together: digits
+ * as a binary integer, letters with 5 bits each and mixed characters in base
+ * 36. Runs longer than a long can hold are split into chunks of 18 digits or
+ * 12 characters. Chunks are written most significant first, so keys compare
+ * like the bbans: signed longs as unsigned numbers, byte keys as unsigned
+ * bytes. Lower case characters of mixed entries are encoded as upper case.
+ * <p/>
+ * The country code isn't part of the key and the check digit follows from
+ * country code and bban, so a key together with the country restores the iban.
+ *
+ * @see BbanStructure#getCodec()
+ */
+public final class BbanCodec {
+
+    // country code and check digit precede the bban
+    private static final int BBAN_INDEX = 4;
+
+    // 10^18 - 1 takes 60 bits, 36^12 - 1 takes 63 bits
+    private static final int MAX_DIGITS = 18;
+    private static final int MAX_CHARACTERS = 12;
+    private static final int BITS_PER_LETTER = 5;
+
+    private final int bbanLength;
+    // chunks of one character type, each encoded as one integer
+    private final EntryCharacterType[] chunkTypes;
+    private final int[] chunkLengths;
+    private final int[] chunkBits;
+    private final int bitLength;
+
+    BbanCodec(final BbanStructure structure) {
+        final List<EntryCharacterType> types = new ArrayList<EntryCharacterType>();
+        final List<Integer> lengths = new ArrayList<Integer>();
+        EntryCharacterType runType = null;
+        int runLength = 0;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            if (entry.getCharacterType() != runType) {
+                addChunks(types, lengths, runType, runLength);
+                runType = entry.getCharacterType();
+                runLength = 0;
+            }
+            runLength += entry.getLength();
+        }
+        addChunks(types, lengths, runType, runLength);
+
+        bbanLength = structure.getBbanLength();
+        chunkTypes = types.toArray(new EntryCharacterType[types.size()]);
+        chunkLengths = new int[chunkTypes.length];
+        chunkBits = new int[chunkTypes.length];
+        int bits = 0;
+        for (int i = 0; i < chunkTypes.length; i++) {
+            chunkLengths[i] = lengths.get(i);
+            chunkBits[i] = bitsOf(chunkTypes[i], chunkLengths[i]);
+            bits += chunkBits[i];
+        }
+        bitLength = bits;
+    }
+
+    /**
+     * @return the number of significant bits of a key.
+     */
+    public int getBitLength() {
+        return bitLength;
+    }
+
+    /**
+     * @return the number of bytes of a byte key.
+     */
+    public int getKeyLength() {
+        return (bitLength + 7) / 8;
+    }
+
+    /**
+     * @return true if keys fit in a long, see {@link #encodeToLong(CharSequence)}.
+     */
+    public boolean isLongKey() {
+        return bitLength <= 64;
+    }
+
+    /**
+     * Encodes the bban of an iban into a long.
+     *
+     * @param iban iban of the structure, the bban starting at index 4.
+     * @return the key
+     * @throws IllegalArgumentException if the iban doesn't match the structure.
+     * @throws IllegalStateException if keys don't fit in a long.
+     */
+    public long encodeToLong(final CharSequence iban) {
+        requireLongKey();
+        requireLength(iban.length());
+        long key = 0;
+        int index = BBAN_INDEX;
+        for (int i = 0; i < chunkTypes.length; i++) {
+            key = key << chunkBits[i] | chunkValue(iban, index, i);
+            index += chunkLengths[i];
+        }
+        return key;
+    }
+
+    /**
+     * Encodes the bban of an iban into {@link #getKeyLength()} bytes.
+     *
+     * @param iban iban of the structure, the bban starting at index 4.
+     * @param key the key buffer
+     * @param offset index of the key's first byte
+     * @throws IllegalArgumentException if the iban doesn't match the structure.
+     */
+    public void encode(final CharSequence iban, final byte[] key, final int offset) {
+        requireLength(iban.length());
+        Arrays.fill(key, offset, offset + getKeyLength(), (byte) 0);
+        int index = BBAN_INDEX;
+        int bitOffset = offset * 8;
+        for (int i = 0; i < chunkTypes.length; i++) {
+            writeBits(key, bitOffset, chunkValue(iban, index, i), chunkBits[i]);
+            index += chunkLengths[i];
+            bitOffset += chunkBits[i];
+        }
+    }
+
+    /**
+     * Decodes a long key.
+     *
+     * @param key the key
+     * @param iban buffer receiving the bban from index 4 on
+     * @throws IllegalArgumentException if the key wasn't encoded by this codec.
+     * @throws IllegalStateException if keys don't fit in a long.
+     */
+    public void decode(final long key, final char[] iban) {
+        requireLongKey();
+        requireLength(iban.length);
+        long rest = key;
+        int index = BBAN_INDEX + bbanLength;
+        for (int i = chunkTypes.length - 1; i >= 0; i--) {
+            index -= chunkLengths[i];
+            writeChunk(rest & (1L << chunkBits[i]) - 1, iban, index, i);
+            rest >>>= chunkBits[i];
+        }
+        if (rest != 0) {
+            throw new IllegalArgumentException("Key has more than " + bitLength + " bits.");
+        }
+    }
+
+    /**
+     * Decodes a byte key.
+     *
+     * @param key the key buffer
+     * @param offset index of the key's first byte
+     * @param iban buffer receiving the bban from index 4 on
+     * @throws IllegalArgumentException if the key wasn't encoded by this codec.
+     */
+    public void decode(final byte[] key, final int offset, final char[] iban) {
+        requireLength(iban.length);
+        int index = BBAN_INDEX;
+        int bitOffset = offset * 8;
+        for (int i = 0; i < chunkTypes.length; i++) {
+            writeChunk(readBits(key, bitOffset, chunkBits[i]), iban, index, i);
+            index += chunkLengths[i];
+            bitOffset += chunkBits[i];
+        }
+    }
+
+    private long chunkValue(final CharSequence iban, final int from, final int chunk) {
+        final EntryCharacterType type = chunkTypes[chunk];
+        long value = 0;
+        for (int i = from; i < from + chunkLengths[chunk]; i++) {
+            final char ch = iban.charAt(i);
+            final int digit = digitValue(type, ch);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Character '" + ch + "' at index " + i +
+                        " is not of type " + type + ".");
+            }
+            switch (type) {
+                case n:
+                    value = value * 10 + digit;
+                    break;
+                case a:
+                    value = value << BITS_PER_LETTER | digit;
+                    break;
+                default:
+                    value = value * 36 + digit;
+                    break;
+            }
+        }
+        return value;
+    }
+
+    private void writeChunk(final long value, final char[] iban, final int from, final int chunk) {
+        final EntryCharacterType type = chunkTypes[chunk];
+        long rest = value;
+        for (int i = from + chunkLengths[chunk] - 1; i >= from; i--) {
+            final int digit;
+            switch (type) {
+                case n:
+                    digit = (int) (rest % 10);
+                    iban[i] = (char) ('0' + digit);
+                    rest /= 10;
+                    break;
+                case a:
+                    digit = (int) (rest & (1 << BITS_PER_LETTER) - 1);
+                    if (digit >= 26) {
+                        throw new IllegalArgumentException("Key is not of this codec.");
+                    }
+                    iban[i] = (char) ('A' + digit);
+                    rest >>>= BITS_PER_LETTER;
+                    break;
+                default:
+                    digit = (int) (rest % 36);
+                    iban[i] = Character.toUpperCase(Character.forDigit(digit, 36));
+                    rest /= 36;
+                    break;
+            }
+        }
+        if (rest != 0) {
+            throw new IllegalArgumentException("Key is not of this codec.");
+        }
+    }
+
+    private void requireLongKey() {
+        if (!isLongKey()) {
+            throw new IllegalStateException("Keys of " + bitLength + " bits don't fit in a long.");
+        }
+    }
+
+    private void requireLength(final int ibanLength) {
+        if (ibanLength != BBAN_INDEX + bbanLength) {
+            throw new IllegalArgumentException("Iban length must be " +
+                    (BBAN_INDEX + bbanLength) + ", but is " + ibanLength + ".");
+        }
+    }
+
+    private static void addChunks(final List<EntryCharacterType> types, final List<Integer> lengths,
+                                  final EntryCharacterType type, final int length) {
+        final int maxLength = type == EntryCharacterType.n ? MAX_DIGITS : MAX_CHARACTERS;
+        for (int rest = length; rest > 0; rest -= maxLength) {
+            types.add(type);
+            lengths.add(Math.min(rest, maxLength));
+        }
+    }
+
+    private static int bitsOf(final EntryCharacterType type, final int length) {
+        long max = 1;
+        switch (type) {
+            case n:
+                for (int i = 0; i < length; i++) {
+                    max *= 10;
+                }
+                break;
+            case a:
+                return length * BITS_PER_LETTER;
+            default:
+                for (int i = 0; i < length; i++) {
+                    max *= 36;
+                }
+                break;
+        }
+        return 64 - Long.numberOfLeadingZeros(max - 1);
+    }
+
+    private static int digitValue(final EntryCharacterType type, final char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return type == EntryCharacterType.a ? -1 : ch - '0';
+        }
+        if (ch >= 'A' && ch <= 'Z') {
+            return type == EntryCharacterType.n ? -1 : type == EntryCharacterType.a ? ch - 'A' : ch - 'A' + 10;
+        }
+        if (ch >= 'a' && ch <= 'z') {
+            return type == EntryCharacterType.c ? ch - 'a' + 10 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the low bits of the value most significant first, into zeroed bytes.
+     */
+    private static void writeBits(final byte[] key, final int bitOffset, final long value,
+                                  final int bits) {
+        int offset = bitOffset;
+        int remaining = bits;
+        while (remaining > 0) {
+            final int free = 8 - (offset & 7);
+            final int count = Math.min(free, remaining);
+            final int piece = (int) (value >>> (remaining - count)) & (1 << count) - 1;
+            key[offset >> 3] |= piece << (free - count);
+            remaining -= count;
+            offset += count;
+        }
+    }
+
+    private static long readBits(final byte[] key, final int bitOffset, final int bits) {
+        long value = 0;
+        int offset = bitOffset;
+        int remaining = bits;
+        while (remaining > 0) {
+            final int free = 8 - (offset & 7);
+            final int count = Math.min(free, remaining);
+            final int piece = (key[offset >> 3] & 0xFF) >>> (free - count) & (1 << count) - 1;
+            value = value << count | piece;
+            remaining -= count;
+            offset += count;
+        }
+        return value;
+    }
+}
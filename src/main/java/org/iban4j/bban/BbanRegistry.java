@@ -0,0 +1,324 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.CountryCode;
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+import org.iban4j.support.Assert;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of bban structures, one per supported country.
+ * <p/>
+ * Registries are either the built in default ({@link #defaults()}) or loaded
+ * from a file in the SWIFT IBAN Registry text format: tab separated, one data
+ * element per line and one country per column. The following elements are used:
+ * <ul>
+ * <li>IBAN prefix country code (ISO 3166)</li>
+ * <li>BBAN structure, e.g. 4!a6!n8!n</li>
+ * <li>BBAN length, optional</li>
+ * <li>Bank identifier position within the BBAN, e.g. 1-4</li>
+ * <li>Branch identifier position within the BBAN, optional</li>
+ * </ul>
+ * The registry doesn't describe national check digits and other bban parts,
+ * all positions outside of the bank and branch identifiers become account number
+ * entries.
+ *
+ * @see BbanStructure#setRegistry(BbanRegistry)
+ */
+public final class BbanRegistry {
+
+    private static final String COUNTRY_CODE_ELEMENT = "IBAN prefix country code";
+    private static final String BBAN_STRUCTURE_ELEMENT = "BBAN structure";
+    private static final String BBAN_LENGTH_ELEMENT = "BBAN length";
+    private static final String BANK_POSITION_ELEMENT = "Bank identifier position";
+    private static final String BRANCH_POSITION_ELEMENT = "Branch identifier position";
+
+    private static final CountryCode[] COUNTRY_CODES = CountryCode.values();
+
+    // indexed by country code ordinal
+    private final BbanStructure[] structures;
+
+    BbanRegistry(final Map<CountryCode, BbanStructure> structures) {
+        this.structures = new BbanStructure[COUNTRY_CODES.length];
+        for (final Map.Entry<CountryCode, BbanStructure> entry : structures.entrySet()) {
+            this.structures[entry.getKey().ordinal()] = entry.getValue();
+        }
+    }
+
+    private BbanRegistry(final BbanStructure[] structures) {
+        this.structures = structures;
+    }
+
+    /**
+     * Returns the built in registry.
+     *
+     * @return default registry
+     */
+    public static BbanRegistry defaults() {
+        return BbanStructure.DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Loads a registry from a SWIFT IBAN Registry text file.
+     *
+     * @param file registry file, UTF-8 encoded
+     * @return registry
+     * @throws IOException if the file can't be read.
+     * @throws IllegalArgumentException if the file content is not a valid registry.
+     */
+    public static BbanRegistry load(final File file) throws IOException {
+        Assert.notNull(file, "file can't be null");
+        final Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            return load(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Loads a registry in SWIFT IBAN Registry text format. The reader is not closed.
+     *
+     * @param reader registry content
+     * @return registry
+     * @throws IOException if the content can't be read.
+     * @throws IllegalArgumentException if the content is not a valid registry.
+     */
+    public static BbanRegistry load(final Reader reader) throws IOException {
+        Assert.notNull(reader, "reader can't be null");
+        String[] countryCodes = null;
+        String[] bbanStructures = null;
+        String[] bbanLengths = null;
+        String[] bankPositions = null;
+        String[] branchPositions = null;
+
+        final BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            final String[] cells = line.split("\t", -1);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = unquote(cells[i]);
+            }
+            final String element = cells[0];
+            if (startsWithIgnoreCase(element, COUNTRY_CODE_ELEMENT)) {
+                countryCodes = cells;
+            } else if (startsWithIgnoreCase(element, BBAN_STRUCTURE_ELEMENT)) {
+                bbanStructures = cells;
+            } else if (startsWithIgnoreCase(element, BBAN_LENGTH_ELEMENT)) {
+                bbanLengths = cells;
+            } else if (startsWithIgnoreCase(element, BANK_POSITION_ELEMENT)) {
+                bankPositions = cells;
+            } else if (startsWithIgnoreCase(element, BRANCH_POSITION_ELEMENT)) {
+                branchPositions = cells;
+            }
+        }
+        if (countryCodes == null || bbanStructures == null || bankPositions == null) {
+            throw new IllegalArgumentException("Registry must contain " + COUNTRY_CODE_ELEMENT +
+                    ", " + BBAN_STRUCTURE_ELEMENT + " and " + BANK_POSITION_ELEMENT + " elements.");
+        }
+
+        final BbanStructure[] structures = new BbanStructure[COUNTRY_CODES.length];
+        for (int column = 1; column < countryCodes.length; column++) {
+            final String alpha2 = countryCodes[column];
+            if (alpha2.length() == 0) {
+                continue;
+            }
+            final CountryCode countryCode = CountryCode.getByCode(alpha2);
+            if (countryCode == null || alpha2.length() != 2) {
+                throw new IllegalArgumentException("Unknown country code [" + alpha2 + "] in registry.");
+            }
+            try {
+                structures[countryCode.ordinal()] = compile(cell(bbanStructures, column),
+                        cell(bbanLengths, column), cell(bankPositions, column),
+                        cell(branchPositions, column));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(alpha2 + ": " + e.getMessage(), e);
+            }
+        }
+        return new BbanRegistry(structures);
+    }
+
+    /**
+     * @param countryCode the country code.
+     * @return BbanStructure for specified country or null if country is not supported.
+     */
+    public BbanStructure forCountry(final CountryCode countryCode) {
+        return countryCode == null ? null : structures[countryCode.ordinal()];
+    }
+
+    /**
+     * Returns the countries of the registry.
+     *
+     * @return supported country codes
+     */
+    public Set<CountryCode> getCountryCodes() {
+        final Set<CountryCode> countryCodes = EnumSet.noneOf(CountryCode.class);
+        for (int i = 0; i < structures.length; i++) {
+            if (structures[i] != null) {
+                countryCodes.add(COUNTRY_CODES[i]);
+            }
+        }
+        return countryCodes;
+    }
+
+    /**
+     * Compiles the registry description of one country into a bban structure.
+     */
+    private static BbanStructure compile(final String bbanStructure, final String bbanLength,
+                                         final String bankPosition, final String branchPosition) {
+        final EntryCharacterType[] characterTypes = parseStructure(bbanStructure);
+        final int length = characterTypes.length;
+        if (bbanLength.length() != 0 && !bbanLength.equals(String.valueOf(length))) {
+            throw new IllegalArgumentException("BBAN length " + bbanLength +
+                    " doesn't match BBAN structure " + bbanStructure);
+        }
+
+        final BbanEntryType[] entryTypes = new BbanEntryType[length];
+        for (int i = 0; i < length; i++) {
+            entryTypes[i] = BbanEntryType.account_number;
+        }
+        if (!markPosition(entryTypes, bankPosition, BbanEntryType.bank_code)) {
+            throw new IllegalArgumentException("Bank identifier position is required.");
+        }
+        markPosition(entryTypes, branchPosition, BbanEntryType.branch_code);
+
+        // consecutive positions of the same entry and character type form one entry
+        final List<BbanStructureEntry> entries = new ArrayList<BbanStructureEntry>();
+        int start = 0;
+        for (int i = 1; i <= length; i++) {
+            if (i == length || entryTypes[i] != entryTypes[start] ||
+                    characterTypes[i] != characterTypes[start]) {
+                entries.add(new BbanStructureEntry(entryTypes[start],
+                        characterTypes[start], i - start));
+                start = i;
+            }
+        }
+        return new BbanStructure(entries.toArray(new BbanStructureEntry[entries.size()]));
+    }
+
+    /**
+     * Parses a structure like 4!a6!n8!n into one character type per position.
+     */
+    private static EntryCharacterType[] parseStructure(final String structure) {
+        final List<EntryCharacterType> types = new ArrayList<EntryCharacterType>();
+        int i = 0;
+        while (i < structure.length()) {
+            final int from = i;
+            while (i < structure.length() && Character.isDigit(structure.charAt(i))) {
+                i++;
+            }
+            if (i == from) {
+                throw new IllegalArgumentException("Invalid BBAN structure " + structure);
+            }
+            final int count = Integer.parseInt(structure.substring(from, i));
+            if (i < structure.length() && structure.charAt(i) == '!') {
+                i++;
+            }
+            if (i == structure.length()) {
+                throw new IllegalArgumentException("Invalid BBAN structure " + structure);
+            }
+            final EntryCharacterType type;
+            switch (structure.charAt(i++)) {
+                case 'n':
+                    type = EntryCharacterType.n;
+                    break;
+                case 'a':
+                    type = EntryCharacterType.a;
+                    break;
+                case 'c':
+                    type = EntryCharacterType.c;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported character type in BBAN structure " +
+                            structure);
+            }
+            for (int j = 0; j < count; j++) {
+                types.add(type);
+            }
+        }
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("BBAN structure is required.");
+        }
+        return types.toArray(new EntryCharacterType[types.size()]);
+    }
+
+    /**
+     * Marks the 1 based, inclusive position range like 1-4 with the entry type.
+     *
+     * @return false if there is no position.
+     */
+    private static boolean markPosition(final BbanEntryType[] entryTypes, final String position,
+                                        final BbanEntryType entryType) {
+        if (position.length() == 0 || position.equalsIgnoreCase("N/A")) {
+            return false;
+        }
+        final int separator = position.indexOf('-');
+        final int from;
+        final int to;
+        try {
+            if (separator < 0) {
+                from = Integer.parseInt(position.trim());
+                to = from;
+            } else {
+                from = Integer.parseInt(position.substring(0, separator).trim());
+                to = Integer.parseInt(position.substring(separator + 1).trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + entryType + " position " + position);
+        }
+        if (from < 1 || from > to || to > entryTypes.length) {
+            throw new IllegalArgumentException(entryType + " position " + position +
+                    " is outside of the BBAN.");
+        }
+        for (int i = from - 1; i < to; i++) {
+            if (entryTypes[i] != BbanEntryType.account_number) {
+                throw new IllegalArgumentException(entryType + " position " + position +
+                        " overlaps " + entryTypes[i]);
+            }
+            entryTypes[i] = entryType;
+        }
+        return true;
+    }
+
+    private static String cell(final String[] cells, final int column) {
+        return cells == null || column >= cells.length ? "" : cells[column];
+    }
+
+    private static String unquote(final String cell) {
+        String value = cell.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' &&
+                value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    private static boolean startsWithIgnoreCase(final String value, final String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+}
@@ -16,26 +16,64 @@
 package org.iban4j.bban;
 
 import org.iban4j.CountryCode;
+import org.iban4j.support.Assert;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.EnumMap;
 
 
 /**
  * Class which represents bban structure
+ * <p/>
+ * Structures are looked up in the current {@link BbanRegistry}, the built in
+ * one unless replaced with {@link #setRegistry(BbanRegistry)}. The registry is
+ * published through a single volatile reference, so a reload doesn't block
+ * concurrent validation.
  */
 public class BbanStructure {
 
-    private final BbanStructureEntry[] entries;
+    // country code and check digit precede the bban
+    private static final int BBAN_INDEX = 4;
+
+    private static final BbanEntryType[] ENTRY_TYPES = BbanEntryType.values();
 
-    private BbanStructure(final BbanStructureEntry... entries) {
+    private final BbanStructureEntry[] entries;
+    private final int bbanLength;
+    // bban offset shifted left by 8 bits or'ed with the length of every
+    // entry type, indexed by ordinal, -1 if absent
+    private final int[] entryPositions = new int[ENTRY_TYPES.length];
+    // created on first use, racing threads create equivalent validators
+    private volatile BbanValidator validator;
+    private volatile BbanCodec codec;
+
+    BbanStructure(final BbanStructureEntry... entries) {
         this.entries = entries;
+        Arrays.fill(entryPositions, -1);
+        int length = 0;
+        for (BbanStructureEntry entry : entries) {
+            final int ordinal = entry.getEntryType().ordinal();
+            final int position = entryPositions[ordinal];
+            if (position < 0) {
+                entryPositions[ordinal] = length << 8 | entry.getLength();
+            } else if ((position >>> 8) + (position & 0xFF) == length) {
+                // adjacent entries of one type form one field
+                entryPositions[ordinal] += entry.getLength();
+            }
+            length += entry.getLength();
+        }
+        this.bbanLength = length;
     }
 
 
-    private static final EnumMap<CountryCode, BbanStructure> structures;
+    static final BbanRegistry DEFAULT_REGISTRY;
+
+    private static volatile BbanRegistry registry;
 
     static {
-        structures = new EnumMap<CountryCode, BbanStructure>(CountryCode.class);
+        final EnumMap<CountryCode, BbanStructure> structures =
+                new EnumMap<CountryCode, BbanStructure>(CountryCode.class);
 
         structures.put(CountryCode.AL,
                 new BbanStructure(
@@ -421,7 +459,8 @@ public class BbanStructure {
                         BbanStructureEntry.accountNumber(10, 'n'),
                         BbanStructureEntry.nationalCheckDigit(2, 'n')));
 
-
+        DEFAULT_REGISTRY = new BbanRegistry(structures);
+        registry = DEFAULT_REGISTRY;
     }
 
     /**
@@ -429,26 +468,123 @@ public class BbanStructure {
      * @return BbanStructure for specified country or null if country is not supported.
      */
     public static BbanStructure forCountry(final CountryCode countryCode) {
-        return structures.get(countryCode);
+        return registry.forCountry(countryCode);
+    }
+
+    /**
+     * Returns the registry structures are currently looked up in.
+     *
+     * @return current registry
+     */
+    public static BbanRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Replaces the registry structures are looked up in. Validations running
+     * concurrently use either the previous or the new registry.
+     * <p/>
+     * Caches of validation results notice the swap on their next use:
+     * {@link org.iban4j.IbanCache} and {@link org.iban4j.IbanRejectionCache}
+     * drop their entries and {@link org.iban4j.IbanBlocklist} matches bank
+     * prefixes against the new bank codes. Existing {@link org.iban4j.Iban}
+     * instances stay valid, they were validated under the previous registry.
+     *
+     * @param registry the new registry, {@link BbanRegistry#defaults()} to
+     *                 restore the built in structures.
+     */
+    public static void setRegistry(final BbanRegistry registry) {
+        Assert.notNull(registry, "registry can't be null");
+        BbanStructure.registry = registry;
+    }
+
+    /**
+     * Loads a SWIFT IBAN Registry file and makes it the current registry.
+     * The current registry stays in place if the file can't be loaded.
+     *
+     * @param registryFile registry file
+     * @throws IOException if the file can't be read.
+     * @throws IllegalArgumentException if the file content is not a valid registry.
+     */
+    public static void reload(final File registryFile) throws IOException {
+        setRegistry(BbanRegistry.load(registryFile));
     }
 
     public BbanStructureEntry[] getEntries() {
         return entries;
     }
 
+    /**
+     * Returns the offset of the entry within the bban.
+     * <p/>
+     * If the structure has several entries of the type, adjacent ones count
+     * as one entry and the first one in bban order is described.
+     *
+     * @param entryType BbanEntryType
+     * @return offset from the start of the bban, -1 if the structure doesn't
+     *         contain the entry.
+     */
+    public int getEntryOffset(final BbanEntryType entryType) {
+        final int position = entryPositions[entryType.ordinal()];
+        return position < 0 ? -1 : position >>> 8;
+    }
+
+    /**
+     * Returns the length of the entry, see {@link #getEntryOffset(BbanEntryType)}.
+     *
+     * @param entryType BbanEntryType
+     * @return length of the entry, -1 if the structure doesn't contain the entry.
+     */
+    public int getEntryLength(final BbanEntryType entryType) {
+        final int position = entryPositions[entryType.ordinal()];
+        return position < 0 ? -1 : position & 0xFF;
+    }
+
     /**
      * Returns the length of bban.
      *
      * @return int length
      */
     public int getBbanLength() {
-        int length = 0;
+        return bbanLength;
+    }
 
-        for (BbanStructureEntry entry : entries) {
-            length += entry.getLength();
+    /**
+     * Checks the length and the bban characters of the iban against the
+     * structure. Only ascii characters are accepted.
+     * <p/>
+     * On Java 15 and later the checks run in a class generated for this
+     * structure, so structures of loaded registries are checked as fast as
+     * the built in ones.
+     *
+     * @param iban CharSequence
+     * @return true if the iban has the structure's length and every bban
+     *         character matches the character type of its entry.
+     */
+    public boolean matches(final CharSequence iban) {
+        if (iban.length() != BBAN_INDEX + bbanLength) {
+            return false;
+        }
+        BbanValidator validator = this.validator;
+        if (validator == null) {
+            validator = BbanValidatorFactory.create(this);
+            this.validator = validator;
         }
+        return validator.isValid(iban);
+    }
 
-        return length;
+    /**
+     * Returns the binary codec of the structure's bbans.
+     *
+     * @return codec
+     */
+    public BbanCodec getCodec() {
+        BbanCodec codec = this.codec;
+        if (codec == null) {
+            codec = new BbanCodec(this);
+            this.codec = codec;
+        }
+        return codec;
     }
 
     @Override
@@ -24,7 +24,7 @@ public class BbanStructureEntry {
     private final EntryCharacterType characterType;
     private final int length;
 
-    private BbanStructureEntry(final BbanEntryType entryType,
+    BbanStructureEntry(final BbanEntryType entryType,
                        final EntryCharacterType characterType,
                        final int length) {
         this.entryType = entryType;
@@ -34,37 +34,55 @@ public class BbanStructureEntry {
 
     public static BbanStructureEntry bankCode(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.bank_code,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry branchCode(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.branch_code,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry accountNumber(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.account_number,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry nationalCheckDigit(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.national_check_digit,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry accountType(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.account_type,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry ownerAccountNumber(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.owner_account_number,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
     }
 
     public static BbanStructureEntry identificationNumber(final int length, final char characterType) {
         return new BbanStructureEntry(BbanEntryType.identification_number,
-                EntryCharacterType.valueOf(String.valueOf(characterType)), length);
+                characterType(characterType), length);
+    }
+
+    /**
+     * Maps the registry character type letter to its enum constant without
+     * the String allocation and name lookup of EntryCharacterType.valueOf.
+     */
+    private static EntryCharacterType characterType(final char characterType) {
+        switch (characterType) {
+            case 'n':
+                return EntryCharacterType.n;
+            case 'a':
+                return EntryCharacterType.a;
+            case 'c':
+                return EntryCharacterType.c;
+            default:
+                throw new IllegalArgumentException("No enum constant " +
+                        EntryCharacterType.class.getName() + "." + characterType);
+        }
     }
 
     public BbanEntryType getEntryType() {
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+/**
+ * Checks the bban characters of an iban against one bban structure.
+ *
+ * @see BbanValidatorFactory
+ */
+interface BbanValidator {
+
+    /**
+     * @param iban CharSequence of the structure's iban length, checked by the caller.
+     * @return true if every bban character matches the character type of its
+     *         position. Only ascii characters are accepted.
+     */
+    boolean isValid(CharSequence iban);
+}
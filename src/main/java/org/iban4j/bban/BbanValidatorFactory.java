@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+
+/**
+ * Creates the validators of bban structures.
+ * <p/>
+ * This base version interprets the structure. The Java 15 version in the
+ * multi-release section of the jar defines a hidden class per structure
+ * instead, with the character checks of every position written out.
+ */
+final class BbanValidatorFactory {
+
+    private BbanValidatorFactory() {
+    }
+
+    static BbanValidator create(final BbanStructure structure) {
+        return new InterpretedBbanValidator(structure);
+    }
+
+    /**
+     * Returns the character type of every bban position.
+     */
+    static EntryCharacterType[] characterTypes(final BbanStructure structure) {
+        final EntryCharacterType[] characterTypes =
+                new EntryCharacterType[structure.getBbanLength()];
+        int offset = 0;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            for (int i = 0; i < entry.getLength(); i++) {
+                characterTypes[offset++] = entry.getCharacterType();
+            }
+        }
+        return characterTypes;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+
+/**
+ * Validator walking a per position table of character types.
+ */
+final class InterpretedBbanValidator implements BbanValidator {
+
+    private static final int BBAN_INDEX = 4;
+
+    private final EntryCharacterType[] characterTypes;
+
+    InterpretedBbanValidator(final BbanStructure structure) {
+        characterTypes = BbanValidatorFactory.characterTypes(structure);
+    }
+
+    public boolean isValid(final CharSequence iban) {
+        for (int i = 0; i < characterTypes.length; i++) {
+            final char ch = iban.charAt(BBAN_INDEX + i);
+            switch (characterTypes[i]) {
+                case n:
+                    if (ch < '0' || ch > '9') {
+                        return false;
+                    }
+                    break;
+                case a:
+                    if (ch < 'A' || ch > 'Z') {
+                        return false;
+                    }
+                    break;
+                default:
+                    if ((ch < '0' || ch > '9') && (ch < 'A' || ch > 'Z') &&
+                            (ch < 'a' || ch > 'z')) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+}
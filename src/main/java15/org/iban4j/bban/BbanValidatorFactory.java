@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates the validators of bban structures.
+ * <p/>
+ * Java 15 version: every structure gets a hidden class implementing
+ * {@link BbanValidator} with one straight-line sequence of character range
+ * checks per bban position. The checks are branch free, so the class needs
+ * no stack map frames. Hidden classes are not referenced by the class
+ * loader and are unloaded together with the registry they were built for.
+ * Falls back to the {@link InterpretedBbanValidator} if the lookup may not
+ * define the class or the bban is too long for the generated code. Errors
+ * of the generated class, like a {@link VerifyError}, are not caught.
+ */
+final class BbanValidatorFactory {
+
+    private static final String CLASS_NAME = "org/iban4j/bban/SpecializedBbanValidator";
+    private static final int BBAN_INDEX = 4;
+
+    // constant pool indexes, see writeConstantPool
+    private static final int THIS_CLASS = 2;
+    private static final int SUPER_CLASS = 4;
+    private static final int INTERFACE = 6;
+    private static final int INIT_NAME = 7;
+    private static final int INIT_DESCRIPTOR = 8;
+    private static final int OBJECT_INIT = 10;
+    private static final int IS_VALID_NAME = 11;
+    private static final int IS_VALID_DESCRIPTOR = 12;
+    private static final int CODE = 13;
+    private static final int CHAR_AT = 19;
+    private static final int CONSTANT_POOL_COUNT = 20;
+
+    private static final int ILOAD_2 = 0x1c;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ISTORE_2 = 0x3d;
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int BIPUSH = 0x10;
+    private static final int ISUB = 0x64;
+    private static final int IAND = 0x7e;
+    private static final int IOR = 0x80;
+    private static final int IXOR = 0x82;
+    private static final int IUSHR = 0x7c;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+
+    private BbanValidatorFactory() {
+    }
+
+    static BbanValidator create(final BbanStructure structure) {
+        // the positions are pushed with bipush
+        if (BBAN_INDEX + structure.getBbanLength() > Byte.MAX_VALUE) {
+            return new InterpretedBbanValidator(structure);
+        }
+        final MethodHandle constructor;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(classBytes(characterTypes(structure)), true);
+            constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class));
+        } catch (IllegalAccessException | NoSuchMethodException | SecurityException |
+                UnsupportedOperationException e) {
+            return new InterpretedBbanValidator(structure);
+        }
+        try {
+            return (BbanValidator) constructor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't create the bban validator", e);
+        }
+    }
+
+    /**
+     * Returns the character type of every bban position.
+     */
+    static EntryCharacterType[] characterTypes(final BbanStructure structure) {
+        final EntryCharacterType[] characterTypes =
+                new EntryCharacterType[structure.getBbanLength()];
+        int offset = 0;
+        for (final BbanStructureEntry entry : structure.getEntries()) {
+            for (int i = 0; i < entry.getLength(); i++) {
+                characterTypes[offset++] = entry.getCharacterType();
+            }
+        }
+        return characterTypes;
+    }
+
+    private static byte[] classBytes(final EntryCharacterType[] characterTypes) {
+        try {
+            return writeClass(characterTypes);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream doesn't throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] writeClass(final EntryCharacterType[] characterTypes)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(59);
+        writeConstantPool(out);
+        out.writeShort(0x0010 | 0x0020); // final, super
+        out.writeShort(THIS_CLASS);
+        out.writeShort(SUPER_CLASS);
+        out.writeShort(1);
+        out.writeShort(INTERFACE);
+        out.writeShort(0); // fields
+        out.writeShort(2); // methods
+
+        // public <init>() { super(); }
+        out.writeShort(0x0001);
+        out.writeShort(INIT_NAME);
+        out.writeShort(INIT_DESCRIPTOR);
+        writeCode(out, 1, 1, new byte[]{
+                (byte) ALOAD_0, (byte) INVOKESPECIAL, 0, OBJECT_INIT, (byte) RETURN});
+
+        // public boolean isValid(CharSequence iban)
+        out.writeShort(0x0001);
+        out.writeShort(IS_VALID_NAME);
+        out.writeShort(IS_VALID_DESCRIPTOR);
+        writeCode(out, 6, 3, isValidCode(characterTypes));
+
+        out.writeShort(0); // class attributes
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeConstantPool(final DataOutputStream out) throws IOException {
+        out.writeShort(CONSTANT_POOL_COUNT);
+        utf8(out, CLASS_NAME);                          // 1
+        classRef(out, 1);                               // 2
+        utf8(out, "java/lang/Object");                  // 3
+        classRef(out, 3);                               // 4
+        utf8(out, "org/iban4j/bban/BbanValidator");     // 5
+        classRef(out, 5);                               // 6
+        utf8(out, "<init>");                            // 7
+        utf8(out, "()V");                               // 8
+        nameAndType(out, 7, 8);                         // 9
+        memberRef(out, 10, 4, 9);                       // 10 Object.<init>
+        utf8(out, "isValid");                           // 11
+        utf8(out, "(Ljava/lang/CharSequence;)Z");       // 12
+        utf8(out, "Code");                              // 13
+        utf8(out, "java/lang/CharSequence");            // 14
+        classRef(out, 14);                              // 15
+        utf8(out, "charAt");                            // 16
+        utf8(out, "(I)C");                              // 17
+        nameAndType(out, 16, 17);                       // 18
+        memberRef(out, 11, 15, 18);                     // 19 CharSequence.charAt
+    }
+
+    /**
+     * Ors the out of range bit of every position into an accumulator and
+     * returns its inverse.
+     */
+    private static byte[] isValidCode(final EntryCharacterType[] characterTypes) {
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ICONST_0);
+        for (int i = 0; i < characterTypes.length; i++) {
+            code.write(ALOAD_1);
+            code.write(BIPUSH);
+            code.write(BBAN_INDEX + i);
+            code.write(INVOKEINTERFACE);
+            code.write(0);
+            code.write(CHAR_AT);
+            code.write(2);
+            code.write(0);
+            code.write(ISTORE_2);
+            switch (characterTypes[i]) {
+                case n:
+                    outOfRange(code, '0', '9');
+                    break;
+                case a:
+                    outOfRange(code, 'A', 'Z');
+                    break;
+                default:
+                    outOfRange(code, '0', '9');
+                    outOfRange(code, 'A', 'Z');
+                    code.write(IAND);
+                    outOfRange(code, 'a', 'z');
+                    code.write(IAND);
+            }
+            code.write(IOR);
+        }
+        code.write(ICONST_1);
+        code.write(IXOR);
+        code.write(IRETURN);
+        return code.toByteArray();
+    }
+
+    /**
+     * Pushes ((ch - from) | (to - ch)) >>> 31, 1 if ch is out of range.
+     */
+    private static void outOfRange(final ByteArrayOutputStream code,
+                                   final char from, final char to) {
+        code.write(ILOAD_2);
+        code.write(BIPUSH);
+        code.write(from);
+        code.write(ISUB);
+        code.write(BIPUSH);
+        code.write(to);
+        code.write(ILOAD_2);
+        code.write(ISUB);
+        code.write(IOR);
+        code.write(BIPUSH);
+        code.write(31);
+        code.write(IUSHR);
+    }
+
+    private static void writeCode(final DataOutputStream out, final int maxStack,
+                                  final int maxLocals, final byte[] code) throws IOException {
+        out.writeShort(1); // attributes
+        out.writeShort(CODE);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    private static void utf8(final DataOutputStream out, final String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+
+    private static void classRef(final DataOutputStream out, final int name) throws IOException {
+        out.writeByte(7);
+        out.writeShort(name);
+    }
+
+    private static void nameAndType(final DataOutputStream out, final int name,
+                                    final int descriptor) throws IOException {
+        out.writeByte(12);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+    }
+
+    private static void memberRef(final DataOutputStream out, final int tag, final int owner,
+                                  final int nameAndType) throws IOException {
+        out.writeByte(tag);
+        out.writeShort(owner);
+        out.writeShort(nameAndType);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BankCodeMigrationTest {
+
+    @Test
+    public void migratedIbanShouldHaveNewBankCodeAndCheckDigit() {
+        final BankCodeMigration migration = new BankCodeMigration.Builder()
+                .map(CountryCode.DE, "37040044", "50010517").build();
+
+        final String migrated = migration.migrate("DE89370400440532013000");
+        assertThat(migrated, is(equalTo(new Iban.Builder().countryCode(CountryCode.DE)
+                .bankCode("50010517").accountNumber("0532013000").build().toString())));
+    }
+
+    @Test
+    public void migrationShouldMatchFullCalculationForAllCountries() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final CountryCode countryCode = CountryCode.getByCode(iban.substring(0, 2));
+            final String bankCode = IbanUtil.getBankCode(iban);
+            if (bankCode == null || BbanStructure.forCountry(countryCode)
+                    .getEntryOffset(BbanEntryType.bank_code) < 0) {
+                continue;
+            }
+            final String newBankCode = shift(bankCode);
+            final BankCodeMigration migration = new BankCodeMigration.Builder()
+                    .map(countryCode, bankCode, newBankCode).build();
+
+            final char[] buffer = ("xx" + iban).toCharArray();
+            final BankCodeMigration.Result result = migration.migrate(buffer, 2, iban.length());
+            final String migrated = new String(buffer, 2, iban.length());
+            if (result == BankCodeMigration.Result.NO_NATIONAL_CHECK_DIGIT) {
+                assertThat(migrated, is(equalTo(iban)));
+                continue;
+            }
+            assertThat(iban, result, is(BankCodeMigration.Result.MIGRATED));
+            assertThat(IbanUtil.getBankCode(migrated), is(equalTo(newBankCode)));
+            IbanUtil.validate(migrated);
+        }
+    }
+
+    @Test
+    public void bankCodesOfDifferentDigitLengthShouldBeMigrated() {
+        final BankCodeMigration migration = new BankCodeMigration.Builder()
+                .map(CountryCode.DO, "BAGR", "1234").build();
+
+        final String migrated = migration.migrate("DO28BAGR00000001212453611324");
+        assertThat(migrated.substring(4, 8), is(equalTo("1234")));
+        IbanUtil.validate(migrated);
+    }
+
+    @Test
+    public void bulkMigrationShouldOnlyRewriteMappedIbans() {
+        final BankCodeMigration migration = new BankCodeMigration.Builder()
+                .map(CountryCode.FR, "20041", "30004")
+                .map(CountryCode.GB, "NWBK", "MIDL").build();
+        final String[] ibans = {
+                "FR1420041010050500013M02606",
+                "GB29NWBK60161331926819",
+                "GB29RBOS60161331926819",
+                "DE89370400440532013000"
+        };
+        final StringBuilder buffer = new StringBuilder();
+        final int[] offsets = new int[ibans.length + 1];
+        for (int i = 0; i < ibans.length; i++) {
+            buffer.append(ibans[i]);
+            offsets[i + 1] = buffer.length();
+        }
+        final char[] chars = buffer.toString().toCharArray();
+        final BankCodeMigration.Result[] results = new BankCodeMigration.Result[ibans.length];
+
+        assertThat(migration.migrate(chars, offsets, ibans.length, results), is(equalTo(2)));
+        assertThat(results[2], is(BankCodeMigration.Result.NOT_MAPPED));
+        assertThat(results[3], is(BankCodeMigration.Result.NOT_MAPPED));
+        final String france = new String(chars, offsets[0], offsets[1] - offsets[0]);
+        assertThat(france.substring(4, 9), is(equalTo("30004")));
+        IbanUtil.validate(france);
+        final String britain = new String(chars, offsets[1], offsets[2] - offsets[1]);
+        assertThat(britain, is(equalTo(new Iban.Builder().countryCode(CountryCode.GB).bankCode("MIDL")
+                .branchCode("601613").accountNumber("31926819").build().toString())));
+        assertThat(new String(chars, offsets[2], offsets[4] - offsets[2]),
+                is(equalTo(ibans[2] + ibans[3])));
+    }
+
+    @Test
+    public void accountWithoutNationalCheckDigitShouldNotBeMigrated() {
+        final BankCodeMigration migration = new BankCodeMigration.Builder()
+                .map(CountryCode.NO, "8601", "8605").build();
+
+        // 8605111794 leaves no mod 11 check digit
+        final char[] iban = "NO9386011117947".toCharArray();
+        assertThat(migration.migrate(iban, 0, iban.length),
+                is(BankCodeMigration.Result.NO_NATIONAL_CHECK_DIGIT));
+        assertThat(new String(iban), is(equalTo("NO9386011117947")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bankCodeNotMatchingStructureShouldBeRejected() {
+        new BankCodeMigration.Builder().map(CountryCode.DE, "37040044", "5001051");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bankCodeMappedTwiceShouldBeRejected() {
+        new BankCodeMigration.Builder().map(CountryCode.DE, "37040044", "50010517")
+                .map(CountryCode.DE, "37040044", "10020030");
+    }
+
+    /**
+     * Replaces every character by the next one of the same kind.
+     */
+    private static String shift(final String bankCode) {
+        final char[] chars = bankCode.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            final char ch = chars[i];
+            chars[i] = ch == '9' ? '0' : ch == 'Z' ? 'A' : (char) (ch + 1);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BbanValidatorsTest {
+
+    @Test
+    public void generatedValidatorsShouldAcceptValidIbans() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final CountryCode countryCode = CountryCode.getByCode(iban.substring(0, 2));
+            assertThat(iban, BbanValidators.isValidBban(countryCode.ordinal(), iban), is(true));
+        }
+    }
+
+    @Test
+    public void generatedValidatorsShouldExistForAllSupportedCountries() {
+        for (final CountryCode countryCode : CountryCode.values()) {
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            final int ordinal = countryCode.ordinal();
+            if (structure == null) {
+                assertThat(BbanValidators.isValidBban(ordinal, "XX00"), is(false));
+                continue;
+            }
+            final String iban = new RandomIbanGenerator.Builder()
+                    .country(countryCode, 1).build().generate(ordinal);
+            assertThat(iban, BbanValidators.isValidBban(ordinal, iban), is(true));
+            assertThat(iban, BbanValidators.isValidBban(ordinal,
+                    iban.substring(0, iban.length() - 1)), is(false));
+            assertThat(iban, BbanValidators.isValidBban(ordinal, iban + "0"), is(false));
+
+            final StringBuilder variant = new StringBuilder(iban);
+            int index = 4;
+            for (final BbanStructureEntry entry : structure.getEntries()) {
+                for (int i = 0; i < entry.getLength(); i++, index++) {
+                    final char original = variant.charAt(index);
+                    variant.setCharAt(index, wrongCharacter(entry.getCharacterType()));
+                    assertThat(variant.toString(),
+                            BbanValidators.isValidBban(ordinal, variant), is(false));
+                    variant.setCharAt(index, original);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void generatedValidatorsShouldRejectWrongCharacterTypes() {
+        final int ordinal = CountryCode.GB.ordinal();
+
+        assertThat(BbanValidators.isValidBban(ordinal, "GB29NWBK60161331926819"), is(true));
+        assertThat(BbanValidators.isValidBban(ordinal, "GB29NWbK60161331926819"), is(false));
+        assertThat(BbanValidators.isValidBban(ordinal, "GB29NWBK6016133192681A"), is(false));
+        assertThat(BbanValidators.isValidBban(ordinal, "GB29NWBK6016133192681"), is(false));
+    }
+
+    @Test
+    public void generatedValidatorsShouldBeLoadedByName() throws Exception {
+        final GeneratedBbanValidator validator = (GeneratedBbanValidator)
+                Class.forName("org.iban4j.BbanValidators").newInstance();
+
+        assertThat(validator.accepts(CountryCode.GB.ordinal(), "GB29NWBK60161331926819"), is(true));
+        assertThat(validator.accepts(CountryCode.GB.ordinal(), "GB29NWbK60161331926819"), is(false));
+    }
+
+    @Test
+    public void fallbackShouldReportTheSameViolations() {
+        try {
+            IbanUtil.validate("GB29NWbK60161331926819");
+        } catch (IbanFormatException e) {
+            assertThat(e.getFormatViolation(),
+                    is(IbanFormatException.IbanFormatViolation.BBAN_ONLY_UPPER_CASE_LETTERS));
+            return;
+        }
+        throw new AssertionError("lower case bank code was accepted");
+    }
+
+    private static char wrongCharacter(final EntryCharacterType characterType) {
+        switch (characterType) {
+            case n:
+                return 'A';
+            case a:
+                return '0';
+            default:
+                return '-';
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanStructure;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class CountryValidatorTest {
+
+    private static final String BLOCKED_ACCOUNT = "9999999999";
+
+    @Before
+    public void plugInValidators() {
+        CountryValidators.set(CountryValidators.index(
+                CountryValidators.discover(new ServicesClassLoader())));
+    }
+
+    @After
+    public void removeValidators() {
+        CountryValidators.set(null);
+    }
+
+    @Test
+    public void pluggedInValidatorShouldRejectIban() {
+        try {
+            IbanUtil.validate("DE33370400449999999999");
+        } catch (IbanFormatException e) {
+            assertThat(e.getFormatViolation(), is(IbanFormatException.IbanFormatViolation.UNKNOWN));
+            assertThat(e.getActual(), is(equalTo((Object) BLOCKED_ACCOUNT)));
+            return;
+        }
+        throw new AssertionError("blocked account was accepted");
+    }
+
+    @Test
+    public void pluggedInValidatorShouldAcceptOtherIbans() {
+        IbanUtil.validate("DE89370400440532013000");
+        IbanUtil.validate("AT611904300234573201");
+    }
+
+    @Test
+    public void validatorsShouldBeIndexedByCountry() {
+        final CountryValidator[][] validators = CountryValidators.get();
+
+        assertThat(validators[CountryCode.DE.ordinal()].length, is(equalTo(1)));
+        assertThat(validators[CountryCode.AT.ordinal()], is(nullValue()));
+    }
+
+    @Test
+    public void validatorsOfTheSameCountryShouldBeChained() {
+        final CountryValidator validator = new BlockedAccountValidator();
+        final CountryValidator[][] validators = CountryValidators.index(
+                Arrays.asList(validator, validator));
+
+        assertThat(validators[CountryCode.DE.ordinal()].length, is(equalTo(2)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownProviderShouldBeReported() {
+        CountryValidators.discover(new ServicesClassLoader() {
+            @Override
+            public Class<?> loadClass(final String name) throws ClassNotFoundException {
+                if (name.endsWith("BlockedAccountValidator")) {
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name);
+            }
+        });
+    }
+
+    @Test
+    public void validatorsShouldBeDiscoveredOnlyWithProviderConfiguration() {
+        CountryValidators.set(null);
+
+        IbanUtil.validate("DE33370400449999999999");
+    }
+
+    /**
+     * Serves the provider configuration of this test, which stays off the
+     * class path of the other tests.
+     */
+    private static class ServicesClassLoader extends ClassLoader {
+
+        ServicesClassLoader() {
+            super(CountryValidatorTest.class.getClassLoader());
+        }
+
+        @Override
+        public Enumeration<URL> getResources(final String name) throws IOException {
+            if (CountryValidators.SERVICE_RESOURCE.equals(name)) {
+                return super.getResources("org/iban4j/CountryValidatorTest.services");
+            }
+            return super.getResources(name);
+        }
+    }
+
+    public static class BlockedAccountValidator implements CountryValidator {
+
+        public CountryCode[] getCountryCodes() {
+            return new CountryCode[] { CountryCode.DE };
+        }
+
+        public void validate(final CharSequence iban, final BbanStructure structure) {
+            final int offset = 4 + structure.getEntryOffset(BbanEntryType.account_number);
+            final int length = structure.getEntryLength(BbanEntryType.account_number);
+            final CharSequence accountNumber = iban.subSequence(offset, offset + length);
+            if (BLOCKED_ACCOUNT.contentEquals(accountNumber)) {
+                throw new IbanFormatException(IbanFormatException.IbanFormatViolation.UNKNOWN,
+                        accountNumber.toString(), "Account is blocked.");
+            }
+        }
+    }
+}
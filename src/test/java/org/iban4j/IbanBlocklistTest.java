@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class IbanBlocklistTest {
+
+    @Test
+    public void blockedIbanShouldMatchInAnyFormat() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Collections.<String>emptyList());
+
+        assertThat(blocklist.isBlocked("DE89370400440532013000"), is(true));
+        assertThat(blocklist.isBlocked("de89 3704 0044 0532 0130 00"), is(true));
+        assertThat(blocklist.isBlocked(Iban.valueOf("DE89370400440532013000")), is(true));
+        assertThat(blocklist.isBlocked("DE89370400440532013001"), is(false));
+        assertThat(blocklist.isBlocked("DE8937040044053201300"), is(false));
+    }
+
+    @Test
+    public void bankPrefixShouldBlockAllIbansOfTheBank() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Collections.<String>emptyList(),
+                Arrays.asList("DE37040044", "gb nwbk"));
+
+        assertThat(blocklist.isBankBlocked("DE89370400440532013000"), is(true));
+        assertThat(blocklist.isBankBlocked("DE44370400440000000001"), is(true));
+        assertThat(blocklist.isBankBlocked("GB29NWBK60161331926819"), is(true));
+        assertThat(blocklist.isBankBlocked("DE89370400450532013000"), is(false));
+        assertThat(blocklist.isBankBlocked("GB29NWBA60161331926819"), is(false));
+        assertThat(blocklist.isIbanBlocked("DE89370400440532013000"), is(false));
+        assertThat(blocklist.isBlocked("DE89370400440532013000"), is(true));
+    }
+
+    @Test
+    public void incompleteInputShouldNotBeBlocked() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Arrays.asList("DE37040044"));
+
+        assertThat(blocklist.isBlocked("DE"), is(false));
+        assertThat(blocklist.isBlocked("DE89 3704 004"), is(false));
+        assertThat(blocklist.isBlocked("1289370400440532013000"), is(false));
+    }
+
+    @Test
+    public void hyphenatedAndPrefixedIbansShouldBeBlocked() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Arrays.asList("GBNWBK"));
+
+        assertThat(blocklist.isIbanBlocked("DE89-3704-0044-0532-0130-00"), is(true));
+        assertThat(blocklist.isBlocked("IBAN DE89 3704 0044 0532 0130 00"), is(true));
+        assertThat(blocklist.isBlocked("iban: de89\u00A03704\u00A00044\u00A00532\u00A00130\u00A000"), is(true));
+        assertThat(blocklist.isBankBlocked("GB29-NWBK-6016-1331-9268-19"), is(true));
+    }
+
+    @Test
+    public void inputWhichCantBeNormalizedShouldBeRejected() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Arrays.asList("DE37040044"));
+
+        for (final String input : new String[] {"", "DE89/3704/0044/0532/0130/00", null}) {
+            try {
+                blocklist.isBlocked(input);
+                throw new AssertionError("[" + input + "] was answered");
+            } catch (IbanFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void duplicatesShouldBeCountedOnce() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000", "DE89 3704 0044 0532 0130 00"),
+                Arrays.asList("DE37040044", "de37040044"));
+
+        assertThat(blocklist.getIbanCount(), is(equalTo(1)));
+        assertThat(blocklist.getBankCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void reloadShouldReplaceAllEntries() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Arrays.asList("GBNWBK"));
+        blocklist.reload(Arrays.asList("AT611904300234573201"),
+                Collections.<String>emptyList());
+
+        assertThat(blocklist.isBlocked("DE89370400440532013000"), is(false));
+        assertThat(blocklist.isBlocked("GB29NWBK60161331926819"), is(false));
+        assertThat(blocklist.isBlocked("AT611904300234573201"), is(true));
+        assertThat(blocklist.getBankCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void failedReloadShouldKeepPreviousEntries() {
+        IbanBlocklist blocklist = new IbanBlocklist(
+                Arrays.asList("DE89370400440532013000"),
+                Collections.<String>emptyList());
+        try {
+            blocklist.reload(Collections.<String>emptyList(), Arrays.asList("DE3704"));
+        } catch (IllegalArgumentException e) {
+            assertThat(blocklist.isBlocked("DE89370400440532013000"), is(true));
+            return;
+        }
+        throw new AssertionError("bank prefix with short bank code was accepted");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixOfUnsupportedCountryShouldBeRejected() {
+        new IbanBlocklist(Collections.<String>emptyList(), Arrays.asList("US12345678"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ibanWithInvalidCharactersShouldBeRejected() {
+        new IbanBlocklist(Arrays.asList("DE89/3704/0044"), Collections.<String>emptyList());
+    }
+
+    @Test
+    public void bankPrefixesShouldFollowRegistrySwap() throws IOException {
+        IbanBlocklist blocklist = new IbanBlocklist(Collections.<String>emptyList(),
+                Arrays.asList("DE37040044"));
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tDE\n" +
+                    "BBAN structure\t4!n14!n\n" +
+                    "Bank identifier position within the BBAN\t1-4\n")));
+            blocklist.isBlocked("DE89370400440532013000");
+            throw new AssertionError("bank prefix longer than the bank code was kept");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+        assertThat(blocklist.isBlocked("DE89370400440532013000"), is(true));
+    }
+
+    @Test
+    public void bankCodesLongerThanOneKeyShouldBeRejected() throws IOException {
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tDE\n" +
+                    "BBAN structure\t9!n9!n\n" +
+                    "Bank identifier position within the BBAN\t1-9\n")));
+            try {
+                new IbanBlocklist(Collections.<String>emptyList(), Arrays.asList("DE370400440"));
+                throw new AssertionError("bank code longer than one key was accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            IbanBlocklist blocklist = new IbanBlocklist(Arrays.asList("DE89370400440532013000"),
+                    Collections.<String>emptyList());
+            assertThat(blocklist.isBankBlocked("DE89370400440532013000"), is(false));
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    @Test
+    public void emptyBlocklistShouldNotBlock() {
+        IbanBlocklist blocklist = new IbanBlocklist();
+
+        assertThat(blocklist.isBlocked("DE89370400440532013000"), is(false));
+        assertThat(blocklist.getIbanCount(), is(equalTo(0)));
+    }
+}
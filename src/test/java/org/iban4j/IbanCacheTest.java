@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IbanCacheTest {
+
+    @Test
+    public void cachedIbanShouldBeSameInstance() {
+        IbanCache cache = new IbanCache(16);
+        Iban iban1 = cache.valueOf("DE89370400440532013000");
+        Iban iban2 = cache.valueOf("DE89370400440532013000");
+
+        assertThat(iban2, is(sameInstance(iban1)));
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getMissCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void cachedIbanShouldEqualValueOf() {
+        IbanCache cache = new IbanCache(16);
+        cache.valueOf("AT611904300234573201");
+
+        assertThat(cache.valueOf("AT611904300234573201"),
+                is(equalTo(Iban.valueOf("AT611904300234573201"))));
+    }
+
+    @Test
+    public void invalidIbanShouldNeverBeCached() {
+        IbanCache cache = new IbanCache(16);
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.valueOf("AT621904300234573201");
+                fail("invalid iban was accepted");
+            } catch (InvalidCheckDigitException e) {
+                // expected
+            }
+        }
+        assertThat(cache.getHitCount(), is(equalTo(0L)));
+        assertThat(cache.getMissCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void cachedIbansShouldBeDroppedOnRegistrySwap() throws IOException {
+        IbanCache cache = new IbanCache(16);
+        cache.valueOf("DE89370400440532013000");
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tAT\n" +
+                    "BBAN structure\t5!n11!n\n" +
+                    "Bank identifier position within the BBAN\t1-5\n")));
+            cache.valueOf("DE89370400440532013000");
+            fail("iban of a country outside of the registry was answered from the cache");
+        } catch (UnsupportedCountryException e) {
+            // expected
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    @Test(expected = IbanFormatException.class)
+    public void nullShouldThrowException() {
+        new IbanCache(16).valueOf(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeMaximumSizeShouldBeRejected() {
+        new IbanCache(IbanCache.MAXIMUM_SIZE_LIMIT + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cacheWithZeroSizeShouldThrowException() {
+        new IbanCache(0);
+    }
+
+    @Test
+    public void cacheCapacityShouldBeRoundedUpToPowerOfTwo() {
+        assertThat(new IbanCache(100).getCapacity(), is(equalTo(128)));
+    }
+
+    @Test
+    public void frequentIbanShouldSurviveScan() {
+        IbanCache cache = new IbanCache(4);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 5 == 0) {
+                cache.valueOf("DE89370400440532013000");
+            }
+            cache.valueOf(new Iban.Builder()
+                    .countryCode(CountryCode.AT)
+                    .bankCode("19043")
+                    .accountNumber(String.format("%011d", i))
+                    .build().toString());
+        }
+        long hits = cache.getHitCount();
+        cache.valueOf("DE89370400440532013000");
+
+        assertThat(cache.getHitCount(), is(equalTo(hits + 1)));
+        assertTrue(cache.getHitRate() > 0.0);
+    }
+}
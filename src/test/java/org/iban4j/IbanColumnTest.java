@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IbanColumnTest {
+
+    @Test
+    public void appendedIbansShouldBeReturnedInOrder() {
+        IbanColumn column = new IbanColumn(1);
+        Collection<Object[]> data = TestDataHelper.getIbanData();
+        for (Object[] row : data) {
+            column.append((String) row[1]);
+        }
+
+        assertThat(column.size(), is(equalTo(data.size())));
+        int i = 0;
+        for (Object[] row : data) {
+            assertThat(column.get(i), is(equalTo(row[1])));
+            assertThat(column.getCountryCode(i), is(equalTo(((Iban) row[0]).getCountryCode())));
+            i++;
+        }
+    }
+
+    @Test
+    public void validateShouldReturnInvalidRows() {
+        IbanColumn column = new IbanColumn();
+        column.append("DE89370400440532013000");
+        column.append("AT621904300234573201");
+        column.append("AT611904300234573201");
+        column.append("XX");
+        column.append("");
+
+        BitSet invalid = column.validate();
+
+        assertThat(invalid.cardinality(), is(equalTo(3)));
+        assertThat(invalid.get(1), is(true));
+        assertThat(invalid.get(3), is(true));
+        assertThat(invalid.get(4), is(true));
+    }
+
+    @Test(expected = InvalidCheckDigitException.class)
+    public void validateRowShouldThrowException() {
+        IbanColumn column = new IbanColumn();
+        column.append("AT621904300234573201");
+        column.validate(0);
+    }
+
+    @Test
+    public void getEntryShouldExtractBbanEntry() {
+        IbanColumn column = new IbanColumn();
+        column.append("GB29NWBK60161331926819");
+
+        assertThat(column.getEntry(0, BbanEntryType.bank_code), is(equalTo("NWBK")));
+        assertThat(column.getEntry(0, BbanEntryType.branch_code), is(equalTo("601613")));
+        assertThat(column.getEntry(0, BbanEntryType.account_number), is(equalTo("31926819")));
+        assertThat(column.getEntry(0, BbanEntryType.national_check_digit), is(nullValue()));
+
+        char[] buffer = new char[10];
+        assertThat(column.getEntry(0, BbanEntryType.branch_code, buffer, 2), is(equalTo(6)));
+        assertThat(new String(buffer, 2, 6), is(equalTo("601613")));
+    }
+
+    @Test
+    public void getEntryOfUnknownCountryShouldReturnNull() {
+        IbanColumn column = new IbanColumn();
+        column.append("ZZ29NWBK60161331926819");
+
+        assertThat(column.getCountryCode(0), is(nullValue()));
+        assertThat(column.getEntry(0, BbanEntryType.bank_code), is(nullValue()));
+    }
+
+    @Test
+    public void iteratorShouldReuseView() {
+        IbanColumn column = new IbanColumn();
+        column.append("DE89370400440532013000");
+        column.append("AT611904300234573201");
+
+        IbanColumn.View previous = null;
+        int index = 0;
+        for (IbanColumn.View view : column) {
+            if (previous != null) {
+                assertThat(view, is(sameInstance(previous)));
+            }
+            assertThat(view.getIndex(), is(equalTo(index)));
+            assertThat(view.toString(), is(equalTo(column.get(index))));
+            view.validate();
+            previous = view;
+            index++;
+        }
+        assertThat(index, is(equalTo(2)));
+    }
+
+    @Test
+    public void viewShouldConvertToIban() {
+        IbanColumn column = new IbanColumn();
+        column.append(Iban.valueOf("DE89370400440532013000"));
+
+        assertThat(column.view(0).toIban(), is(equalTo(Iban.valueOf("DE89370400440532013000"))));
+        assertThat(column.view(0).subSequence(0, 2).toString(), is(equalTo("DE")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendWithNonLatin1CharacterShouldThrowException() {
+        new IbanColumn().append("DE8937040044053201300€");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getWithInvalidIndexShouldThrowException() {
+        new IbanColumn().get(0);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IbanRangeGeneratorTest {
+
+    @Test
+    public void generatedIbansShouldBeConsecutiveAndValid() {
+        final IbanRangeGenerator generator = new IbanRangeGenerator(
+                Iban.valueOf("DE68370400440532012990"), 1000);
+
+        long account = 532012990L;
+        int count = 0;
+        while (generator.hasNext()) {
+            final Iban iban = generator.next();
+            assertThat(Iban.valueOf(iban.toString()), is(equalTo(iban)));
+            assertThat(Long.parseLong(iban.getAccountNumber()), is(equalTo(account++)));
+            count++;
+        }
+        assertThat(count, is(equalTo(1000)));
+    }
+
+    @Test
+    public void carriesShouldUpdateCheckDigit() {
+        final IbanRangeGenerator generator = IbanRangeGenerator.forBank(
+                CountryCode.GB, "NWBK", "601613", "09999999", 2);
+
+        assertThat(generator.next().getAccountNumber(), is(equalTo("09999999")));
+        final Iban iban = generator.next();
+        assertThat(iban.getAccountNumber(), is(equalTo("10000000")));
+        assertThat(iban.getCheckDigit(), is(equalTo(IbanUtil.calculateCheckDigit(iban.toString()))));
+        assertThat(generator.hasNext(), is(false));
+    }
+
+    @Test
+    public void generatorShouldStopAtLastAccountNumber() {
+        final IbanRangeGenerator generator = IbanRangeGenerator.forBank(
+                CountryCode.AT, "19043", null, "99999999998", 10);
+
+        assertThat(generator.next().getAccountNumber(), is(equalTo("99999999998")));
+        assertThat(generator.next().getAccountNumber(), is(equalTo("99999999999")));
+        assertThat(generator.hasNext(), is(false));
+    }
+
+    @Test
+    public void nationalCheckDigitsShouldBeComputed() {
+        final IbanRangeGenerator generator = IbanRangeGenerator.forBank(
+                CountryCode.FR, "20041", "01005", "0500013M026", 2);
+
+        assertThat(generator.next().toString(), is(equalTo("FR1420041010050500013M02606")));
+        assertThat(Iban.valueOf(generator.next().toString()).getAccountNumber(),
+                is(equalTo("0500013M027")));
+    }
+
+    @Test
+    public void accountsWithoutNationalCheckDigitShouldBeSkipped() {
+        // 8601111798 leaves no mod 11 check digit
+        final IbanRangeGenerator generator = IbanRangeGenerator.forBank(
+                CountryCode.NO, "8601", null, "111798", 2);
+
+        assertThat(generator.next().getAccountNumber(), is(equalTo("111799")));
+        assertThat(Iban.valueOf(generator.next().toString()).getAccountNumber(), is(equalTo("111800")));
+    }
+
+    @Test
+    public void ibansShouldBeWrittenToBufferAndStream() throws IOException {
+        final IbanRangeGenerator generator = IbanRangeGenerator.forBank(
+                CountryCode.DE, "37040044", null, "0532013000", 3);
+        final char[] buffer = new char[24];
+
+        assertThat(generator.next(buffer, 1), is(equalTo(22)));
+        assertThat(new String(buffer, 1, 22), is(equalTo("DE89370400440532013000")));
+
+        final StringBuilder out = new StringBuilder();
+        assertThat(generator.writeTo(out, 5), is(equalTo(2L)));
+        assertThat(out.toString(), is(equalTo(
+                Iban.valueOf("DE62370400440532013001") + "\n" +
+                Iban.valueOf("DE35370400440532013002") + "\n")));
+        assertThat(generator.next(buffer, 0), is(equalTo(-1)));
+    }
+
+    @Test(expected = IbanFormatException.class)
+    public void invalidBankCodeShouldBeRejected() {
+        IbanRangeGenerator.forBank(CountryCode.DE, "3704004X", null, "0532013000", 1);
+    }
+}
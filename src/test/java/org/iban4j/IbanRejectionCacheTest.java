@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.IbanFormatException.IbanFormatViolation;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class IbanRejectionCacheTest {
+
+    @Test
+    public void repeatedInvalidIbanShouldBeAnsweredFromCache() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        Iban4jException first = rejectionOf(cache, "AT621904300234573201");
+        Iban4jException second = rejectionOf(cache, "AT621904300234573201");
+
+        assertThat(first, is(instanceOf(InvalidCheckDigitException.class)));
+        assertThat(second, is(instanceOf(InvalidCheckDigitException.class)));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getMessage(), is(equalTo(first.getMessage())));
+        assertThat(second.getStackTrace().length, is(equalTo(0)));
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getMissCount(), is(equalTo(1L)));
+        assertThat(rejectionOf(cache, "AT621904300234573201"), is(sameInstance(second)));
+    }
+
+    @Test
+    public void cachedRejectionShouldKeepFormatViolation() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        rejectionOf(cache, "AT61190430023457320");
+
+        IbanFormatException rejection = (IbanFormatException) cache.getRejection("AT61190430023457320");
+        assertThat(rejection.getFormatViolation(), is(equalTo(IbanFormatViolation.BBAN_LENGTH)));
+    }
+
+    @Test
+    public void violationShouldBeLookedUpWithoutThrowing() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        rejectionOf(cache, "AT61190430023457320");
+        rejectionOf(cache, "AT621904300234573201");
+
+        assertThat(cache.getViolation("AT61190430023457320"), is(equalTo(IbanFormatViolation.BBAN_LENGTH)));
+        assertThat(cache.getViolation("AT621904300234573201"), is(equalTo(IbanFormatViolation.UNKNOWN)));
+        assertThat(cache.getViolation("AT611904300234573201"), is(nullValue()));
+        assertThat(cache.getHitCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void otherRejectionTypesShouldBeKept() {
+        final Iban4jException blocked = new Iban4jException("Account is blocked.") {
+        };
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        CountryValidators.set(CountryValidators.index(Arrays.<CountryValidator>asList(
+                new CountryValidator() {
+                    public CountryCode[] getCountryCodes() {
+                        return new CountryCode[] { CountryCode.AT };
+                    }
+
+                    public void validate(final CharSequence iban,
+                                         final BbanStructure structure) {
+                        throw blocked;
+                    }
+                })));
+        try {
+            assertThat(rejectionOf(cache, "AT611904300234573201"), is(sameInstance(blocked)));
+            assertThat(rejectionOf(cache, "AT611904300234573201"), is(sameInstance(blocked)));
+        } finally {
+            CountryValidators.set(null);
+        }
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void rejectionsShouldBeDroppedOnRegistrySwap() throws IOException {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tAT\n" +
+                    "BBAN structure\t5!n11!n\n" +
+                    "Bank identifier position within the BBAN\t1-5\n")));
+            assertThat(rejectionOf(cache, "DE89370400440532013000"),
+                    is(instanceOf(UnsupportedCountryException.class)));
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+
+        cache.validate("DE89370400440532013000");
+        assertThat(cache.getRejection("DE89370400440532013000"), is(nullValue()));
+    }
+
+    @Test
+    public void validIbanShouldNotBeCached() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        Iban iban = cache.valueOf("AT611904300234573201");
+
+        assertThat(iban, is(equalTo(Iban.valueOf("AT611904300234573201"))));
+        assertThat(cache.getRejection("AT611904300234573201"), is(nullValue()));
+    }
+
+    @Test
+    public void offendersShouldBeOrderedByCount() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        rejectionOf(cache, "DE89370400440532013001");
+        for (int i = 0; i < 3; i++) {
+            rejectionOf(cache, "AT621904300234573201");
+        }
+
+        List<IbanRejectionCache.Offender> offenders = cache.getOffenders(1);
+        assertThat(offenders.size(), is(equalTo(1)));
+        assertThat(offenders.get(0).getIban(), is(equalTo("AT621904300234573201")));
+        assertThat(offenders.get(0).getCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void cacheShouldNotGrowBeyondMaximumSize() {
+        IbanRejectionCache cache = new IbanRejectionCache(16);
+        for (int i = 0; i < 1000; i++) {
+            rejectionOf(cache, "XX" + i);
+        }
+        assertThat(cache.getOffenders(Integer.MAX_VALUE).size(), is(equalTo(16)));
+    }
+
+    @Test
+    public void leastRecentlySeenRejectionShouldBeEvicted() {
+        IbanRejectionCache cache = new IbanRejectionCache(16);
+        // one entry per stripe, the first input has to be evicted from its stripe
+        final String first = "XX0";
+        rejectionOf(cache, first);
+        String sameStripe = null;
+        for (int i = 1; sameStripe == null; i++) {
+            final String candidate = "XX" + i;
+            final int hash = candidate.hashCode();
+            final int firstHash = first.hashCode();
+            if (((hash ^ (hash >>> 16)) & 15) == ((firstHash ^ (firstHash >>> 16)) & 15)) {
+                sameStripe = candidate;
+            }
+        }
+        rejectionOf(cache, sameStripe);
+
+        assertThat(cache.getRejection(first), is(nullValue()));
+        assertThat(cache.getRejection(sameStripe), is(notNullValue()));
+    }
+
+    @Test
+    public void cachedFormatRejectionShouldKeepItsDetails() {
+        IbanRejectionCache cache = new IbanRejectionCache(32);
+        IbanFormatException first = (IbanFormatException) rejectionOf(cache, "GB29NWbK60161331926819");
+        IbanFormatException second = (IbanFormatException) rejectionOf(cache, "GB29NWbK60161331926819");
+
+        assertThat(second.getFormatViolation(), is(equalTo(first.getFormatViolation())));
+        assertThat(second.getBbanEntryType(), is(equalTo(first.getBbanEntryType())));
+        assertThat(second.getInvalidCharacter(), is(equalTo(first.getInvalidCharacter())));
+        assertThat(second.getActual(), is(equalTo(first.getActual())));
+    }
+
+    @Test
+    public void nullShouldNotBeCached() {
+        IbanRejectionCache cache = new IbanRejectionCache(16);
+        rejectionOf(cache, null);
+        rejectionOf(cache, null);
+
+        assertThat(cache.getHitCount(), is(equalTo(0L)));
+    }
+
+    private static Iban4jException rejectionOf(final IbanRejectionCache cache,
+                                               final String iban) {
+        try {
+            cache.validate(iban);
+        } catch (Iban4jException e) {
+            return e;
+        }
+        fail("invalid iban was accepted");
+        return null;
+    }
+}
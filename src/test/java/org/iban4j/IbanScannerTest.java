@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IbanScannerTest {
+
+    private final IbanScanner scanner = new IbanScanner();
+
+    @Test
+    public void ibansInTextShouldBeFound() {
+        final String text = "Please transfer to DE89370400440532013000, or to our UK account " +
+                "(GB29NWBK60161331926819).";
+        final List<IbanScanner.Match> matches = scanner.findAll(text);
+
+        assertThat(matches.size(), is(equalTo(2)));
+        assertThat(matches.get(0).getStart(), is(equalTo(19)));
+        assertThat(matches.get(0).getEnd(), is(equalTo(41)));
+        assertThat(matches.get(0).getCountryCode(), is(CountryCode.DE));
+        assertThat(matches.get(1).getIban(), is(equalTo("GB29NWBK60161331926819")));
+    }
+
+    @Test
+    public void printFormatShouldBeFound() {
+        final String text = "IBAN: DE89 3704 0044 0532 0130 00\nBIC: COBADEFFXXX";
+        final IbanScanner.Match match = scanner.find(text, 0);
+
+        assertThat(text.substring(match.getStart(), match.getEnd()),
+                is(equalTo("DE89 3704 0044 0532 0130 00")));
+        assertThat(match.getIban(), is(equalTo("DE89370400440532013000")));
+        assertThat(scanner.find(text, match.getEnd()), is(nullValue()));
+    }
+
+    @Test
+    public void allTestIbansShouldBeFound() {
+        final StringBuilder text = new StringBuilder();
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            text.append("iban ").append(((Iban) data[0]).toFormattedString()).append("; ");
+        }
+        final List<IbanScanner.Match> matches = scanner.findAll(text);
+
+        int i = 0;
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            assertThat(matches.get(i++).getIban(), is(equalTo(data[1])));
+        }
+        assertThat(matches.size(), is(equalTo(i)));
+    }
+
+    @Test
+    public void candidatesWithWrongCheckDigitShouldBeRejected() {
+        assertThat(scanner.findAll("DE88370400440532013000 DE89370400440532013000").size(),
+                is(equalTo(1)));
+    }
+
+    @Test
+    public void candidatesInsideWordsShouldBeRejected() {
+        assertThat(scanner.find("XDE89370400440532013000", 0), is(nullValue()));
+        assertThat(scanner.find("DE893704004405320130001", 0), is(nullValue()));
+        assertThat(scanner.find("DE89370400440532013000X", 0), is(nullValue()));
+    }
+
+    @Test
+    public void misplacedSeparatorsShouldBeRejected() {
+        assertThat(scanner.find("DE89 37040044 053 2013000", 0), is(nullValue()));
+        assertThat(scanner.find("DE89  3704 0044 0532 0130 00", 0), is(nullValue()));
+        assertThat(scanner.find("DE89 370400440532013000", 0).getIban(),
+                is(equalTo("DE89370400440532013000")));
+    }
+
+    @Test
+    public void textWithoutIbansShouldHaveNoMatches() {
+        assertThat(scanner.findAll("Invoice 2013-11 for ACME GmbH, DE VAT 123456789").isEmpty(),
+                is(true));
+    }
+}
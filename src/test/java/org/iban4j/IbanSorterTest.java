@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IbanSorterTest {
+
+    @Test
+    public void sortShouldMatchNaturalOrder() {
+        Iban[] ibans = randomIbans(5000, new Random(42));
+        Iban[] expected = ibans.clone();
+        Arrays.sort(expected);
+
+        IbanSorter.sort(ibans);
+
+        assertThat(Arrays.asList(ibans), is(equalTo(Arrays.asList(expected))));
+    }
+
+    @Test
+    public void sortShouldMatchNaturalOrderAfterRegistrySwap() throws IOException {
+        Iban[] ibans = randomIbans(2000, new Random(11));
+        // sort keys under the built in structures
+        Arrays.sort(ibans.clone());
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tDE\n" +
+                    "BBAN structure\t8!n10!n\n" +
+                    "Bank identifier position within the BBAN\t9-18\n")));
+            Iban[] expected = ibans.clone();
+            Arrays.sort(expected);
+
+            IbanSorter.sort(ibans);
+
+            assertThat(Arrays.asList(ibans), is(equalTo(Arrays.asList(expected))));
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    @Test
+    public void sortShouldOrderByCountryAndBankCode() {
+        Iban[] ibans = randomIbans(1000, new Random(7));
+        IbanSorter.sort(ibans);
+
+        for (int i = 1; i < ibans.length; i++) {
+            String previous = ibans[i - 1].getCountryCode() + ibans[i - 1].getBankCode();
+            String current = ibans[i].getCountryCode() + ibans[i].getBankCode();
+            assertThat(previous.compareTo(current) <= 0, is(true));
+        }
+    }
+
+    @Test
+    public void sortRangeShouldLeaveOtherElementsInPlace() {
+        Iban[] ibans = randomIbans(300, new Random(1));
+        Iban[] original = ibans.clone();
+
+        IbanSorter.sort(ibans, 100, 200);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(ibans[i], is(sameInstance(original[i])));
+            assertThat(ibans[200 + i], is(sameInstance(original[200 + i])));
+        }
+        for (int i = 101; i < 200; i++) {
+            assertThat(ibans[i - 1].compareTo(ibans[i]) <= 0, is(true));
+        }
+    }
+
+    @Test
+    public void sortKeysShouldMatchArraysSort() {
+        Random random = new Random(3);
+        long[] keys = new long[10000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        long[] expected = keys.clone();
+        Arrays.sort(expected);
+
+        IbanSorter.sort(keys);
+
+        assertThat(Arrays.equals(keys, expected), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sortWithInvalidRangeShouldThrowException() {
+        IbanSorter.sort(new long[10], 5, 4);
+    }
+
+    private static Iban[] randomIbans(final int count, final Random random) {
+        final String[] deBanks = {"37040044", "52060170", "10010010"};
+        final Iban[] ibans = new Iban[count];
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    ibans[i] = new Iban.Builder()
+                            .countryCode(CountryCode.DE)
+                            .bankCode(deBanks[random.nextInt(deBanks.length)])
+                            .accountNumber(digits(random, 10))
+                            .build();
+                    break;
+                case 2:
+                    ibans[i] = new Iban.Builder()
+                            .countryCode(CountryCode.AT)
+                            .bankCode(digits(random, 5))
+                            .accountNumber(digits(random, 11))
+                            .build();
+                    break;
+                default:
+                    // the national check digit guards bank, branch and account number
+                    final char[] iban = ("IT00A" + (random.nextBoolean() ? "03069" : "05428") +
+                            digits(random, 5) + digits(random, 12)).toCharArray();
+                    NationalCheckDigits.calculate(CountryCode.IT, iban);
+                    final String value = new String(iban);
+                    ibans[i] = Iban.valueOf(IbanUtil.replaceCheckDigit(value,
+                            IbanUtil.calculateCheckDigit(value)));
+            }
+        }
+        return ibans;
+    }
+
+    private static String digits(final Random random, final int length) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IbanSuggestionsTest {
+
+    @Test
+    public void suggestionsShouldContainOriginalOfSubstitutedDigit() {
+        final List<Iban> suggestions = IbanSuggestions.suggest("DE89370400440532013001", 100);
+
+        assertThat(suggestions.contains(Iban.valueOf("DE89370400440532013000")), is(true));
+        for (final Iban suggestion : suggestions) {
+            assertThat(differences(suggestion.toString(), "DE89370400440532013001") <= 2, is(true));
+        }
+    }
+
+    @Test
+    public void swappedCharactersShouldBeSuggestedFirst() {
+        final List<Iban> suggestions = IbanSuggestions.suggest("DE89370400440532031000");
+
+        assertThat(suggestions.contains(Iban.valueOf("DE89370400440532013000")), is(true));
+        assertThat(differences(suggestions.get(0).toString(), "DE89370400440532031000"), is(equalTo(2)));
+        assertThat(differences(suggestions.get(1).toString(), "DE89370400440532031000"), is(equalTo(2)));
+    }
+
+    @Test
+    public void swappedCheckDigitShouldBeSuggested() {
+        final List<Iban> suggestions = IbanSuggestions.suggest("DE98370400440532013000", 100);
+
+        assertThat(suggestions.contains(Iban.valueOf("DE89370400440532013000")), is(true));
+    }
+
+    @Test
+    public void lookAlikeCharacterShouldBeSuggestedFirst() {
+        final List<Iban> suggestions = IbanSuggestions.suggest("DE89370400440532O13000");
+
+        assertThat(suggestions.size(), is(not(equalTo(0))));
+        assertThat(suggestions.get(0).toString(), is(equalTo("DE89370400440532013000")));
+    }
+
+    @Test
+    public void lowerCaseLetterShouldBeSuggestedFirst() {
+        final List<Iban> suggestions = IbanSuggestions.suggest("GB29nWBK60161331926819");
+
+        assertThat(suggestions.get(0).toString(), is(equalTo("GB29NWBK60161331926819")));
+    }
+
+    @Test
+    public void suggestionsShouldBeValidForAllCountries() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final char[] chars = iban.toCharArray();
+            final int index = chars.length - 1;
+            chars[index] = chars[index] == '9' ? '0' : chars[index] == 'Z' ? 'A' : (char) (chars[index] + 1);
+            final String typo = new String(chars);
+
+            final List<Iban> suggestions = IbanSuggestions.suggest(typo, 1000);
+            assertThat(typo, suggestions.contains(data[0]), is(true));
+            for (final Iban suggestion : suggestions) {
+                IbanUtil.validate(suggestion.toString());
+            }
+        }
+    }
+
+    @Test
+    public void maxSuggestionsShouldBeRespected() {
+        assertThat(IbanSuggestions.suggest("DE89370400440532013001", 1).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void ibanOfWrongLengthShouldHaveNoSuggestions() {
+        assertThat(IbanSuggestions.suggest("DE8937040044053201300").isEmpty(), is(true));
+        assertThat(IbanSuggestions.suggest("XX89370400440532013000").isEmpty(), is(true));
+        assertThat(IbanSuggestions.suggest("DE89-7040044053201-000").isEmpty(), is(true));
+    }
+
+    private static int differences(final String first, final String second) {
+        int differences = 0;
+        for (int i = 0; i < first.length(); i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                differences++;
+            }
+        }
+        return differences;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Collection;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThat;
 
@@ -261,6 +262,149 @@ public class IbanTest {
                     .build();
             assertThat(iban.toFormattedString(), is(equalTo("AT14 1904 1023 4573 2012")));
         }
+
+        @Test
+        public void ibanToFormattedStringShouldNotEndWithSpace() {
+            assertThat(Iban.valueOf("DE89370400440532013000").toFormattedString(),
+                    is(equalTo("DE89 3704 0044 0532 0130 00")));
+            assertThat(Iban.valueOf("NO9386011117947").toFormattedString(),
+                    is(equalTo("NO93 8601 1117 947")));
+        }
+
+        @Test
+        public void formatToShouldWriteGroupsIntoBuffersAndAppendables() throws Exception {
+            final Iban iban = Iban.valueOf("DE89370400440532013000");
+
+            final char[] buffer = new char[2 + iban.getFormattedLength(3)];
+            assertThat(iban.formatTo(buffer, 2, 3, '-'), is(equalTo(29)));
+            assertThat(new String(buffer, 2, 29), is(equalTo("DE8-937-040-044-053-201-300-0")));
+
+            final StringBuilder out = new StringBuilder("IBAN: ");
+            iban.formatTo(out);
+            assertThat(out.toString(), is(equalTo("IBAN: DE89 3704 0044 0532 0130 00")));
+            out.setLength(0);
+            iban.formatTo(out, 22, ' ');
+            assertThat(out.toString(), is(equalTo("DE89370400440532013000")));
+        }
+
+        @Test
+        public void parseShouldNormalizeUserInput() {
+            final Iban expected = Iban.valueOf("DE89370400440532013000");
+
+            assertThat(Iban.parse("de89 3704-0044 0532 0130 00"), is(equalTo(expected)));
+            assertThat(Iban.parse(" IBAN DE89 3704 0044 0532 0130 00 "), is(equalTo(expected)));
+            assertThat(Iban.parse("iban: DE89\u00A03704\u00A00044\u00A00532\u00A00130\u00A000"),
+                    is(equalTo(expected)));
+            assertThat(Iban.parse(new StringBuilder("DE89370400440532013000")).toString(),
+                    is(equalTo("DE89370400440532013000")));
+        }
+
+        @Test
+        public void parseShouldKeepAlreadyNormalizedInput() {
+            final String value = "DE89370400440532013000";
+
+            assertThat(Iban.parse(value).toString(), is(sameInstance(value)));
+        }
+
+        @Test
+        public void parseShouldReportViolationsOfNormalizedInput() {
+            try {
+                Iban.parse("IBAN DE89 3704 0044 0532 0130 0");
+                throw new AssertionError("short iban was accepted");
+            } catch (IbanFormatException e) {
+                assertThat(e.getFormatViolation(), is(IbanFormatException.IbanFormatViolation.BBAN_LENGTH));
+            }
+            try {
+                Iban.parse(" IBAN ");
+                throw new AssertionError("empty iban was accepted");
+            } catch (IbanFormatException e) {
+                assertThat(e.getFormatViolation(), is(IbanFormatException.IbanFormatViolation.IBAN_NOT_EMPTY));
+            }
+        }
+
+        @Test
+        public void resetBuilderShouldBuildIbansOfOtherCountries() {
+            final Iban.Builder builder = new Iban.Builder();
+            final Iban de = builder.countryCode(CountryCode.DE)
+                    .bankCode("37040044")
+                    .accountNumber("0532013000")
+                    .build();
+            final Iban at = builder.reset()
+                    .countryCode(CountryCode.AT)
+                    .bankCode("19043")
+                    .accountNumber("00234573201")
+                    .build();
+
+            assertThat(de.toString(), is(equalTo("DE89370400440532013000")));
+            assertThat(at.toString(), is(equalTo("AT611904300234573201")));
+        }
+
+        @Test
+        public void reusedBuilderShouldReportInvalidValues() {
+            final Iban.Builder builder = new Iban.Builder()
+                    .countryCode(CountryCode.AT)
+                    .bankCode("19043")
+                    .accountNumber("00234573201");
+            builder.build();
+            try {
+                builder.accountNumber("0023457320").build();
+                throw new AssertionError("short account number was accepted");
+            } catch (IbanFormatException e) {
+                assertThat(e.getFormatViolation(), is(IbanFormatException.IbanFormatViolation.BBAN_LENGTH));
+            }
+            assertThat(builder.accountNumber("00234573201").build().toString(),
+                    is(equalTo("AT611904300234573201")));
+        }
+    }
+
+    public static class IbanComparisonTest {
+
+        @Test
+        public void ibansShouldBeOrderedByCountryCodeFirst() {
+            Iban at = Iban.valueOf("AT611904300234573201");
+            Iban de = Iban.valueOf("DE89370400440532013000");
+
+            assertThat(at.compareTo(de) < 0, is(true));
+            assertThat(de.compareTo(at) > 0, is(true));
+        }
+
+        @Test
+        public void ibansShouldBeOrderedByBankCodeBeforeOtherBbanEntries() {
+            Iban iban1 = new Iban.Builder()
+                    .countryCode(CountryCode.IT)
+                    .nationalCheckDigit("Z")
+                    .bankCode("03069")
+                    .branchCode("09606")
+                    .accountNumber("100000011105")
+                    .build();
+            Iban iban2 = new Iban.Builder()
+                    .countryCode(CountryCode.IT)
+                    .nationalCheckDigit("X")
+                    .bankCode("05428")
+                    .branchCode("11101")
+                    .accountNumber("000000123456")
+                    .build();
+
+            assertThat(iban1.compareTo(iban2) < 0, is(true));
+        }
+
+        @Test
+        public void ibansShouldBeOrderedByCheckDigitLast() {
+            Iban iban1 = Iban.valueOf("DE89370400440532013000");
+            Iban iban2 = new Iban.Builder()
+                    .countryCode(CountryCode.DE)
+                    .bankCode("37040044")
+                    .accountNumber("0532013001")
+                    .build();
+
+            assertThat(iban1.compareTo(iban2) < 0, is(true));
+        }
+
+        @Test
+        public void equalIbansShouldCompareAsZero() {
+            assertThat(Iban.valueOf("AT611904300234573201")
+                    .compareTo(Iban.valueOf("AT611904300234573201")), is(equalTo(0)));
+        }
     }
 
     public static class IbanGenerationExceptionalTest {
@@ -326,6 +470,23 @@ public class IbanTest {
                     .build();
         }
 
+        @Test
+        public void ibanConstructionWithInvalidNationalCheckDigitShouldThrowException() {
+            try {
+                new Iban.Builder()
+                        .countryCode(CountryCode.BE)
+                        .bankCode("539")
+                        .accountNumber("0075470")
+                        .nationalCheckDigit("35")
+                        .build();
+            } catch (IbanFormatException e) {
+                assertThat(e.getFormatViolation(),
+                        is(IbanFormatException.IbanFormatViolation.NATIONAL_CHECK_DIGIT));
+                return;
+            }
+            throw new AssertionError("invalid national check digit was accepted");
+        }
+
         @Test(expected = IbanFormatException.class)
         public void ibanConstructionWithShortBankCodeShouldThrowException() {
             new Iban.Builder()
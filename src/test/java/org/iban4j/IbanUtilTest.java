@@ -83,6 +83,48 @@ public class IbanUtilTest {
         }
     }
 
+    public static class BatchCheckDigitCalculationTest {
+
+        @Test
+        public void batchCalculationShouldMatchSingleCalculation() throws Exception {
+            final Collection<Object[]> data = TestDataHelper.getIbanData();
+            final CountryCode[] countryCodes = new CountryCode[data.size()];
+            final int[] offsets = new int[data.size() + 1];
+            final StringBuilder bbans = new StringBuilder();
+            final StringBuilder expected = new StringBuilder();
+            int i = 0;
+            for (final Object[] ibanData : data) {
+                final String iban = (String) ibanData[1];
+                countryCodes[i] = CountryCode.getByCode(iban.substring(0, 2));
+                bbans.append(iban.substring(4));
+                offsets[++i] = bbans.length();
+                expected.append(iban, 2, 4);
+            }
+
+            final char[] checkDigits = new char[2 * data.size() + 1];
+            IbanUtil.calculateCheckDigits(countryCodes, bbans.toString().toCharArray(),
+                    offsets, data.size(), checkDigits, 1);
+            assertThat(new String(checkDigits, 1, 2 * data.size()), is(equalTo(expected.toString())));
+
+            final byte[] asciiCheckDigits = new byte[2 * data.size()];
+            IbanUtil.calculateCheckDigits(countryCodes, bbans.toString().getBytes("US-ASCII"),
+                    offsets, data.size(), asciiCheckDigits, 0);
+            assertThat(new String(asciiCheckDigits, "US-ASCII"), is(equalTo(expected.toString())));
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void batchCalculationWithInvalidCharacterShouldThrowException() {
+            IbanUtil.calculateCheckDigits(new CountryCode[] {CountryCode.AT},
+                    "0159260+076545510730339".toCharArray(), new int[] {0, 23}, 1, new char[2], 0);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void batchCalculationWithoutCountryCodeShouldThrowException() {
+            IbanUtil.calculateCheckDigits(new CountryCode[1],
+                    "1904300234573201".toCharArray(), new int[] {0, 16}, 1, new char[2], 0);
+        }
+    }
+
     public static class DefaultIbanUtilTest {
 
         @Test
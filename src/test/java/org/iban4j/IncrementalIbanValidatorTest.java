@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.IbanFormatException.IbanFormatViolation;
+import org.iban4j.IncrementalIbanValidator.Status;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IncrementalIbanValidatorTest {
+
+    @Test
+    public void prefixesOfValidIbansShouldBeIncomplete() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+            for (int i = 0; i < iban.length() - 1; i++) {
+                assertThat(iban.substring(0, i + 1), validator.append(iban.charAt(i)),
+                        is(Status.INCOMPLETE));
+            }
+            assertThat(iban, validator.append(iban.charAt(iban.length() - 1)), is(Status.VALID));
+            assertThat(validator.getInvalidPosition(), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void invalidCharacterShouldBeReportedWithPosition() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+        validator.append("DE89370400");
+
+        assertThat(validator.append('X'), is(Status.INVALID_FORMAT));
+        assertThat(validator.getInvalidPosition(), is(equalTo(10)));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.BBAN_ONLY_DIGITS));
+        assertThat(validator.append('4'), is(Status.INVALID_FORMAT));
+        assertThat(validator.getInvalidPosition(), is(equalTo(10)));
+    }
+
+    @Test
+    public void deletingInvalidCharacterShouldRestoreState() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+        validator.append("DE89370400X4");
+
+        assertThat(validator.deleteLast(), is(Status.INVALID_FORMAT));
+        assertThat(validator.deleteLast(), is(Status.INCOMPLETE));
+        assertThat(validator.getInvalidPosition(), is(equalTo(-1)));
+        assertThat(validator.append("440532013000"), is(Status.VALID));
+        assertThat(validator.toString(), is(equalTo("DE89370400440532013000")));
+    }
+
+    @Test
+    public void wrongCheckDigitShouldBeReportedWhenComplete() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+        assertThat(validator.append("DE8837040044053201300"), is(Status.INCOMPLETE));
+        assertThat(validator.append('0'), is(Status.INVALID_CHECK_DIGIT));
+        assertThat(validator.getInvalidPosition(), is(equalTo(2)));
+        validator.deleteLast();
+        assertThat(validator.getStatus(), is(Status.INCOMPLETE));
+    }
+
+    @Test
+    public void countryCodeViolationsShouldBeReported() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+        assertThat(validator.append('d'), is(Status.INVALID_FORMAT));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.COUNTRY_CODE_UPPER_CASE_LETTERS));
+        validator.reset();
+        assertThat(validator.append("QQ"), is(Status.INVALID_FORMAT));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.COUNTRY_CODE_EXISTS));
+        validator.reset();
+        assertThat(validator.append("US"), is(Status.UNSUPPORTED_COUNTRY));
+        validator.deleteLast();
+        validator.deleteLast();
+        assertThat(validator.append("GB"), is(Status.INCOMPLETE));
+        assertThat(validator.getCountryCode(), is(CountryCode.GB));
+        assertThat(validator.getIbanLength(), is(equalTo(22)));
+    }
+
+    @Test
+    public void deletingSecondLetterShouldClearUnknownCountry() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+        assertThat(validator.append("XX"), is(Status.INVALID_FORMAT));
+        assertThat(validator.deleteLast(), is(Status.INCOMPLETE));
+        assertThat(validator.getInvalidPosition(), is(equalTo(-1)));
+        assertThat(validator.append('K'), is(Status.INCOMPLETE));
+        assertThat(validator.getCountryCode(), is(CountryCode.XK));
+    }
+
+    @Test
+    public void deletingSecondLetterShouldClearUnsupportedCountry() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+        assertThat(validator.append("US"), is(Status.UNSUPPORTED_COUNTRY));
+        assertThat(validator.deleteLast(), is(Status.INCOMPLETE));
+        assertThat(validator.append('I'), is(not(Status.UNSUPPORTED_COUNTRY)));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.COUNTRY_CODE_EXISTS));
+    }
+
+    @Test
+    public void tooLongInputShouldViolateBbanLength() {
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+        validator.append("DE89370400440532013000");
+
+        assertThat(validator.append('0'), is(Status.INVALID_FORMAT));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.BBAN_LENGTH));
+        assertThat(validator.getInvalidPosition(), is(equalTo(22)));
+    }
+
+    @Test
+    public void bbansLongerThanStandardShouldBeValidated() throws IOException {
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tDE\n" +
+                    "BBAN structure\t8!n24!n\n" +
+                    "Bank identifier position within the BBAN\t1-8\n")));
+            final String bban = "37040044053201300012345678901234";
+            final String iban = IbanUtil.replaceCheckDigit("DE00" + bban,
+                    IbanUtil.calculateCheckDigit("DE00" + bban));
+            final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+            assertThat(validator.append(iban), is(Status.VALID));
+            assertThat(validator.getIbanLength(), is(equalTo(36)));
+            assertThat(validator.append('0'), is(Status.INVALID_FORMAT));
+            assertThat(validator.getViolation(), is(IbanFormatViolation.BBAN_LENGTH));
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    @Test
+    public void nationalCheckDigitShouldBeVerifiedWhenComplete() {
+        final String iban = IbanUtil.replaceCheckDigit("BE00539007547035",
+                IbanUtil.calculateCheckDigit("BE00539007547035"));
+        final IncrementalIbanValidator validator = new IncrementalIbanValidator();
+
+        assertThat(validator.append(iban), is(Status.INVALID_FORMAT));
+        assertThat(validator.getViolation(), is(IbanFormatViolation.NATIONAL_CHECK_DIGIT));
+        assertThat(validator.getInvalidPosition(), is(equalTo(14)));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.bban.BbanEntryType;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class NationalAccountConverterTest {
+
+    @Test
+    public void shortAccountNumbersShouldBePadded() {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+
+        assertThat(Arrays.asList(converter.getComponents()),
+                is(equalTo(Arrays.asList(BbanEntryType.bank_code, BbanEntryType.account_number))));
+        assertThat(converter.toIban("37040044", "532013000").toString(),
+                is(equalTo("DE89370400440532013000")));
+        assertThat(converter.toIban("37040044", "000532013000").toString(),
+                is(equalTo("DE89370400440532013000")));
+    }
+
+    @Test
+    public void nationalCheckDigitsShouldBeCalculated() {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.FR);
+
+        assertThat(Arrays.asList(converter.getComponents()), is(equalTo(Arrays.asList(
+                BbanEntryType.bank_code, BbanEntryType.branch_code, BbanEntryType.account_number))));
+        assertThat(converter.toIban("20041", "1005", "500013m026").toString(),
+                is(equalTo("FR1420041010050500013M02606")));
+    }
+
+    @Test
+    public void convertedIbansShouldMatchTestData() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final CountryCode countryCode = CountryCode.getByCode(iban.substring(0, 2));
+            final NationalAccountConverter converter = new NationalAccountConverter(countryCode);
+            final BbanEntryType[] components = converter.getComponents();
+            final CharSequence[] record = new CharSequence[components.length];
+            for (int i = 0; i < components.length; i++) {
+                record[i] = entryValue(iban, countryCode, components[i]);
+            }
+
+            final char[] out = new char[converter.getIbanLength() + 1];
+            assertThat(converter.convert(record, out, 1), is(equalTo(iban.length())));
+            assertThat(new String(out, 1, iban.length()), is(equalTo(iban)));
+        }
+    }
+
+    @Test
+    public void invalidComponentsShouldBeReported() {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+
+        assertViolation(converter, IbanFormatException.IbanFormatViolation.BBAN_LENGTH,
+                "37040044", "10532013000");
+        assertViolation(converter, IbanFormatException.IbanFormatViolation.BBAN_ONLY_DIGITS,
+                "3704004A", "532013000");
+        assertViolation(converter, IbanFormatException.IbanFormatViolation.IBAN_ACCOUNT_NUMBER_NOT_NULL,
+                "37040044", null);
+    }
+
+    @Test
+    public void emptyComponentsShouldBeRejected() {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+
+        assertViolation(converter, IbanFormatException.IbanFormatViolation.BBAN_LENGTH,
+                "37040044", "");
+        assertViolation(converter, IbanFormatException.IbanFormatViolation.BBAN_LENGTH,
+                "", "532013000");
+    }
+
+    @Test
+    public void bulkConversionShouldWriteIbansAtFixedOffsets() throws InterruptedException {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+        final int count = 10000;
+        final CharSequence[][] records = new CharSequence[count][];
+        for (int i = 0; i < count; i++) {
+            records[i] = new CharSequence[] {"37040044", String.valueOf(532013000L + i)};
+        }
+        records[4321] = new CharSequence[] {"37040044", "X"};
+        final int length = converter.getIbanLength();
+        final char[] out = new char[count * length];
+        final Iban4jException[] errors = new Iban4jException[count];
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertThat(converter.convert(records, out, 0, errors, executor), is(equalTo(count - 1)));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(new String(out, 0, length), is(equalTo("DE89370400440532013000")));
+        for (int i = 0; i < count; i++) {
+            if (i == 4321) {
+                assertThat(errors[i], is(instanceOf(IbanFormatException.class)));
+            } else {
+                assertThat(errors[i], is(nullValue()));
+                final Iban iban = Iban.valueOf(new String(out, i * length, length));
+                assertThat(iban.getAccountNumber(), is(equalTo("0" + (532013000L + i))));
+            }
+        }
+
+        final Iban4jException[] sequentialErrors = new Iban4jException[count];
+        final char[] sequential = new char[count * length];
+        assertThat(converter.convert(records, sequential, 0, sequentialErrors), is(equalTo(count - 1)));
+        assertThat(new String(sequential, 0, 4321 * length), is(equalTo(new String(out, 0, 4321 * length))));
+    }
+
+    @Test(expected = IbanFormatException.class)
+    public void bulkConversionWithoutErrorsShouldStopAtFailure() {
+        new NationalAccountConverter(CountryCode.DE).convert(new CharSequence[][] {
+                {"37040044", "532013000"}, {"37040044", "X"}}, new char[44], 0, null);
+    }
+
+    @Test
+    public void malformedRecordsShouldBeReportedPerRecord() throws InterruptedException {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+        final CharSequence[][] records = {
+                {"37040044", "532013000"}, null, {"37040044"}, {"37040044", "532013000", "1"}};
+        final Iban4jException[] errors = new Iban4jException[records.length];
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(converter.convert(records, new char[records.length * 22], 0, errors, executor),
+                    is(equalTo(1)));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(errors[0], is(nullValue()));
+        for (int i = 1; i < records.length; i++) {
+            assertThat(((IbanFormatException) errors[i]).getFormatViolation(),
+                    is(IbanFormatException.IbanFormatViolation.UNKNOWN));
+        }
+    }
+
+    @Test
+    public void failedChunkShouldSkipTheRemainingChunks() throws InterruptedException {
+        final NationalAccountConverter converter = new NationalAccountConverter(CountryCode.DE);
+        final int count = 3 * 4096;
+        final CharSequence[][] records = new CharSequence[count][];
+        for (int i = 0; i < count; i++) {
+            records[i] = new CharSequence[] {"37040044", "532013000"};
+        }
+        records[0] = new CharSequence[] {"37040044", "X"};
+        final char[] out = new char[count * converter.getIbanLength()];
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            converter.convert(records, out, 0, null, executor);
+            throw new AssertionError("invalid record was converted");
+        } catch (IbanFormatException e) {
+            assertThat(e.getFormatViolation(), is(IbanFormatException.IbanFormatViolation.BBAN_ONLY_DIGITS));
+        } finally {
+            executor.shutdown();
+        }
+        // the chunks run in order on one thread, the later ones were skipped
+        assertThat(out[out.length - 1], is(equalTo('\0')));
+    }
+
+    private static void assertViolation(final NationalAccountConverter converter,
+                                        final IbanFormatException.IbanFormatViolation violation,
+                                        final CharSequence... record) {
+        try {
+            converter.toIban(record);
+            throw new AssertionError("invalid record was converted");
+        } catch (IbanFormatException e) {
+            assertThat(e.getFormatViolation(), is(violation));
+        }
+    }
+
+    private static String entryValue(final String iban, final CountryCode countryCode,
+                                     final BbanEntryType entryType) {
+        final StringBuilder value = new StringBuilder();
+        int index = 4;
+        for (final BbanStructureEntry entry : BbanStructure.forCountry(countryCode).getEntries()) {
+            if (entry.getEntryType() == entryType) {
+                value.append(iban, index, index + entry.getLength());
+            }
+            index += entry.getLength();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class NationalCheckDigitsTest {
+
+    @Test
+    public void nationalCheckDigitsOfTestIbansShouldMatch() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final CountryCode countryCode = CountryCode.getByCode(iban.substring(0, 2));
+            assertThat(iban, NationalCheckDigits.findViolation(countryCode, iban), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void calculatedNationalCheckDigitsShouldMatchTestIbans() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final CountryCode countryCode = CountryCode.getByCode(iban.substring(0, 2));
+            final char[] chars = iban.toCharArray();
+            assertThat(iban, NationalCheckDigits.calculate(countryCode, chars), is(true));
+            assertThat(new String(chars), is(equalTo(iban)));
+        }
+    }
+
+    @Test
+    public void ibanWithInvalidNationalCheckDigitShouldBeRejected() {
+        // BE68539007547034 with national check digit 35 and a matching iban check digit
+        final String iban = withCheckDigit("BE00539007547035");
+        try {
+            IbanUtil.validate(iban);
+        } catch (IbanFormatException e) {
+            assertThat(e.getFormatViolation(),
+                    is(IbanFormatException.IbanFormatViolation.NATIONAL_CHECK_DIGIT));
+            assertThat(e.getActual(), is(equalTo((Object) "35")));
+            assertThat(e.getExpected(), is(equalTo((Object) "34")));
+            return;
+        }
+        throw new AssertionError("invalid national check digit was accepted");
+    }
+
+    @Test
+    public void italianCinShouldBeVerified() {
+        final String iban = withCheckDigit("IT00Y0542811101000000123456");
+        final NationalCheckDigits.Rule rule = NationalCheckDigits.findViolation(CountryCode.IT, iban);
+
+        assertThat(rule.getCheckIndex(), is(equalTo(4)));
+        assertThat(rule.expected(iban), is(equalTo("X")));
+    }
+
+    @Test
+    public void secondSpanishCheckDigitShouldBeVerified() {
+        final String iban = "ES9121000418450200051333";
+        final NationalCheckDigits.Rule rule = NationalCheckDigits.findViolation(CountryCode.ES, iban);
+
+        assertThat(rule.getCheckIndex(), is(equalTo(13)));
+        assertThat(rule.expected(iban), is(equalTo("1")));
+    }
+
+    @Test
+    public void norwegianAccountWithoutCheckDigitShouldBeRejected() {
+        // weighted sum of 8601111798 modulo 11 is 1, which leaves check digit 10
+        final char[] iban = "NO0086011117980".toCharArray();
+        assertThat(NationalCheckDigits.calculate(CountryCode.NO, iban), is(false));
+    }
+
+    @Test
+    public void countriesWithoutNationalCheckDigitsShouldBeAccepted() {
+        assertThat(NationalCheckDigits.findViolation(CountryCode.DE, "DE89370400440532013000"),
+                is(nullValue()));
+    }
+
+    private static String withCheckDigit(final String iban) {
+        return IbanUtil.replaceCheckDigit(iban, IbanUtil.calculateCheckDigit(iban));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j;
+
+import org.iban4j.IbanFormatException.IbanFormatViolation;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class RandomIbanGeneratorTest {
+
+    @Test
+    public void generatedIbansShouldBeValidForAllCountries() {
+        final RandomIbanGenerator generator = new RandomIbanGenerator.Builder().seed(1).build();
+
+        for (long index = 0; index < 20000; index++) {
+            IbanUtil.validate(generator.generate(index));
+        }
+    }
+
+    @Test
+    public void ibansShouldOnlyDependOnSeedAndIndex() throws IOException {
+        final RandomIbanGenerator generator = new RandomIbanGenerator.Builder().seed(42)
+                .country(CountryCode.DE, 1).violation(IbanFormatViolation.BBAN_LENGTH, 0.5).build();
+        final RandomIbanGenerator same = new RandomIbanGenerator.Builder().seed(42)
+                .country(CountryCode.DE, 1).violation(IbanFormatViolation.BBAN_LENGTH, 0.5).build();
+
+        final StringBuilder all = new StringBuilder();
+        generator.writeTo(all, 0, 100);
+        final StringBuilder parts = new StringBuilder();
+        same.writeTo(parts, 0, 40);
+        same.writeTo(parts, 40, 60);
+        assertThat(parts.toString(), is(equalTo(all.toString())));
+
+        final char[] buffer = new char[generator.getMaxLength() + 3];
+        final int length = generator.generate(57, buffer, 3);
+        assertThat(new String(buffer, 3, length), is(equalTo(all.toString().split("\n")[57])));
+        assertThat(new RandomIbanGenerator.Builder().seed(43).country(CountryCode.DE, 1).build()
+                .generate(57), is(not(equalTo(generator.generate(57)))));
+    }
+
+    @Test
+    public void bulkGenerationShouldMatchWrittenLines() throws IOException {
+        final RandomIbanGenerator generator = new RandomIbanGenerator.Builder().seed(5)
+                .violation(IbanFormatViolation.BBAN_LENGTH, 0.5).build();
+        final StringBuilder written = new StringBuilder();
+        generator.writeTo(written, 10, 300);
+
+        final char[] buffer = new char[2 + 300 * (generator.getMaxLength() + 1)];
+        final int length = generator.generate(10, 300, buffer, 2);
+
+        assertThat(new String(buffer, 2, length), is(equalTo(written.toString())));
+    }
+
+    @Test
+    public void bbansLongerThanStandardShouldFitMaxLength() throws IOException {
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                    "IBAN prefix country code (ISO 3166)\tDE\n" +
+                    "BBAN structure\t8!n24!n\n" +
+                    "Bank identifier position within the BBAN\t1-8\n")));
+            final RandomIbanGenerator generator = new RandomIbanGenerator.Builder()
+                    .violation(IbanFormatViolation.BBAN_LENGTH, 0.5).build();
+
+            assertThat(generator.getMaxLength(), is(equalTo(37)));
+            for (long index = 0; index < 100; index++) {
+                final String iban = generator.generate(index);
+                assertThat(iban, iban.length() >= 35 && iban.length() <= 37, is(true));
+            }
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    @Test
+    public void countriesShouldFollowWeights() {
+        final RandomIbanGenerator generator = new RandomIbanGenerator.Builder()
+                .country(CountryCode.DE, 3).country(CountryCode.FR, 1).build();
+
+        int german = 0;
+        for (long index = 0; index < 10000; index++) {
+            final String iban = generator.generate(index);
+            if (iban.startsWith("DE")) {
+                german++;
+            } else {
+                assertThat(iban.substring(0, 2), is(equalTo("FR")));
+            }
+        }
+        assertThat(german > 7300 && german < 7700, is(true));
+    }
+
+    @Test
+    public void injectedViolationsShouldBeReported() {
+        final IbanFormatViolation[] violations = {
+                IbanFormatViolation.IBAN_NOT_EMPTY,
+                IbanFormatViolation.COUNTRY_CODE_UPPER_CASE_LETTERS,
+                IbanFormatViolation.COUNTRY_CODE_EXISTS,
+                IbanFormatViolation.CHECK_DIGIT_ONLY_DIGITS,
+                IbanFormatViolation.BBAN_LENGTH,
+                IbanFormatViolation.BBAN_ONLY_DIGITS,
+                IbanFormatViolation.BBAN_ONLY_UPPER_CASE_LETTERS,
+                IbanFormatViolation.BBAN_ONLY_DIGITS_OR_LETTERS,
+                IbanFormatViolation.NATIONAL_CHECK_DIGIT
+        };
+        final RandomIbanGenerator.Builder builder = new RandomIbanGenerator.Builder().seed(7)
+                .invalidCheckDigits(0.05);
+        for (final IbanFormatViolation violation : violations) {
+            builder.violation(violation, 0.05);
+        }
+        final RandomIbanGenerator generator = builder.build();
+
+        final Map<IbanFormatViolation, Integer> counts =
+                new EnumMap<IbanFormatViolation, Integer>(IbanFormatViolation.class);
+        int invalidCheckDigits = 0;
+        int valid = 0;
+        for (long index = 0; index < 20000; index++) {
+            try {
+                IbanUtil.validate(generator.generate(index));
+                valid++;
+            } catch (IbanFormatException e) {
+                final Integer count = counts.get(e.getFormatViolation());
+                counts.put(e.getFormatViolation(), count == null ? 1 : count + 1);
+            } catch (InvalidCheckDigitException e) {
+                invalidCheckDigits++;
+            }
+        }
+        assertThat(counts.keySet().size(), is(equalTo(violations.length)));
+        for (final IbanFormatViolation violation : violations) {
+            assertThat(violation.name(), counts.get(violation) > 800 && counts.get(violation) < 1200,
+                    is(true));
+        }
+        assertThat(invalidCheckDigits > 800 && invalidCheckDigits < 1200, is(true));
+        assertThat(valid > 9500 && valid < 10500, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void violationWithoutEligibleCountryShouldBeRejected() {
+        new RandomIbanGenerator.Builder().country(CountryCode.DE, 1)
+                .violation(IbanFormatViolation.BBAN_ONLY_UPPER_CASE_LETTERS, 0.1).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ratesAboveOneShouldBeRejected() {
+        new RandomIbanGenerator.Builder().violation(IbanFormatViolation.BBAN_LENGTH, 0.6)
+                .invalidCheckDigits(0.6).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void violationsThatCantBeInjectedShouldBeRejected() {
+        new RandomIbanGenerator.Builder().violation(IbanFormatViolation.IBAN_NOT_NULL, 0.1);
+    }
+}
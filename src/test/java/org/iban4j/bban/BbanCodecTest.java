@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.CountryCode;
+import org.iban4j.TestDataHelper;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BbanCodecTest {
+
+    @Test
+    public void byteKeysShouldRestoreTestIbans() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final BbanCodec codec = codecOf(iban);
+            final byte[] key = new byte[codec.getKeyLength() + 2];
+            codec.encode(iban, key, 1);
+
+            final char[] decoded = iban.toCharArray();
+            Arrays.fill(decoded, 4, decoded.length, ' ');
+            codec.decode(key, 1, decoded);
+            assertThat(new String(decoded), is(equalTo(iban.toUpperCase())));
+        }
+    }
+
+    @Test
+    public void longKeysShouldRestoreTestIbans() {
+        for (final Object[] data : TestDataHelper.getIbanData()) {
+            final String iban = (String) data[1];
+            final BbanCodec codec = codecOf(iban);
+            if (codec.isLongKey()) {
+                final char[] decoded = new char[iban.length()];
+                codec.decode(codec.encodeToLong(iban), decoded);
+                assertThat(new String(decoded, 4, decoded.length - 4),
+                        is(equalTo(iban.substring(4).toUpperCase())));
+            }
+        }
+    }
+
+    @Test
+    public void keySizeShouldFollowCharacterTypes() {
+        // 18 digits
+        assertThat(BbanStructure.forCountry(CountryCode.DE).getCodec().getBitLength(), is(equalTo(60)));
+        // 4 letters and 14 digits
+        assertThat(BbanStructure.forCountry(CountryCode.GB).getCodec().getBitLength(), is(equalTo(67)));
+        assertThat(BbanStructure.forCountry(CountryCode.GB).getCodec().getKeyLength(), is(equalTo(9)));
+        assertThat(BbanStructure.forCountry(CountryCode.GB).getCodec().isLongKey(), is(false));
+    }
+
+    @Test
+    public void keysShouldCompareLikeBbans() {
+        final BbanCodec codec = BbanStructure.forCountry(CountryCode.GB).getCodec();
+        final byte[] lower = new byte[codec.getKeyLength()];
+        final byte[] higher = new byte[codec.getKeyLength()];
+        codec.encode("GB29NWBK60161331926819", lower, 0);
+        codec.encode("GB29NWBL00000000000000", higher, 0);
+
+        assertThat(compareUnsigned(lower, higher) < 0, is(true));
+
+        final BbanCodec deCodec = BbanStructure.forCountry(CountryCode.DE).getCodec();
+        assertThat(deCodec.encodeToLong("DE89370400440532013000") <
+                deCodec.encodeToLong("DE89370400440532013001"), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void charactersOfOtherTypesShouldBeRejected() {
+        BbanStructure.forCountry(CountryCode.DE).getCodec().encodeToLong("DE8937040044053201300X");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void longKeysShouldBeRejectedWhenTooShort() {
+        BbanStructure.forCountry(CountryCode.GB).getCodec().encodeToLong("GB29NWBK60161331926819");
+    }
+
+    private static BbanCodec codecOf(final String iban) {
+        return BbanStructure.forCountry(CountryCode.getByCode(iban.substring(0, 2))).getCodec();
+    }
+
+    private static int compareUnsigned(final byte[] left, final byte[] right) {
+        for (int i = 0; i < left.length; i++) {
+            final int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+}
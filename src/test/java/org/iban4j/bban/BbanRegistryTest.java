@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.CountryCode;
+import org.iban4j.Iban;
+import org.iban4j.UnsupportedCountryException;
+import org.iban4j.bban.BbanStructureEntry.EntryCharacterType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BbanRegistryTest {
+
+    private static final String REGISTRY =
+            "Data element\tAustria\tUnited Kingdom\tItaly\n" +
+            "Name of country\tAustria\tUnited Kingdom\tItaly\n" +
+            "IBAN prefix country code (ISO 3166)\tAT\tGB\tIT\n" +
+            "BBAN\t\t\t\n" +
+            "BBAN structure\t5!n11!n\t4!a6!n8!n\t1!a5!n5!n12!c\n" +
+            "BBAN length\t16\t18\t23\n" +
+            "Bank identifier position within the BBAN\t1-5\t1-4\t2-6\n" +
+            "Bank identifier pattern\t5!n\t4!a\t5!n\n" +
+            "Branch identifier position within the BBAN\t\t5-10\t7-11\n" +
+            "IBAN structure\tAT2!n5!n11!n\tGB2!n4!a6!n8!n\tIT2!n1!a5!n5!n12!c\n";
+
+    @Test
+    public void registryShouldBeCompiledIntoEntries() throws IOException {
+        BbanRegistry registry = BbanRegistry.load(new StringReader(REGISTRY));
+
+        BbanStructureEntry[] entries = registry.forCountry(CountryCode.GB).getEntries();
+        assertThat(entries.length, is(equalTo(3)));
+        assertEntry(entries[0], BbanEntryType.bank_code, EntryCharacterType.a, 4);
+        assertEntry(entries[1], BbanEntryType.branch_code, EntryCharacterType.n, 6);
+        assertEntry(entries[2], BbanEntryType.account_number, EntryCharacterType.n, 8);
+        assertThat(registry.forCountry(CountryCode.GB).getBbanLength(), is(equalTo(18)));
+    }
+
+    @Test
+    public void positionsOutsideOfIdentifiersShouldBecomeAccountNumber() throws IOException {
+        BbanRegistry registry = BbanRegistry.load(new StringReader(REGISTRY));
+
+        BbanStructureEntry[] entries = registry.forCountry(CountryCode.IT).getEntries();
+        assertThat(entries.length, is(equalTo(4)));
+        assertEntry(entries[0], BbanEntryType.account_number, EntryCharacterType.a, 1);
+        assertEntry(entries[1], BbanEntryType.bank_code, EntryCharacterType.n, 5);
+        assertEntry(entries[3], BbanEntryType.account_number, EntryCharacterType.c, 12);
+    }
+
+    @Test
+    public void countriesOutsideOfRegistryShouldNotBeSupported() throws IOException {
+        BbanRegistry registry = BbanRegistry.load(new StringReader(REGISTRY));
+
+        assertThat(registry.forCountry(CountryCode.DE), is(nullValue()));
+        assertThat(registry.getCountryCodes().size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void reloadedRegistryShouldBeUsedForValidation() throws IOException {
+        try {
+            BbanStructure.setRegistry(BbanRegistry.load(new StringReader(REGISTRY)));
+            assertThat(Iban.valueOf("AT611904300234573201").getBankCode(), is(equalTo("19043")));
+            try {
+                Iban.valueOf("DE89370400440532013000");
+                throw new AssertionError("country outside of registry was accepted");
+            } catch (UnsupportedCountryException e) {
+                // expected
+            }
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+        assertThat(Iban.valueOf("DE89370400440532013000").getBankCode(), is(equalTo("37040044")));
+    }
+
+    @Test
+    public void loadedStructureShouldMatchIbans() throws IOException {
+        BbanStructure structure = BbanRegistry.load(new StringReader(REGISTRY))
+                .forCountry(CountryCode.GB);
+
+        assertThat(structure.matches("GB29NWBK60161331926819"), is(true));
+        assertThat(structure.matches("GB29NWBK60161331926819"), is(true));
+        assertThat(structure.matches("GB29NWbK60161331926819"), is(false));
+        assertThat(structure.matches("GB29NWBK6016133192681X"), is(false));
+        assertThat(structure.matches("GB29NWBK6016133192681"), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lengthMismatchShouldBeRejected() throws IOException {
+        BbanRegistry.load(new StringReader(REGISTRY.replace("\t16\t", "\t17\t")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bankPositionOutsideOfBbanShouldBeRejected() throws IOException {
+        BbanRegistry.load(new StringReader(REGISTRY.replace("\t1-5\t", "\t1-17\t")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedCharacterTypeShouldBeRejected() throws IOException {
+        BbanRegistry.load(new StringReader(REGISTRY.replace("5!n11!n", "5!n11!e")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registryWithoutStructureShouldBeRejected() throws IOException {
+        BbanRegistry.load(new StringReader("IBAN prefix country code (ISO 3166)\tAT\n"));
+    }
+
+    private static void assertEntry(final BbanStructureEntry entry, final BbanEntryType entryType,
+                                    final EntryCharacterType characterType, final int length) {
+        assertThat(entry.getEntryType(), is(equalTo(entryType)));
+        assertThat(entry.getCharacterType(), is(equalTo(characterType)));
+        assertThat(entry.getLength(), is(equalTo(length)));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.CountryCode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BbanStructureTest {
+
+    @Test
+    public void entryOffsetsShouldFollowEntryOrder() {
+        BbanStructure structure = BbanStructure.forCountry(CountryCode.IT);
+
+        assertThat(structure.getEntryOffset(BbanEntryType.national_check_digit), is(equalTo(0)));
+        assertThat(structure.getEntryLength(BbanEntryType.national_check_digit), is(equalTo(1)));
+        assertThat(structure.getEntryOffset(BbanEntryType.bank_code), is(equalTo(1)));
+        assertThat(structure.getEntryLength(BbanEntryType.bank_code), is(equalTo(5)));
+        assertThat(structure.getEntryOffset(BbanEntryType.account_number), is(equalTo(11)));
+        assertThat(structure.getEntryLength(BbanEntryType.account_number), is(equalTo(12)));
+    }
+
+    @Test
+    public void absentEntryShouldHaveNoOffset() {
+        BbanStructure structure = BbanStructure.forCountry(CountryCode.DE);
+
+        assertThat(structure.getEntryOffset(BbanEntryType.branch_code), is(equalTo(-1)));
+        assertThat(structure.getEntryLength(BbanEntryType.branch_code), is(equalTo(-1)));
+    }
+
+    @Test
+    public void adjacentEntriesOfOneTypeShouldFormOneField() throws IOException {
+        BbanStructure structure = BbanRegistry.load(new StringReader(
+                "IBAN prefix country code (ISO 3166)\tXK\n" +
+                "BBAN structure\t4!n6!n4!a\n" +
+                "Bank identifier position within the BBAN\t1-4\n")).forCountry(CountryCode.XK);
+
+        assertThat(structure.getEntries().length, is(equalTo(3)));
+        assertThat(structure.getEntryOffset(BbanEntryType.account_number), is(equalTo(4)));
+        assertThat(structure.getEntryLength(BbanEntryType.account_number), is(equalTo(10)));
+    }
+
+    @Test
+    public void firstOfSeparatedEntriesShouldBeDescribed() throws IOException {
+        BbanStructure structure = BbanRegistry.load(new StringReader(
+                "IBAN prefix country code (ISO 3166)\tIT\n" +
+                "BBAN structure\t1!a5!n5!n12!c\n" +
+                "Bank identifier position within the BBAN\t2-6\n")).forCountry(CountryCode.IT);
+
+        assertThat(structure.getEntryOffset(BbanEntryType.account_number), is(equalTo(0)));
+        assertThat(structure.getEntryLength(BbanEntryType.account_number), is(equalTo(1)));
+    }
+}
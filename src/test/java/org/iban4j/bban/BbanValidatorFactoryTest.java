@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 Artur Mkrtchyan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.iban4j.bban;
+
+import org.iban4j.CountryCode;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs against the base factory in the default build and against the Java 15
+ * factory in the java15 profile, which sets iban4j.java15.
+ */
+public class BbanValidatorFactoryTest {
+
+    private static final char[] PROBES = {'0', '9', 'A', 'Z', 'a', 'z',
+            '/', ':', '@', '[', '`', '{', ' ', '\u00c4', '\u0660'};
+
+    @Test
+    public void createdValidatorsShouldAgreeWithInterpretedValidators() {
+        for (final CountryCode countryCode : CountryCode.values()) {
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure == null) {
+                continue;
+            }
+            final BbanValidator validator = BbanValidatorFactory.create(structure);
+            final BbanValidator interpreted = new InterpretedBbanValidator(structure);
+            final StringBuilder iban = new StringBuilder(countryCode.getAlpha2()).append("00");
+            for (int i = 0; i < structure.getBbanLength(); i++) {
+                iban.append('0');
+            }
+            for (int position = 4; position < iban.length(); position++) {
+                for (final char probe : PROBES) {
+                    iban.setCharAt(position, probe);
+                    assertThat(countryCode + " " + iban, validator.isValid(iban),
+                            is(interpreted.isValid(iban)));
+                    iban.setCharAt(position, '0');
+                }
+            }
+        }
+    }
+
+    @Test
+    public void java15FactoryShouldDefineSpecializedValidators() {
+        assumeTrue(Boolean.getBoolean("iban4j.java15"));
+
+        for (final CountryCode countryCode : CountryCode.values()) {
+            final BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure == null) {
+                continue;
+            }
+            final String className = BbanValidatorFactory.create(structure).getClass().getName();
+            // hidden class names carry a '/' before their suffix
+            assertThat(countryCode + " " + className,
+                    className.startsWith("org.iban4j.bban.SpecializedBbanValidator/"), is(true));
+        }
+
+        final BbanValidator validator = BbanValidatorFactory.create(
+                BbanStructure.forCountry(CountryCode.GB));
+        assertThat(validator.isValid("GB29NWBK60161331926819"), is(true));
+        assertThat(validator.isValid("GB29NWbK60161331926819"), is(false));
+    }
+}
@@ -5,16 +5,30 @@ import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
 import com.carrotsearch.junitbenchmarks.BenchmarkRule;
 import org.iban4j.CountryCode;
 import org.iban4j.Iban;
+import org.iban4j.IbanSorter;
 import org.iban4j.IbanUtil;
+import org.iban4j.RandomIbanGenerator;
+import org.iban4j.bban.BbanRegistry;
+import org.iban4j.bban.BbanStructure;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
 public class IbanBenchmark {
 
     public static final long LOOPS_COUNT = 1000000;
 
+    public static final int SORT_COUNT = 1000000;
+
+    private static Iban[] unsortedIbans;
+
     @Rule
     public TestRule benchmarkRun = new BenchmarkRule();
 
@@ -41,4 +55,73 @@ public class IbanBenchmark {
             IbanUtil.validate("DE89370400440532013000");
         }
     }
+
+    /**
+     * Same as {@link #ibanValidation()} but with a registry loaded at runtime,
+     * which makes validation interpret the bban structure instead of using
+     * the generated validators.
+     */
+    @BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+    @Test
+    @Ignore
+    public void ibanValidationInterpreted() throws IOException {
+        BbanStructure.setRegistry(BbanRegistry.load(new StringReader(
+                "IBAN prefix country code (ISO 3166)\tDE\n" +
+                "BBAN structure\t8!n10!n\n" +
+                "Bank identifier position within the BBAN\t1-8\n")));
+        try {
+            for(int i = 0; i < LOOPS_COUNT; i++) {
+                IbanUtil.validate("DE89370400440532013000");
+            }
+        } finally {
+            BbanStructure.setRegistry(BbanRegistry.defaults());
+        }
+    }
+
+    /**
+     * Class initialization and the first validation in a fresh class loader,
+     * the latency a short lived process sees.
+     */
+    @BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 0)
+    @Test
+    @Ignore
+    public void firstCallLatency() throws Exception {
+        final URL classes = Iban.class.getProtectionDomain().getCodeSource().getLocation();
+        final ClassLoader loader = new URLClassLoader(new URL[]{classes}, null);
+        Class.forName(Iban.class.getName(), true, loader)
+                .getMethod("valueOf", String.class)
+                .invoke(null, "DE89370400440532013000");
+    }
+
+    /**
+     * Sorts {@link #SORT_COUNT} random ibans of all countries, the time per
+     * round scales about linearly to larger arrays given the heap for them.
+     */
+    @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+    @Test
+    @Ignore
+    public void ibanSorting() {
+        IbanSorter.sort(unsortedIbans().clone());
+    }
+
+    /**
+     * Same as {@link #ibanSorting()} with {@link Iban#compareTo(Iban)}.
+     */
+    @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+    @Test
+    @Ignore
+    public void ibanComparisonSorting() {
+        Arrays.sort(unsortedIbans().clone());
+    }
+
+    private static synchronized Iban[] unsortedIbans() {
+        if (unsortedIbans == null) {
+            final RandomIbanGenerator generator = new RandomIbanGenerator.Builder().build();
+            unsortedIbans = new Iban[SORT_COUNT];
+            for (int i = 0; i < SORT_COUNT; i++) {
+                unsortedIbans[i] = Iban.valueOf(generator.generate(i));
+            }
+        }
+        return unsortedIbans;
+    }
 }